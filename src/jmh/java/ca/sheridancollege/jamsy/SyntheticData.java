@@ -0,0 +1,81 @@
+package ca.sheridancollege.jamsy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ca.sheridancollege.jamsy.beans.Track;
+
+/*
+ * Deterministic synthetic inputs for the benchmarks, sized like real
+ * requests: Spotify genre lists of 0-8 entries, Last.fm similar-track pools
+ * with repeated artists and duplicate tracks.
+ */
+public final class SyntheticData {
+
+    private static final String[] GENRES = {
+            "pop", "dance pop", "edm", "house", "tech house", "electropop", "synthpop", "rock", "hard rock",
+            "alternative metal", "punk", "grunge", "hip hop", "trap", "drill", "east coast hip hop", "r&b",
+            "indie folk", "acoustic", "ambient", "lo-fi beats", "jazz", "classical", "dream pop", "chillout",
+            "k-pop", "latin", "reggaeton", "country", "singer-songwriter", "love songs", "romance"
+    };
+
+    private static final String[] WORDS = {
+            "Night", "Love", "Fire", "Run", "Dream", "City", "Heart", "Gold", "Rain", "Electric", "Wild", "Home"
+    };
+
+    private SyntheticData() {
+    }
+
+    public static List<List<String>> genreLists(int count, long seed) {
+        Random random = new Random(seed);
+        List<List<String>> lists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int size = random.nextInt(9);
+            List<String> genres = new ArrayList<>(size);
+            for (int g = 0; g < size; g++) {
+                genres.add(GENRES[random.nextInt(GENRES.length)]);
+            }
+            lists.add(genres);
+        }
+        return lists;
+    }
+
+    public static List<String> artistNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("Artist " + i);
+        }
+        return names;
+    }
+
+    /**
+     * @param artists distinct artists in the pool; fewer artists means more
+     *                tracks rejected by the per-artist cap
+     */
+    public static List<Track> tracks(int count, int artists, long seed) {
+        Random random = new Random(seed);
+        List<Track> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Track track = new Track();
+            // ~10% repeats of an earlier title by the same artist, as in merged similar-track lists
+            int titleId = random.nextInt(10) == 0 && i > 0 ? random.nextInt(i) : i;
+            String artist = "Artist " + (titleId % artists);
+            track.setId("track-" + titleId);
+            track.setName(WORDS[titleId % WORDS.length] + " " + WORDS[(titleId / WORDS.length) % WORDS.length] + " " + titleId);
+            track.setArtistName(artist);
+            track.setArtists(List.of(artist));
+            track.setExplicit(random.nextInt(4) == 0);
+            track.setDurationMs(120_000 + random.nextInt(180_000));
+            track.setMatchScore(random.nextFloat());
+            track.setPreviewUrl(random.nextBoolean() ? "https://p.scdn.co/mp3-preview/" + titleId : null);
+            List<String> genres = new ArrayList<>();
+            for (int g = random.nextInt(4); g > 0; g--) {
+                genres.add(GENRES[random.nextInt(GENRES.length)]);
+            }
+            track.setGenres(genres);
+            tracks.add(track);
+        }
+        return tracks;
+    }
+}
@@ -0,0 +1,60 @@
+package ca.sheridancollege.jamsy.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.sheridancollege.jamsy.SyntheticData;
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.services.playlist.PlaylistAssembler;
+
+/*
+ * The CPU-only parts of discovery: the duration-targeted assembly in
+ * generateOneHourPlaylist (20 liked seeds x 25 similar tracks = 500) and
+ * convertTracksForFrontend for a discovery page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoveryPlaylistBenchmark {
+
+    @Param({"500", "2000"})
+    int poolSize;
+
+    private DiscoveryService service;
+    private List<Track> pool;
+    private List<Track> page;
+
+    @Setup
+    public void setUp() {
+        service = new DiscoveryService(null, null, null);
+        pool = SyntheticData.tracks(poolSize, poolSize / 4, 11);
+        page = SyntheticData.tracks(50, 50, 13);
+    }
+
+    @Benchmark
+    public PlaylistAssembler.Result assemblePlaylist() {
+        // One hour, +/- 2 minutes, two tracks per artist, 5 s steps (the application defaults)
+        return PlaylistAssembler.assemble(List.of(), pool, 60 * 60 * 1000, 120_000, 2, 5000);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> convertTracksForFrontend() {
+        return service.convertTracksForFrontend(page);
+    }
+}
@@ -0,0 +1,49 @@
+package ca.sheridancollege.jamsy.services.recommendation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.sheridancollege.jamsy.SyntheticData;
+import ca.sheridancollege.jamsy.beans.Track;
+
+/*
+ * filterTracks over one Spotify search page (50) and a merged candidate
+ * pool (500), with every filter switched on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationFilterBenchmark {
+
+    @Param({"50", "500"})
+    int tracks;
+
+    private RecommendationFilterService service;
+    private List<Track> input;
+
+    @Setup
+    public void setUp() {
+        service = new RecommendationFilterService();
+        input = SyntheticData.tracks(tracks, tracks / 3, 7);
+    }
+
+    @Benchmark
+    public List<Track> filterTracks() {
+        return service.filterTracks(input, true, true, true);
+    }
+}
@@ -0,0 +1,64 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ca.sheridancollege.jamsy.SyntheticData;
+
+/*
+ * Categorizes a user's whole top-artist list, as
+ * getUserTopArtistsWithWorkoutCategories does on a cache miss.
+ * Empty genre lists are replaced by one genre so determineWorkoutCategories
+ * stays off the Last.fm fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenreCategorizationBenchmark {
+
+    @Param({"50", "500"})
+    int artists;
+
+    private SpotifyArtistService service;
+    private List<List<String>> genreLists;
+    private List<String> artistNames;
+
+    @Setup
+    public void setUp() {
+        service = new SpotifyArtistService(null, null, null, null, null, null, null, null);
+        genreLists = SyntheticData.genreLists(artists, 42).stream()
+                .map(genres -> genres.isEmpty() ? List.of("pop") : genres)
+                .toList();
+        artistNames = SyntheticData.artistNames(artists);
+    }
+
+    @Benchmark
+    public void categorizeGenres(Blackhole bh) {
+        for (List<String> genres : genreLists) {
+            bh.consume(service.categorizeGenres(genres));
+        }
+    }
+
+    @Benchmark
+    public void determineWorkoutCategories(Blackhole bh) {
+        for (int i = 0; i < genreLists.size(); i++) {
+            bh.consume(service.determineWorkoutCategories(genreLists.get(i), artistNames.get(i)));
+        }
+    }
+}
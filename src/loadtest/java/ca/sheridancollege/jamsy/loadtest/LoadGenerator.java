@@ -0,0 +1,231 @@
+package ca.sheridancollege.jamsy.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/*
+ * Open-loop load generator for the mobile API.
+ *
+ * Requests are started on a fixed schedule (--rps) whether or not earlier
+ * ones have finished, and latency is measured from the scheduled start, so
+ * a stalled server shows up in p99 instead of silently lowering the rate.
+ *
+ * Options (--name=value):
+ *   --target=http://localhost:8080  Jamsy base URL
+ *   --rps=20                        requests per second across all endpoints
+ *   --duration-s=60                 measured run length
+ *   --warmup-s=10                   run at full rate first, results discarded
+ *   --token=stub-access-token       sent as "Authorization: Bearer <token>"
+ *   --mix=discover:1,search:1,workout:1,playlist:1
+ *   --timeout-ms=30000              per-request timeout, counted as an error
+ */
+public class LoadGenerator {
+
+    private static final List<String> ARTISTS = List.of("Drake", "Rihanna", "Eminem", "Adele", "Ed Sheeran",
+            "The Weeknd", "Taylor Swift", "Coldplay", "Imagine Dragons", "Bruno Mars");
+    private static final List<String> QUERIES = List.of("Timber", "Gods Plan", "Umbrella", "Lose Yourself",
+            "Blinding Lights", "Yellow", "Believer", "Uptown Funk");
+    private static final List<String> WORKOUTS = List.of("Cardio", "Strength Training", "HIIT", "Yoga");
+    private static final List<String> MOODS = List.of("happy", "energetic", "chill", "focused");
+
+    private record Endpoint(String name, Supplier<HttpRequest.Builder> request) {}
+
+    private static final class Stats {
+        final Queue<Long> latenciesMicros = new ConcurrentLinkedQueue<>();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String target;
+    private final String token;
+    private final Duration timeout;
+
+    public LoadGenerator(String target, String token, Duration timeout) {
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.token = token;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        LoadGenerator generator = new LoadGenerator(options.get("target", "http://localhost:8080"),
+                options.get("token", "stub-access-token"),
+                Duration.ofMillis(options.getInt("timeout-ms", 30000)));
+
+        List<Endpoint> schedule = generator.schedule(options.get("mix", "discover:1,search:1,workout:1,playlist:1"));
+        int rps = options.getInt("rps", 20);
+        int warmupSeconds = options.getInt("warmup-s", 10);
+        int durationSeconds = options.getInt("duration-s", 60);
+
+        System.out.println("🔥 Warming up " + generator.target + " for " + warmupSeconds + "s at " + rps + " rps");
+        generator.run(schedule, rps, warmupSeconds);
+
+        System.out.println("🚀 Measuring for " + durationSeconds + "s at " + rps + " rps");
+        long started = System.nanoTime();
+        Map<String, Stats> stats = generator.run(schedule, rps, durationSeconds);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        report(stats, elapsedSeconds);
+    }
+
+    // Expand "name:weight,..." into a round-robin list so the mix holds at any rate
+    private List<Endpoint> schedule(String mix) {
+        Map<String, Endpoint> endpoints = Map.of(
+                "discover", new Endpoint("POST /api/discover", this::discover),
+                "search", new Endpoint("GET /api/search", this::search),
+                "workout", new Endpoint("GET /api/spotify/artists/workout/{workout}/mood/{mood}", this::workout),
+                "playlist", new Endpoint("POST /api/create-playlist", this::createPlaylist));
+
+        List<Endpoint> schedule = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Endpoint endpoint = endpoints.get(parts[0]);
+            if (endpoint == null) {
+                throw new IllegalArgumentException("Unknown endpoint in --mix: " + parts[0] + " (expected " + endpoints.keySet() + ")");
+            }
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            for (int i = 0; i < weight; i++) {
+                schedule.add(endpoint);
+            }
+        }
+        return schedule;
+    }
+
+    private Map<String, Stats> run(List<Endpoint> schedule, int rps, int seconds) throws InterruptedException {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        schedule.forEach(endpoint -> stats.putIfAbsent(endpoint.name(), new Stats()));
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long total = (long) rps * seconds;
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long scheduledAt = start + i * intervalNanos;
+                long wait = scheduledAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Endpoint endpoint = schedule.get((int) (i % schedule.size()));
+                Stats endpointStats = stats.get(endpoint.name());
+                executor.execute(() -> send(endpoint, endpointStats, scheduledAt));
+            }
+        }
+        return stats;
+    }
+
+    private void send(Endpoint endpoint, Stats stats, long scheduledAt) {
+        try {
+            HttpRequest request = endpoint.request().get()
+                    .timeout(timeout)
+                    .header("Authorization", "Bearer " + token)
+                    .build();
+            int status = client.send(request, BodyHandlers.discarding()).statusCode();
+            if (status >= 400) {
+                stats.errors.increment();
+            }
+        } catch (Exception e) {
+            stats.errors.increment();
+        } finally {
+            stats.latenciesMicros.add((System.nanoTime() - scheduledAt) / 1000);
+        }
+    }
+
+    private HttpRequest.Builder discover() {
+        String body = "{\"seedArtists\":[\"" + pick(ARTISTS) + "\",\"" + pick(ARTISTS) + "\"],\"workout\":\"" + pick(WORKOUTS) + "\"}";
+        return post("/api/discover", body);
+    }
+
+    private HttpRequest.Builder search() {
+        return HttpRequest.newBuilder(URI.create(target + "/api/search?query=" + encode(pick(QUERIES)))).GET();
+    }
+
+    private HttpRequest.Builder workout() {
+        return HttpRequest.newBuilder(URI.create(target + "/api/spotify/artists/workout/" + encode(pick(WORKOUTS))
+                + "/mood/" + encode(pick(MOODS)))).GET();
+    }
+
+    // Sends the tracks explicitly so the run does not depend on liked songs in the database
+    private HttpRequest.Builder createPlaylist() {
+        StringBuilder body = new StringBuilder("{\"tracks\":[");
+        for (int i = 0; i < 15; i++) {
+            if (i > 0) body.append(',');
+            body.append("{\"name\":\"").append(pick(QUERIES)).append("\",\"artists\":[\"").append(pick(ARTISTS)).append("\"]}");
+        }
+        return post("/api/create-playlist", body.append("]}").toString());
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(target + path))
+                .header("Content-Type", "application/json")
+                .POST(BodyPublishers.ofString(json));
+    }
+
+    private static void report(Map<String, Stats> stats, double elapsedSeconds) {
+        System.out.println();
+        System.out.printf("%-58s %8s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms", "ok req/s");
+        List<Long> all = new ArrayList<>();
+        long allErrors = 0;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            long[] sorted = sorted(entry.getValue().latenciesMicros);
+            long errors = entry.getValue().errors.sum();
+            printRow(entry.getKey(), sorted, errors, elapsedSeconds);
+            for (long latency : sorted) all.add(latency);
+            allErrors += errors;
+        }
+        printRow("TOTAL", sorted(all), allErrors, elapsedSeconds);
+    }
+
+    private static void printRow(String name, long[] sorted, long errors, double elapsedSeconds) {
+        System.out.printf("%-58s %8d %8d %10.1f %10.1f %10.1f %10.1f%n", name, sorted.length, errors,
+                percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.99) / 1000.0,
+                sorted.length > 0 ? sorted[sorted.length - 1] / 1000.0 : 0.0,
+                (sorted.length - errors) / elapsedSeconds);
+    }
+
+    private static long[] sorted(Iterable<Long> latencies) {
+        List<Long> copy = new ArrayList<>();
+        latencies.forEach(copy::add);
+        long[] sorted = copy.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // Nearest-rank percentile
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String pick(List<String> values) {
+        return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,54 @@
+package ca.sheridancollege.jamsy.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * --name=value command line options shared by the stub server and the load
+ * generator. A scoped lookup tries "name.scope" before "name".
+ */
+final class Options {
+
+    private final Map<String, String> values;
+
+    private Options(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static Options parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new Options(values);
+    }
+
+    String get(String name, String fallback) {
+        return values.getOrDefault(name, fallback);
+    }
+
+    String get(String name, String scope, String fallback) {
+        String scoped = values.get(name + "." + scope);
+        return scoped != null ? scoped : get(name, fallback);
+    }
+
+    int getInt(String name, int fallback) {
+        return Integer.parseInt(get(name, String.valueOf(fallback)));
+    }
+
+    long getLong(String name, String scope, long fallback) {
+        return Long.parseLong(get(name, scope, String.valueOf(fallback)));
+    }
+
+    double getDouble(String name, String scope, double fallback) {
+        return Double.parseDouble(get(name, scope, String.valueOf(fallback)));
+    }
+}
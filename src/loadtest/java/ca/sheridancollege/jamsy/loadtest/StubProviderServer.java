@@ -0,0 +1,201 @@
+package ca.sheridancollege.jamsy.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * Local stand-in for Spotify, Last.fm, Deezer and MusicBrainz.
+ *
+ * Replays the recorded JSON fixtures under src/loadtest/resources/fixtures
+ * on a single port. The providers' paths do not overlap (/v1 and /api/token
+ * for Spotify, /2.0/ for Last.fm, /search for Deezer, /ws/2 for
+ * MusicBrainz), so the app only needs its outbound.base-url.* properties
+ * pointed here.
+ *
+ * Options (--name=value; every fault option also takes a per-provider
+ * form such as --latency-ms.lastfm=400):
+ *   --port=9090            listen port
+ *   --fixtures=<dir>       fixture root (default src/loadtest/resources/fixtures)
+ *   --latency-ms=40        base latency added to every response
+ *   --jitter-ms=20         extra uniformly random latency
+ *   --error-rate=0.0       fraction of requests answered with 503
+ *   --rate-429=0.0         fraction answered with 429 + Retry-After
+ *   --retry-after-s=1      Retry-After value sent with injected 429s
+ */
+public class StubProviderServer {
+
+    private record Route(String provider, String method, Pattern path, String fixture) {}
+
+    // First match wins, so specific paths come before their prefixes
+    private static final List<Route> ROUTES = List.of(
+            new Route("spotify", "POST", Pattern.compile("/api/token"), "token"),
+            new Route("spotify", "GET", Pattern.compile("/v1/me"), "me"),
+            new Route("spotify", "GET", Pattern.compile("/v1/me/top/artists"), "top-artists"),
+            new Route("spotify", "GET", Pattern.compile("/v1/me/top/tracks"), "top-tracks"),
+            new Route("spotify", "GET", Pattern.compile("/v1/me/player/recently-played"), "recently-played"),
+            new Route("spotify", "GET", Pattern.compile("/v1/me/player/currently-playing"), "currently-playing"),
+            new Route("spotify", "GET", Pattern.compile("/v1/search"), "search"),
+            new Route("spotify", "GET", Pattern.compile("/v1/artists"), "artists"),
+            new Route("spotify", "GET", Pattern.compile("/v1/artists/[^/]+/top-tracks"), "artist-top-tracks"),
+            new Route("spotify", "GET", Pattern.compile("/v1/artists/[^/]+/related-artists"), "related-artists"),
+            new Route("spotify", "GET", Pattern.compile("/v1/tracks/[^/]+"), "track"),
+            new Route("spotify", "GET", Pattern.compile("/v1/audio-features"), "audio-features"),
+            new Route("spotify", "POST", Pattern.compile("/v1/users/[^/]+/playlists"), "playlist"),
+            new Route("spotify", "POST", Pattern.compile("/v1/playlists/[^/]+/tracks"), "snapshot"),
+            // Last.fm multiplexes everything over one path; the fixture is named after ?method=
+            new Route("lastfm", "GET", Pattern.compile("/2\\.0/?"), null),
+            new Route("deezer", "GET", Pattern.compile("/search"), "search"),
+            new Route("musicbrainz", "GET", Pattern.compile("/ws/2/artist/?"), "artist-search"),
+            new Route("musicbrainz", "GET", Pattern.compile("/ws/2/artist/[^/]+"), "artist"),
+            new Route("musicbrainz", "GET", Pattern.compile("/ws/2/recording/?"), "recording-search"));
+
+    private final Options options;
+    private final Path fixtureRoot;
+    private final Map<String, byte[]> fixtures = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> served = new ConcurrentHashMap<>();
+
+    public StubProviderServer(Options options) {
+        this.options = options;
+        this.fixtureRoot = Paths.get(options.get("fixtures", "src/loadtest/resources/fixtures"));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args);
+        StubProviderServer stub = new StubProviderServer(options);
+        int port = options.getInt("port", 9090);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 512);
+        server.createContext("/", stub::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(0);
+            System.out.println("🧪 Stub served: " + stub.served);
+        }));
+        System.out.println("🧪 Provider stub listening on http://localhost:" + port + " (fixtures: "
+                + stub.fixtureRoot.toAbsolutePath() + ")");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            Route route = match(exchange.getRequestMethod(), path);
+            if (route == null) {
+                send(exchange, 404, json("{\"error\":\"no stub route for " + path + "\"}"));
+                return;
+            }
+            String provider = route.provider();
+            served.computeIfAbsent(provider, k -> new LongAdder()).increment();
+
+            sleep(options.getLong("latency-ms", provider, 40)
+                    + ThreadLocalRandom.current().nextLong(options.getLong("jitter-ms", provider, 20) + 1));
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            double rate429 = options.getDouble("rate-429", provider, 0.0);
+            if (roll < rate429) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(options.getLong("retry-after-s", provider, 1)));
+                send(exchange, 429, json("{\"error\":{\"status\":429,\"message\":\"API rate limit exceeded\"}}"));
+                return;
+            }
+            if (roll < rate429 + options.getDouble("error-rate", provider, 0.0)) {
+                send(exchange, 503, json("{\"error\":{\"status\":503,\"message\":\"Service unavailable\"}}"));
+                return;
+            }
+
+            String name = route.fixture() != null ? route.fixture() : queryParam(exchange, "method");
+            byte[] body = fixture(provider, name);
+            if (body == null) {
+                send(exchange, 404, json("{\"error\":\"missing fixture " + provider + "/" + name + ".json\"}"));
+                return;
+            }
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                body = gzip(body);
+            }
+            send(exchange, 200, body);
+        }
+    }
+
+    private static Route match(String method, String path) {
+        for (Route route : ROUTES) {
+            if (route.method().equals(method) && route.path().matcher(path).matches()) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private byte[] fixture(String provider, String name) {
+        if (name == null) return null;
+        return fixtures.computeIfAbsent(provider + "/" + name, key -> {
+            try {
+                return Files.readAllBytes(fixtureRoot.resolve(key + ".json"));
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static byte[] json(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ca.sheridancollege.jamsy.beans;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -31,4 +33,36 @@ public class Track implements Serializable {
     private float matchScore;
     private String seedTrackName;   
     private String seedArtistName;
+
+    // TrackKey.of(this); 0 until computed, cleared when the name or artist changes
+    private transient long trackKey;
+
+    /**
+     * Normalized 64-bit identity of (name, primary artist), see {@link TrackKey}.
+     * Set by the mappers; computed on first use for tracks built elsewhere.
+     */
+    @JsonIgnore
+    public long getTrackKey() {
+        long key = trackKey;
+        if (key == 0) {
+            key = TrackKey.of(this);
+            trackKey = key;
+        }
+        return key;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.trackKey = 0;
+    }
+
+    public void setArtistName(String artistName) {
+        this.artistName = artistName;
+        this.trackKey = 0;
+    }
+
+    public void setArtists(List<String> artists) {
+        this.artists = artists;
+        this.trackKey = 0;
+    }
 }
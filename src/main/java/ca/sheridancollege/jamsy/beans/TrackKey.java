@@ -0,0 +1,101 @@
+package ca.sheridancollege.jamsy.beans;
+
+/*
+ * 64-bit identity of a track, used where many tracks are compared or
+ * remembered (dedupe, artist caps, swipe history filters). Tracks carry
+ * theirs precomputed, see Track.getTrackKey().
+ *
+ * of(name, artist) and ofArtist(artist) ignore case and leading, trailing
+ * and repeated whitespace; ofIsrc(isrc) ignores case and hyphens. All hash
+ * the characters directly (FNV-1a, then a 64-bit finalizer), so computing
+ * a key allocates nothing. Keys are never 0, which marks "no key"; the
+ * kinds are seeded differently and equal each other only by chance.
+ */
+public final class TrackKey {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long ISRC_SEED = 0x9e3779b97f4a7c15L;
+    private static final long ARTIST_SEED = 0x632be59bd9b4e019L;
+
+    private TrackKey() {
+    }
+
+    /**
+     * Key of a (track name, artist name) pair. Null parts count as empty.
+     */
+    public static long of(String name, String artist) {
+        long hash = FNV_OFFSET;
+        hash = normalized(hash, name);
+        hash = (hash ^ '|') * FNV_PRIME;
+        hash = normalized(hash, artist);
+        return mix(hash);
+    }
+
+    /**
+     * Key of a track by its name and primary artist (artistName, else the first of artists).
+     */
+    public static long of(Track track) {
+        String artist = track.getArtistName();
+        if (artist == null && track.getArtists() != null && !track.getArtists().isEmpty()) {
+            artist = track.getArtists().get(0);
+        }
+        return of(track.getName(), artist);
+    }
+
+    /**
+     * Key of an artist name alone, e.g. for per-artist counts.
+     */
+    public static long ofArtist(String artist) {
+        return mix(normalized(FNV_OFFSET ^ ARTIST_SEED, artist));
+    }
+
+    /**
+     * Key of an ISRC, or 0 when there is none.
+     */
+    public static long ofIsrc(String isrc) {
+        if (isrc == null || isrc.isBlank()) {
+            return 0;
+        }
+        long hash = FNV_OFFSET ^ ISRC_SEED;
+        for (int i = 0; i < isrc.length(); i++) {
+            char c = isrc.charAt(i);
+            if (c == '-' || Character.isWhitespace(c)) continue;
+            hash = (hash ^ Character.toUpperCase(c)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // Lower-cased characters with whitespace runs folded to one space and trimmed
+    private static long normalized(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        boolean pendingSpace = false;
+        boolean started = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            started = true;
+        }
+        return hash;
+    }
+
+    // MurmurHash3 fmix64: spreads FNV's weak low bits over the whole word
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+}
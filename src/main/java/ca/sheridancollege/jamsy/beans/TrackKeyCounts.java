@@ -0,0 +1,72 @@
+package ca.sheridancollege.jamsy.beans;
+
+/*
+ * Counter per TrackKey (non-zero long), e.g. tracks per artist for the
+ * playlist's artist cap. Keys and counts live in parallel primitive arrays
+ * (open addressing), so counting allocates nothing. Not thread-safe.
+ */
+public final class TrackKeyCounts {
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public TrackKeyCounts() {
+        this(16);
+    }
+
+    public TrackKeyCounts(int expectedSize) {
+        int capacity = TrackKeySet.capacityFor(expectedSize);
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+        int i = (int) key & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) return counts[i];
+            i = (i + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the count after incrementing
+     */
+    public int increment(long key) {
+        int mask = keys.length - 1;
+        int i = (int) key & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) return ++counts[i];
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = (int) oldKeys[j] & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+}
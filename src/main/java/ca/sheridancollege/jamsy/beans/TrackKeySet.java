@@ -0,0 +1,73 @@
+package ca.sheridancollege.jamsy.beans;
+
+/*
+ * Set of TrackKeys (non-zero longs) in a single open-addressing long[],
+ * so adding and checking a key neither boxes nor allocates. Grows at half
+ * full. Not thread-safe.
+ */
+public final class TrackKeySet {
+
+    private long[] slots;
+    private int size;
+
+    public TrackKeySet() {
+        this(16);
+    }
+
+    public TrackKeySet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    /**
+     * @return true if the key was not in the set yet
+     */
+    public boolean add(long key) {
+        int mask = slots.length - 1;
+        int i = (int) key & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        slots[i] = key;
+        if (++size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int mask = slots.length - 1;
+        int i = (int) key & mask;
+        while (slots[i] != 0) {
+            if (slots[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key == 0) continue;
+            int i = (int) key & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = key;
+        }
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,25 @@
+package ca.sheridancollege.jamsy.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Enables Spring's cache abstraction backed by Caffeine. Cache names, size
+ * bounds and expiry are set through spring.cache.* in application.properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Categorized top artists, keyed by "<spotifyUserId>:<limit>". */
+    public static final String CATEGORIZED_ARTISTS = "categorizedArtists";
+
+    /** Spotify user ID, keyed by access token. */
+    public static final String SPOTIFY_USER_IDS = "spotifyUserIds";
+
+    /** Deezer preview URL, keyed by track name + artists. */
+    public static final String DEEZER_PREVIEWS = "deezerPreviews";
+
+    /** Deezer album cover URL, keyed by track name + artists. */
+    public static final String DEEZER_COVERS = "deezerCovers";
+}
@@ -0,0 +1,41 @@
+package ca.sheridancollege.jamsy.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Executor for outbound provider lookups (Last.fm, Spotify, Deezer, MusicBrainz).
+     * Each lookup gets its own virtual thread, so a blocked HTTP call only parks
+     * that lookup and never ties up a servlet or platform thread.
+     */
+    @Bean(name = "outboundExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService outboundExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Bounded pool for background playlist-creation jobs. A fixed number of
+     * jobs run at once and at most playlist.jobs.queue-size wait; beyond that
+     * submissions are rejected so the client can retry later. Workers are
+     * virtual threads, so outbound calls made by a job get the full retry
+     * budget of RetryScheduler.
+     */
+    @Bean(name = "playlistJobExecutor", destroyMethod = "shutdown")
+    public ExecutorService playlistJobExecutor(@Value("${playlist.jobs.workers:4}") int workers,
+                                               @Value("${playlist.jobs.queue-size:100}") int queueSize) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofVirtual().name("playlist-job-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,11 +1,19 @@
 package ca.sheridancollege.jamsy.config;
 
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import ca.sheridancollege.jamsy.services.outbound.CircuitBreakerInterceptor;
+import ca.sheridancollege.jamsy.services.outbound.OutboundHttpRequestFactory;
+import ca.sheridancollege.jamsy.services.outbound.OutboundMetricsInterceptor;
+import ca.sheridancollege.jamsy.services.outbound.RateLimitInterceptor;
+import ca.sheridancollege.jamsy.services.outbound.SingleFlightInterceptor;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -20,9 +28,33 @@ public class WebConfig implements WebMvcConfigurer {
     }
     
     @Bean
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(RestTemplateBuilder builder) {
     	System.out.println("✅ RestTemplate Bean created from WebConfig!");
-        return new RestTemplate();
+        return builder.build();
+    }
+    
+    /**
+     * Applied to every RestTemplate built from the shared builder (including the one
+     * MusicBrainzService builds itself) so all outbound calls go through the pooled
+     * per-provider HTTP clients and draw from the per-provider rate budgets.
+     * Single-flight goes first so identical concurrent GETs share one call and
+     * one rate permit. The circuit breaker comes after the rate limit so permit
+     * waits do not count as slow calls. Metrics go last so they time only what
+     * reaches the provider.
+     */
+    @Bean
+    public RestTemplateCustomizer outboundCustomizer(OutboundHttpRequestFactory outboundRequestFactory,
+                                                     SingleFlightInterceptor singleFlightInterceptor,
+                                                     RateLimitInterceptor rateLimitInterceptor,
+                                                     CircuitBreakerInterceptor circuitBreakerInterceptor,
+                                                     OutboundMetricsInterceptor metricsInterceptor) {
+        return restTemplate -> {
+            restTemplate.setRequestFactory(outboundRequestFactory);
+            restTemplate.getInterceptors().add(singleFlightInterceptor);
+            restTemplate.getInterceptors().add(rateLimitInterceptor);
+            restTemplate.getInterceptors().add(circuitBreakerInterceptor);
+            restTemplate.getInterceptors().add(metricsInterceptor);
+        };
     }
 }
 
@@ -1,17 +1,30 @@
 package ca.sheridancollege.jamsy.controllers;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.models.SongActionView;
 import ca.sheridancollege.jamsy.repositories.SongActionRepository;
 import ca.sheridancollege.jamsy.services.*;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
 import ca.sheridancollege.jamsy.services.playlist.PlaylistGeneratorService;
+import ca.sheridancollege.jamsy.services.playlist.PlaylistJobService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyTrackService;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
 
 @RestController
 @RequestMapping("/api")
@@ -20,15 +33,30 @@ public class ApiController {
 
     @Autowired private DeezerService deezerService;
     @Autowired private SpotifyTrackService spotifyTrackService;
+    @Autowired private SpotifyUserService spotifyUserService;
     @Autowired private DiscoveryService discoveryService;
     @Autowired private PlaylistGeneratorService playlistGeneratorService;
+    @Autowired private PlaylistJobService playlistJobService;
     @Autowired private SongActionRepository songActionRepo;
+    @Autowired private SongActionWriter songActionWriter;
+    @Autowired private SwipeHistory swipeHistory;
+
+    @Value("${discovery.fanout.deadline-ms:8000}")
+    private long discoveryDeadlineMs;
+
+    @Value("${liked.max-limit:1000}")
+    private int likedMaxLimit;
+
+    // Likes fed into the one-hour expansion; the newest ones win
+    private static final int EXPANSION_LIKES = 500;
 
     /**
      * Handles like/unlike actions for tracks
      */
     @PostMapping("/track/action")
-    public ResponseEntity<Map<String, String>> handleTrackAction(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<Map<String, String>> handleTrackAction(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody Map<String, Object> payload) {
         Map<String, String> response = new HashMap<>();
         try {
             String isrc = (String) payload.get("isrc");
@@ -42,6 +70,7 @@ public class ApiController {
 
             // Save to database
             SongAction songAction = new SongAction();
+            songAction.setUserId(userIdFor(authHeader));
             songAction.setIsrc(isrc);
             songAction.setSongName(songName);
             songAction.setArtist(artist);
@@ -54,8 +83,8 @@ public class ApiController {
                 songAction.setGenres(new ArrayList<>());
             }
 
-            songActionRepo.save(songAction);
-            System.out.println("✅ Saved track action to database: " + songName + " by " + artist + " (" + action + ")");
+            songActionWriter.record(songAction);
+            System.out.println("✅ Recorded track action: " + songName + " by " + artist + " (" + action + ")");
 
             // Return success response
             response.put("status", "success");
@@ -120,7 +149,8 @@ public class ApiController {
 
     /**
      * Mobile: Discover tracks (stateless JSON)
-     * Accepts optional seed artist names and workout; otherwise uses generic seeds
+     * Accepts optional seed artist names and workout; otherwise uses generic seeds.
+     * Tracks the caller already liked or skipped are left out.
      */
     @PostMapping("/discover")
     public ResponseEntity<Map<String, Object>> apiDiscover(
@@ -136,7 +166,8 @@ public class ApiController {
                     ? (String) body.get("workout")
                     : "general";
 
-            List<Track> tracks = discoveryService.getDiscoveryTracks(seedArtists, workout, 20);
+            List<Track> tracks = discoveryService.getDiscoveryTracks(seedArtists, workout, 20,
+                    excludedFor(userIdFor(authHeader)));
             response.put("tracks", tracks);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -146,22 +177,88 @@ public class ApiController {
     }
 
     /**
-     * Mobile: Get liked tracks (from DB SongAction where action == like)
+     * Mobile: Discover tracks as a Server-Sent Events stream (same header and body as /api/discover).
+     * Sends a "track" event for each track as soon as it is found and a final
+     * "summary" event ({@link DiscoveryService.DiscoverySummary}), then closes.
+     */
+    @PostMapping(value = "/discover/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter apiDiscoverStream(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) Map<String, Object> body) {
+        @SuppressWarnings("unchecked")
+        List<String> seedArtists = body != null && body.get("seedArtists") instanceof List
+                ? (List<String>) body.get("seedArtists")
+                : Arrays.asList("Drake", "Rihanna", "Eminem", "Adele", "Ed Sheeran");
+        String workout = body != null && body.get("workout") instanceof String
+                ? (String) body.get("workout")
+                : "general";
+        return streamDiscovery(userIdFor(authHeader), seedArtists, workout, 20);
+    }
+
+    /**
+     * GET form of /api/discover/stream for EventSource clients,
+     * e.g. /api/discover/stream?seedArtists=Drake,Adele&workout=Cardio
+     */
+    @GetMapping(value = "/discover/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter apiDiscoverStreamGet(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(required = false) List<String> seedArtists,
+            @RequestParam(defaultValue = "general") String workout,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<String> seeds = seedArtists != null && !seedArtists.isEmpty()
+                ? seedArtists
+                : Arrays.asList("Drake", "Rihanna", "Eminem", "Adele", "Ed Sheeran");
+        return streamDiscovery(userIdFor(authHeader), seeds, workout, Math.max(1, Math.min(limit, 50)));
+    }
+
+    private SseEmitter streamDiscovery(String userId, List<String> seedArtists, String workout, int limit) {
+        SseEmitter emitter = new SseEmitter(discoveryDeadlineMs + 5000);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        discoveryService.streamDiscoveryTracks(seedArtists, workout, limit, excludedFor(userId), track -> {
+            if (!open.get()) return false;
+            try {
+                emitter.send(SseEmitter.event().name("track").data(track, MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnected: tell the service to stop looking
+                open.set(false);
+                return false;
+            }
+        }).whenComplete((summary, error) -> {
+            if (!open.get()) return;
+            try {
+                if (error != null) {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(error.getMessage())),
+                            MediaType.APPLICATION_JSON));
+                } else {
+                    emitter.send(SseEmitter.event().name("summary").data(summary, MediaType.APPLICATION_JSON));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Mobile: Get the caller's liked tracks, newest first (from DB SongAction where action == like).
+     * Without an Authorization header the anonymous likes are returned.
      */
     @GetMapping("/liked")
-    public ResponseEntity<Map<String, Object>> apiLiked() {
+    public ResponseEntity<Map<String, Object>> apiLiked(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(defaultValue = "200") int limit) {
         Map<String, Object> response = new HashMap<>();
         try {
-            // Basic implementation: this demo returns empty or constructs from actions if needed
-            // If SongAction stored only metadata, return minimal Track list using songName/artist
-            List<SongAction> likedActions = songActionRepo.findByAction("like");
-            List<Track> likedTracks = new ArrayList<>();
-            for (SongAction action : likedActions) {
-                Track t = new Track();
-                t.setName(action.getSongName());
-                t.setArtists(Collections.singletonList(action.getArtist()));
-                likedTracks.add(t);
-            }
+            int pageSize = Math.max(1, Math.min(limit, likedMaxLimit));
+            // SongAction stores only metadata, so return a minimal Track list using songName/artist
+            List<Track> likedTracks = toTracks(songActionRepo.findRecent(
+                    userIdFor(authHeader), "like", PageRequest.of(0, pageSize)));
             response.put("tracks", likedTracks);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -174,21 +271,17 @@ public class ApiController {
      * Mobile: Preview playlist from liked tracks (1 hour mix)
      */
     @GetMapping("/preview-playlist")
-    public ResponseEntity<Map<String, Object>> apiPreviewPlaylist() {
+    public ResponseEntity<Map<String, Object>> apiPreviewPlaylist(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
         Map<String, Object> response = new HashMap<>();
         try {
             System.out.println("ApiController: ===== PREVIEW PLAYLIST API CALLED =====");
 
-            List<SongAction> likedActions = songActionRepo.findByAction("like");
+            String userId = userIdFor(authHeader);
+            List<SongActionView> likedActions = songActionRepo.findRecent(userId, "like", PageRequest.of(0, EXPANSION_LIKES));
             System.out.println("ApiController: Found " + likedActions.size() + " liked actions in database");
 
-            List<Track> likedTracks = new ArrayList<>();
-            for (SongAction action : likedActions) {
-                Track t = new Track();
-                t.setName(action.getSongName());
-                t.setArtists(Collections.singletonList(action.getArtist()));
-                likedTracks.add(t);
-            }
+            List<Track> likedTracks = toTracks(likedActions);
 
             System.out.println("ApiController: Converted to " + likedTracks.size() + " liked tracks");
 
@@ -199,12 +292,8 @@ public class ApiController {
                 return ResponseEntity.ok(response);
             }
 
-            List<Track> expanded = discoveryService.generateOneHourPlaylist(likedTracks, 60);
-            System.out.println("ApiController: Generated " + expanded.size() + " expanded tracks");
-
-            // Combine original liked tracks with expanded tracks (like web version)
-            List<Track> finalPlaylist = new ArrayList<>(likedTracks);
-            finalPlaylist.addAll(expanded);
+            // Already mixes in a few familiar likes, so it is the whole playlist (the same one /create-playlist saves)
+            List<Track> finalPlaylist = discoveryService.generateOneHourPlaylist(userId, likedTracks, 60);
 
             System.out.println("ApiController: Final playlist contains " + finalPlaylist.size() + " tracks");
             response.put("tracks", finalPlaylist);
@@ -220,14 +309,20 @@ public class ApiController {
     /**
      * Mobile: Create playlist in Spotify for the liked/expanded tracks
      * Requires Authorization: Bearer <spotify-access-token>
+     * With "Prefer: respond-async" the playlist is built by a background job:
+     * answers 202 with a job ID to follow at /api/playlist-jobs/{jobId}.
+     * Send an Idempotency-Key so a retried request returns the same job.
      */
     @PostMapping("/create-playlist")
-    public ResponseEntity<Map<String, String>> apiCreatePlaylist(
+    public ResponseEntity<?> apiCreatePlaylist(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = "Prefer", required = false) String prefer,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody(required = false) Map<String, Object> body) {
         Map<String, String> response = new HashMap<>();
         try {
             String accessToken = authHeader.replace("Bearer ", "").trim();
+            boolean async = prefer != null && prefer.contains("respond-async");
             // If client provided tracks payload, prefer that; else use preview expansion of likes
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> providedTracks = body != null
@@ -248,20 +343,31 @@ public class ApiController {
                     tracksToSave.add(t);
                 }
             } else {
-                List<SongAction> likedActions = songActionRepo.findByAction("like");
-                for (SongAction action : likedActions) {
-                    Track t = new Track();
-                    t.setName(action.getSongName());
-                    t.setArtists(Collections.singletonList(action.getArtist()));
-                    tracksToSave.add(t);
+                String userId = userIdFor(authHeader);
+                List<Track> likedTracks = toTracks(
+                        songActionRepo.findRecent(userId, "like", PageRequest.of(0, EXPANSION_LIKES)));
+                if (async) {
+                    // The expansion is random and slow: it runs in the job, and retries are keyed by the likes
+                    String key = idempotencyKey != null ? idempotencyKey
+                            : "likes:" + PlaylistJobService.trackSetKey(likedTracks);
+                    return PlaylistJobController.accepted(playlistJobService.submit(accessToken, "My 1 Hour Mix",
+                            () -> discoveryService.generateOneHourPlaylist(userId, likedTracks, 60), key));
                 }
-                tracksToSave = discoveryService.generateOneHourPlaylist(tracksToSave, 60);
+                tracksToSave = discoveryService.generateOneHourPlaylist(userId, likedTracks, 60);
+            }
+
+            if (async) {
+                return PlaylistJobController.accepted(
+                        playlistJobService.submit(accessToken, "My 1 Hour Mix", tracksToSave, idempotencyKey));
             }
 
             // ✅ Use PlaylistGeneratorService for playlist creation
             String playlistUrl = playlistGeneratorService.createPlaylistWithTracks(accessToken, "My 1 Hour Mix", tracksToSave);
             response.put("playlistUrl", playlistUrl);
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            response.put("error", "Too many playlists being created, try again shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (Exception e) {
             response.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
@@ -278,4 +384,36 @@ public class ApiController {
         response.put("message", "Discovery flow reset successfully. You can start over.");
         return ResponseEntity.ok(response);
     }
+
+    // Owner of the swipe history: the Spotify user behind the token, or the anonymous bucket
+    private String userIdFor(String authHeader) {
+        if (authHeader == null || authHeader.isBlank()) {
+            return SongAction.ANONYMOUS;
+        }
+        try {
+            String userId = spotifyUserService.getSpotifyUserId(authHeader.replace("Bearer ", "").trim());
+            return userId != null ? userId : SongAction.ANONYMOUS;
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not resolve Spotify user, using anonymous likes: " + e.getMessage());
+            return SongAction.ANONYMOUS;
+        }
+    }
+
+    // Tracks the user already liked or skipped are not offered again
+    private Predicate<Track> excludedFor(String userId) {
+        return swipeHistory.forUser(userId)::seen;
+    }
+
+    private static List<Track> toTracks(List<SongActionView> actions) {
+        List<Track> tracks = new ArrayList<>(actions.size());
+        for (SongActionView action : actions) {
+            Track t = new Track();
+            t.setName(action.songName());
+            t.setIsrc(action.isrc());
+            t.setArtistName(action.artist());
+            t.setArtists(Collections.singletonList(action.artist()));
+            tracks.add(t);
+        }
+        return tracks;
+    }
 }
@@ -72,8 +72,8 @@ public class ArtistController {
             Collections.shuffle(workoutArtists);
             List<Map<String, Object>> selectedArtists = workoutArtists.stream()
                     .limit(20)
-                    .map(artist -> enhanceArtistWithImage(artist, accessToken))
                     .collect(Collectors.toList());
+            enhanceArtistsWithImages(selectedArtists, accessToken);
 
             model.addAttribute("workout", workout);
             model.addAttribute("mood", mood);
@@ -130,20 +130,27 @@ public class ArtistController {
 
     /** ------------------ Helpers ------------------ **/
 
-    private Map<String, Object> enhanceArtistWithImage(Map<String, Object> artist, String accessToken) {
+    private void enhanceArtistsWithImages(List<Map<String, Object>> artists, String accessToken) {
+        Map<String, String> imageUrls = Collections.emptyMap();
         try {
-            String artistId = (String) artist.get("id");
-            if (artistId != null) {
-                String imageUrl = spotifyArtistService.getArtistImageUrl(accessToken, artistId);
-                if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                    artist.put("imageUrl", imageUrl);
-                    return artist;
-                }
-            }
+            // All cards are resolved together in one batched Spotify lookup
+            List<String> artistIds = artists.stream()
+                    .map(artist -> (String) artist.get("id"))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            imageUrls = spotifyArtistService.getArtistImageUrls(accessToken, artistIds);
         } catch (Exception e) {
-            System.out.println("Error fetching artist image: " + e.getMessage());
+            System.out.println("Error fetching artist images: " + e.getMessage());
+        }
+
+        for (Map<String, Object> artist : artists) {
+            String imageUrl = imageUrls.get((String) artist.get("id"));
+            if (imageUrl != null && !imageUrl.trim().isEmpty()) {
+                artist.put("imageUrl", imageUrl);
+            } else {
+                createPlaceholderImage(artist);
+            }
         }
-        return createPlaceholderImage(artist);
     }
 
     private Map<String, Object> createPlaceholderImage(Map<String, Object> artist) {
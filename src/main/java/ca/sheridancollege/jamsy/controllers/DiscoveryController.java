@@ -2,6 +2,7 @@ package ca.sheridancollege.jamsy.controllers;
 
 import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.exceptions.AuthenticationRequiredException;
+import ca.sheridancollege.jamsy.services.DiscoveryPrefetcher;
 import ca.sheridancollege.jamsy.services.DiscoveryService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Handles the "Discovery" feature of the app.
@@ -22,13 +24,16 @@ import java.util.List;
 public class DiscoveryController {
 
     private final DiscoveryService discoveryService;
+    private final DiscoveryPrefetcher discoveryPrefetcher;
     private final SpotifyUserService spotifyUserService;
     private final ObjectMapper objectMapper;
 
     public DiscoveryController(DiscoveryService discoveryService,
+                               DiscoveryPrefetcher discoveryPrefetcher,
                                SpotifyUserService spotifyUserService,
                                ObjectMapper objectMapper) {
         this.discoveryService = discoveryService;
+        this.discoveryPrefetcher = discoveryPrefetcher;
         this.spotifyUserService = spotifyUserService;
         this.objectMapper = objectMapper;
     }
@@ -74,6 +79,10 @@ public class DiscoveryController {
             // Save in session for later use (likes, playlist export)
             session.setAttribute("discoveryTracks", tracks);
 
+            // Start building the next batches while the user swipes through this one
+            discoveryPrefetcher.start(session.getId(), spotifyUserService.getSessionUserId(session),
+                    selectedArtists, workout, tracks);
+
             return "tracks";
 
         } catch (AuthenticationRequiredException e) {
@@ -101,12 +110,29 @@ public class DiscoveryController {
     /**
      * Step 3 → Refresh and shuffle track recommendations.
      * <p>
-     * Calls SpotifyUserService to merge, shuffle, and limit recommended tracks.
+     * After a discovery run this serves the next batch prefetched by
+     * {@link DiscoveryPrefetcher} (same seeds, no repeats or skipped tracks).
+     * Otherwise calls SpotifyUserService to merge, shuffle, and limit recommended tracks.
      * </p>
      */
     @PostMapping("/refresh")
     public String refreshRecommendations(HttpSession session, Model model) {
         try {
+            Optional<List<Track>> nextBatch = discoveryPrefetcher.next(session.getId());
+            if (nextBatch.isPresent()) {
+                List<Track> tracks = nextBatch.get();
+                if (tracks.isEmpty()) {
+                    model.addAttribute("error", "No more new tracks for your selection.");
+                }
+                model.addAttribute("tracks", tracks);
+                model.addAttribute("tracksJson", objectMapper.writeValueAsString(tracks));
+                model.addAttribute("workout", session.getAttribute("selectedWorkout"));
+                model.addAttribute("mood", session.getAttribute("selectedMood"));
+                model.addAttribute("isFamiliar", false);
+                session.setAttribute("discoveryTracks", tracks);
+                return "tracks";
+            }
+
             String accessToken = spotifyUserService.getSpotifyUserId(
                     (String) session.getAttribute("accessToken"));
             if (accessToken == null) throw new AuthenticationRequiredException("Access token missing");
@@ -2,10 +2,11 @@ package ca.sheridancollege.jamsy.controllers;
 
 import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.models.SongAction;
-import ca.sheridancollege.jamsy.repositories.SongActionRepository;
 import ca.sheridancollege.jamsy.services.DiscoveryService;
+import ca.sheridancollege.jamsy.services.SongActionWriter;
 import ca.sheridancollege.jamsy.services.playlist.PlaylistGeneratorService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyAuthService;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
 import jakarta.servlet.http.HttpSession;
 
 import org.springframework.http.HttpStatus;
@@ -40,18 +41,21 @@ public class PlaylistController {
     private final DiscoveryService discoveryService;
     private final PlaylistGeneratorService playlistGeneratorService;
     private final SpotifyAuthService spotifyAuthService;
-    private final SongActionRepository songActionRepo;
+    private final SongActionWriter songActionWriter;
+    private final SpotifyUserService spotifyUserService;
 
     public PlaylistController(
             DiscoveryService discoveryService,
             PlaylistGeneratorService playlistGeneratorService,
             SpotifyAuthService spotifyAuthService,
-            SongActionRepository songActionRepo
+            SongActionWriter songActionWriter,
+            SpotifyUserService spotifyUserService
     ) {
         this.discoveryService = discoveryService;
         this.playlistGeneratorService = playlistGeneratorService;
         this.spotifyAuthService = spotifyAuthService;
-        this.songActionRepo = songActionRepo;
+        this.songActionWriter = songActionWriter;
+        this.spotifyUserService = spotifyUserService;
     }
     
     @PostMapping("/handle-action")
@@ -71,12 +75,13 @@ public class PlaylistController {
 
             // Save to DB
             SongAction songAction = new SongAction();
+            songAction.setUserId(spotifyUserService.getSessionUserId(session));
             songAction.setIsrc(isrc);
             songAction.setSongName(songName);
             songAction.setArtist(artist);
             songAction.setGenres(genres);
             songAction.setAction(action);
-            songActionRepo.save(songAction);
+            songActionWriter.record(songAction);
             System.out.println("Payload → songName=" + songName + ", artist=" + artist);
 
             // Store liked tracks in session
@@ -129,7 +134,7 @@ public class PlaylistController {
      * Step 1 → Preview Playlist
      * 
      * This endpoint retrieves the user's liked songs from the session,
-     * expands them into a one-hour playlist using {@link DiscoveryService#generateOneHourPlaylist(List, int)},
+     * expands them into a one-hour playlist using {@link DiscoveryService#generateOneHourPlaylist(String, List, int)},
      * and prepares them for display in a preview page before export.
      */
     @GetMapping("/preview-playlist")
@@ -141,8 +146,9 @@ public class PlaylistController {
             return "liked";
         }
 
-        // Generate playlist - this returns ONLY similar tracks (no liked tracks)
-        List<Track> expandedTracks = discoveryService.generateOneHourPlaylist(likedTracks, 60);
+        // Generate playlist - similar tracks plus a few familiar likes
+        List<Track> expandedTracks = discoveryService.generateOneHourPlaylist(
+                spotifyUserService.getSessionUserId(session), likedTracks, 60);
 
         // Save to session for export step - ONLY the expanded tracks
         session.setAttribute("expandedPlaylist", expandedTracks);
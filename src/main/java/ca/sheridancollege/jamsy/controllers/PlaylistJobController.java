@@ -0,0 +1,101 @@
+package ca.sheridancollege.jamsy.controllers;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.sheridancollege.jamsy.services.playlist.PlaylistJob;
+import ca.sheridancollege.jamsy.services.playlist.PlaylistJobService;
+
+/**
+ * Progress of asynchronous playlist creation.
+ * Jobs are submitted through /api/create-playlist or /api/spotify/create-playlist
+ * with the header {@code Prefer: respond-async}.
+ */
+@RestController
+@RequestMapping("/api/playlist-jobs")
+public class PlaylistJobController {
+
+    private final PlaylistJobService playlistJobService;
+
+    @Value("${playlist.jobs.sse-timeout-ms:120000}")
+    private long sseTimeoutMs;
+
+    public PlaylistJobController(PlaylistJobService playlistJobService) {
+        this.playlistJobService = playlistJobService;
+    }
+
+    /**
+     * 202 response for a submitted job: its ID and where to follow it.
+     */
+    static ResponseEntity<Map<String, Object>> accepted(PlaylistJob job) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobId", job.getId());
+        response.put("state", job.status().state());
+        response.put("statusUrl", "/api/playlist-jobs/" + job.getId());
+        response.put("eventsUrl", "/api/playlist-jobs/" + job.getId() + "/events");
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/playlist-jobs/" + job.getId())
+                .body(response);
+    }
+
+    /**
+     * Poll a job: state, track counts and, once created, the playlist URL.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> status(@PathVariable String jobId) {
+        return playlistJobService.find(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.status()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Unknown job " + jobId)));
+    }
+
+    /**
+     * Follow a job over Server-Sent Events: a "progress" event per change,
+     * then "done" or "failed" with the final status.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(@PathVariable String jobId) {
+        PlaylistJob job = playlistJobService.find(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        AtomicBoolean open = new AtomicBoolean(true);
+        Consumer<PlaylistJob.Status> listener = status -> {
+            if (!open.get()) return;
+            try {
+                String name = !status.finished() ? "progress"
+                        : status.state() == PlaylistJob.State.DONE ? "done" : "failed";
+                emitter.send(SseEmitter.event().name(name).data(status, MediaType.APPLICATION_JSON));
+                if (status.finished() && open.compareAndSet(true, false)) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                open.set(false);
+            }
+        };
+        Runnable close = () -> {
+            open.set(false);
+            job.unsubscribe(listener);
+        };
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(e -> close.run());
+
+        job.subscribe(listener);
+        return ResponseEntity.ok(emitter);
+    }
+}
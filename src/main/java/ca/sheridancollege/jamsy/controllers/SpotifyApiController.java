@@ -6,6 +6,7 @@ import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.services.FirebaseAuthServices;
 import ca.sheridancollege.jamsy.services.PlaylistTemplateService;
 import ca.sheridancollege.jamsy.services.playlist.PlaylistGeneratorService;
+import ca.sheridancollege.jamsy.services.playlist.PlaylistJobService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyArtistService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyAuthService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for mobile and external clients. Handles Spotify
@@ -35,11 +37,12 @@ public class SpotifyApiController {
 	private final RecommendationService recommendationService;
 	private final PlaylistGeneratorService playlistGeneratorService;
 	private final SpotifyArtistService spotifyArtistService;
+	private final PlaylistJobService playlistJobService;
 
 	public SpotifyApiController(SpotifyAuthService spotifyAuthService, SpotifyUserService spotifyUserService,
 			FirebaseAuthServices firebaseAuthService, PlaylistTemplateService templateService,
 			RecommendationService recommendationService, PlaylistGeneratorService playlistGeneratorService,
-			SpotifyArtistService spotifyArtistService) {
+			SpotifyArtistService spotifyArtistService, PlaylistJobService playlistJobService) {
 		this.spotifyAuthService = spotifyAuthService;
 		this.spotifyUserService = spotifyUserService;
 		this.firebaseAuthService = firebaseAuthService;
@@ -47,6 +50,7 @@ public class SpotifyApiController {
 		this.recommendationService = recommendationService;
 		this.playlistGeneratorService = playlistGeneratorService;
 		this.spotifyArtistService = spotifyArtistService;
+		this.playlistJobService = playlistJobService;
 	}
 
 	/**
@@ -160,6 +164,11 @@ public class SpotifyApiController {
 	        Collections.shuffle(filteredArtists);
 	        List<Map<String, Object>> selected = filteredArtists.stream().limit(20).toList();
 
+	        // 5️⃣ Attach artist images from a single batched Spotify lookup
+	        Map<String, String> imageUrls = spotifyArtistService.getArtistImageUrls(accessToken,
+	                selected.stream().map(a -> (String) a.get("id")).filter(Objects::nonNull).toList());
+	        selected.forEach(artist -> enhanceArtistWithRealImage(artist, imageUrls));
+
 	        System.out.println("✅ Returning " + selected.size() + " artists for workout: " + workout);
 
 	        response.put("workout", workout);
@@ -179,17 +188,11 @@ public class SpotifyApiController {
 	/**
 	 * Helper → Adds real Spotify image or placeholder if missing.
 	 */
-	private Map<String, Object> enhanceArtistWithRealImage(Map<String, Object> artist) {
-	    try {
-	        Map<String, Object> imagesData = (Map<String, Object>) artist.get("images");
-	        if (imagesData != null && !imagesData.isEmpty()) {
-	            artist.put("imageUrl", ((List<Map<String, Object>>) imagesData).get(0).get("url"));
-	        } else {
-	            artist.put("imageUrl",
-	                    "https://via.placeholder.com/300x300/1DB954/FFFFFF?text=" +
-	                    java.net.URLEncoder.encode((String) artist.get("name"), java.nio.charset.StandardCharsets.UTF_8));
-	        }
-	    } catch (Exception e) {
+	private Map<String, Object> enhanceArtistWithRealImage(Map<String, Object> artist, Map<String, String> imageUrls) {
+	    String imageUrl = imageUrls.get((String) artist.get("id"));
+	    if (imageUrl != null && !imageUrl.isEmpty()) {
+	        artist.put("imageUrl", imageUrl);
+	    } else {
 	        artist.put("imageUrl",
 	                "https://via.placeholder.com/300x300/1DB954/FFFFFF?text=" +
 	                java.net.URLEncoder.encode((String) artist.get("name"), java.nio.charset.StandardCharsets.UTF_8));
@@ -197,9 +200,16 @@ public class SpotifyApiController {
 	    return artist;
 	}
 
+	/**
+	 * Create a Spotify playlist from the given tracks.
+	 * With "Prefer: respond-async" this answers 202 with a job ID right away
+	 * (see PlaylistJobController); an Idempotency-Key makes retries return the same job.
+	 */
 	@PostMapping("/create-playlist")
 	public ResponseEntity<?> createPlaylist(
 	        @RequestHeader("Authorization") String authHeader,
+	        @RequestHeader(value = "Prefer", required = false) String prefer,
+	        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
 	        @RequestBody Map<String, Object> body
 	) {
 	    try {
@@ -227,6 +237,11 @@ public class SpotifyApiController {
 	            tracks.add(track);
 	        }
 
+	        if (prefer != null && prefer.contains("respond-async")) {
+	            return PlaylistJobController.accepted(
+	                    playlistJobService.submit(accessToken, playlistName, tracks, idempotencyKey));
+	        }
+
 	        // 4️ Create the playlist on Spotify
 	        // (You’ll call your PlaylistGeneratorService here)
 	        String playlistUrl = playlistGeneratorService.createPlaylistWithTracks(
@@ -239,6 +254,11 @@ public class SpotifyApiController {
 	                "playlistUrl", playlistUrl
 	        ));
 
+	    } catch (RejectedExecutionException e) {
+	        return ResponseEntity.status(503).body(Map.of(
+	                "status", "error",
+	                "message", "Too many playlists being created, try again shortly"
+	        ));
 	    } catch (Exception e) {
 	        e.printStackTrace();
 	        return ResponseEntity.status(500).body(Map.of(
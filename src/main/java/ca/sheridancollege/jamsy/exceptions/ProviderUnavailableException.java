@@ -0,0 +1,7 @@
+package ca.sheridancollege.jamsy.exceptions;
+
+public class ProviderUnavailableException extends RuntimeException {
+    public ProviderUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ca.sheridancollege.jamsy.exceptions;
+
+public class RateLimitExceededException extends RuntimeException {
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
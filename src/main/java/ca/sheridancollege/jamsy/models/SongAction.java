@@ -1,28 +1,51 @@
 package ca.sheridancollege.jamsy.models;
 
+import java.time.Instant;
 import java.util.List;
 
-import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 @Entity
 @Data
+@Table(name = "song_action", indexes = {
+		// Serves "latest likes/skips of one user" without touching other users' rows
+		@Index(name = "idx_song_action_user_action_created", columnList = "user_id, action, created_at")
+})
 public class SongAction {
 	
+	/** Owner of swipes recorded without a (valid) Spotify token. */
+	public static final String ANONYMOUS = "anonymous";
+	
+	// Sequence (not IDENTITY) so SongActionWriter's inserts can be JDBC-batched;
+	// each round trip to the sequence reserves 50 IDs
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "song_action_seq")
+	@SequenceGenerator(name = "song_action_seq", sequenceName = "song_action_seq", allocationSize = 50)
 	private Long id;
 	
+	@Column(name = "user_id", nullable = false)
+	private String userId = ANONYMOUS; // Spotify user ID
+	
 	private String isrc;
 	private String songName;
 	private String artist;
 	private String action; // like or unlike
 	
-	 @ElementCollection
-	    private List<String> genres;  // Changed from String to List<String>
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt;
+	
+	// Stored in the row itself (comma-separated) so loading actions never needs a second query
+	@Convert(converter = StringListConverter.class)
+	@Column(length = 2000)
+	private List<String> genres;
 
 }
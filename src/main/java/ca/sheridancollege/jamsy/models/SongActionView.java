@@ -0,0 +1,7 @@
+package ca.sheridancollege.jamsy.models;
+
+/**
+ * The columns callers need from a SongAction, loaded without the entity.
+ */
+public record SongActionView(String isrc, String songName, String artist) {
+}
@@ -0,0 +1,36 @@
+package ca.sheridancollege.jamsy.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a list of short strings (e.g. genres) as one comma-separated column.
+ * Commas inside values are dropped.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+	@Override
+	public String convertToDatabaseColumn(List<String> values) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		return values.stream()
+				.filter(value -> value != null && !value.isBlank())
+				.map(value -> value.replace(",", " ").trim())
+				.reduce((a, b) -> a + "," + b)
+				.orElse(null);
+	}
+
+	@Override
+	public List<String> convertToEntityAttribute(String column) {
+		if (column == null || column.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(Arrays.asList(column.split(",")));
+	}
+}
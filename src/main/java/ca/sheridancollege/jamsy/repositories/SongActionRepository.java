@@ -2,13 +2,23 @@ package ca.sheridancollege.jamsy.repositories;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.models.SongActionView;
 
 @Repository
 public interface SongActionRepository extends JpaRepository<SongAction, Long> {
-	 List<SongAction> findByAction(String action);   
-	 List<SongAction> findByActionNot(String action);  
+
+	/**
+	 * A user's most recent actions of one kind, newest first, as projections.
+	 * Walks the (user_id, action, created_at) index; the page bounds the result.
+	 */
+	@Query("select new ca.sheridancollege.jamsy.models.SongActionView(s.isrc, s.songName, s.artist) "
+			+ "from SongAction s where s.userId = :userId and s.action = :action order by s.createdAt desc")
+	List<SongActionView> findRecent(@Param("userId") String userId, @Param("action") String action, Pageable page);
 }
@@ -3,12 +3,17 @@ package ca.sheridancollege.jamsy.security;
 import org.springframework.context.annotation.Bean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -21,6 +26,8 @@ public class SecurityConfig {
     @Value("${SPOTIFY_CLIENT_SECRET}")
     private String clientSecret;
 
+    private static final String METRICS_ROLE = "METRICS";
+
 	@Bean
 	public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 	    http
@@ -39,10 +46,12 @@ public class SecurityConfig {
                     // Mobile JSON endpoints
                     "/api/search",
                     "/api/discover",
+                    "/api/discover/stream",
                     "/liked",
                     "/preview-playlist",
                     "/api/preview-playlist",
                     "/api/create-playlist",
+                    "/api/playlist-jobs/**",
                     "/api/track/action",
                     // Spotify API endpoints for mobile
                     "/spotify/artists/**",
@@ -51,7 +60,9 @@ public class SecurityConfig {
                     "/api/spotify/recommend/**",
                     "/api/spotify/templates",
                     "/api/spotify/preview-playlist",
-                    "/api/spotify/create-playlist"
+                    "/api/spotify/create-playlist",
+                    // Health checks
+                    "/actuator/health"
                 ).permitAll()
                 .anyRequest().authenticated()
             )
@@ -65,6 +76,31 @@ public class SecurityConfig {
 	    return http.build();
 	}
 
+	// Prometheus scrapes with HTTP Basic as a dedicated user; without a configured password nobody can
+	@Bean
+	@Order(1)
+	public SecurityFilterChain metricsFilterChain(HttpSecurity http,
+			@Value("${metrics.scrape.username:prometheus}") String username,
+			@Value("${metrics.scrape.password:}") String password) throws Exception {
+	    InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+	    if (!password.isBlank()) {
+	        scrapers.createUser(User.withUsername(username)
+	            .password(password)
+	            .roles(METRICS_ROLE)
+	            .build());
+	    }
+
+	    http
+	        .securityMatcher("/actuator/prometheus")
+	        .csrf(csrf -> csrf.disable())
+	        .authorizeHttpRequests(auth -> auth.anyRequest().hasRole(METRICS_ROLE))
+	        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+	        .userDetailsService(scrapers)
+	        .httpBasic(Customizer.withDefaults());
+
+	    return http.build();
+	}
+
     @Bean
     public ClientRegistrationRepository clientRegistrationRepository() {
         return new InMemoryClientRegistrationRepository(spotifyClientRegistration());
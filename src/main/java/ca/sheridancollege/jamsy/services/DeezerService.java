@@ -1,11 +1,14 @@
 package ca.sheridancollege.jamsy.services;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.config.CacheConfig;
+import ca.sheridancollege.jamsy.exceptions.ProviderUnavailableException;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -39,9 +42,9 @@ public class DeezerService {
         for (Map<String, Object> item : items) {
             Map<String, Object> simplifiedTrack = new HashMap<>();
             simplifiedTrack.put("name", item.get("title"));
-            simplifiedTrack.put("artist", ((Map<String, Object>) item.get("artist")).get("name"));
+            simplifiedTrack.put("artist", item.get("artist") instanceof Map<?, ?> artist ? artist.get("name") : null);
             simplifiedTrack.put("preview_url", item.get("preview"));
-            simplifiedTrack.put("album_cover", ((Map<String, Object>) item.get("album")).get("cover_big"));
+            simplifiedTrack.put("album_cover", item.get("album") instanceof Map<?, ?> album ? album.get("cover_big") : null);
             simplifiedTrack.put("source", "deezer");
             tracks.add(simplifiedTrack);
         }
@@ -83,6 +86,12 @@ public class DeezerService {
         return null;
     }
     
+    /**
+     * Preview URL for a track Spotify has none for. Results are cached, so
+     * tracks seen before keep their preview while Deezer's circuit is open;
+     * otherwise the enrichment is skipped (null).
+     */
+    @Cacheable(cacheNames = CacheConfig.DEEZER_PREVIEWS, unless = "#result == null")
     public String getPreviewUrlFallback(String trackName, List<String> artists) {
         try {
             String query = URLEncoder.encode(trackName + " " + String.join(" ", artists), StandardCharsets.UTF_8);
@@ -94,6 +103,8 @@ public class DeezerService {
             if (data != null && !data.isEmpty()) {
                 return (String) data.get(0).get("preview");
             }
+        } catch (ProviderUnavailableException e) {
+            // Deezer circuit open: skip the enrichment
         } catch (Exception e) {
             System.out.println("❌ Deezer fallback failed: " + e.getMessage());
         }
@@ -139,28 +150,31 @@ public class DeezerService {
     
     
     
+    /**
+     * Album cover from Deezer, cached like {@link #getPreviewUrlFallback}.
+     * Returns null instead of failing when Deezer is down.
+     */
+    @Cacheable(cacheNames = CacheConfig.DEEZER_COVERS, unless = "#result == null")
     public String getAlbumCoverFallback(String trackName, List<String> artistNames) {
-        List<Map<String, Object>> results = searchTrack(trackName);
+        List<Map<String, Object>> results;
+        try {
+            results = searchTrack(trackName);
+        } catch (ProviderUnavailableException e) {
+            return null;
+        } catch (Exception e) {
+            System.out.println("❌ Deezer cover lookup failed: " + e.getMessage());
+            return null;
+        }
         for (Map<String, Object> track : results) {
-            // Get album cover safely
-            String cover = null;
-            if (track.get("album") instanceof Map<?, ?> albumMap) {
-                Object coverObj = albumMap.get("cover_medium");
-                if (coverObj instanceof String) {
-                    cover = (String) coverObj;
-                }
+            // searchTrack flattens each hit, so cover and artist are plain strings
+            if (!(track.get("album_cover") instanceof String cover)) {
+                continue;
             }
-
-            // Get artist safely
             Object artistObj = track.get("artist");
-            String deezerArtist = "";
-            if (artistObj instanceof Map<?, ?> artistMap) {
-                Object nameObj = artistMap.get("name");
-                deezerArtist = nameObj != null ? nameObj.toString().toLowerCase() : "";
-            }
+            String deezerArtist = artistObj != null ? artistObj.toString().toLowerCase() : "";
 
             for (String inputArtist : artistNames) {
-                if (deezerArtist.contains(inputArtist.toLowerCase()) && cover != null) {
+                if (deezerArtist.contains(inputArtist.toLowerCase())) {
                     return cover;
                 }
             }
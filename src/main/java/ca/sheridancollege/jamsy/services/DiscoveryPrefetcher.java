@@ -0,0 +1,212 @@
+package ca.sheridancollege.jamsy.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.beans.TrackKeySet;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import ca.sheridancollege.jamsy.services.outbound.Provider;
+import ca.sheridancollege.jamsy.services.outbound.ProviderCircuitBreakers;
+import ca.sheridancollege.jamsy.services.outbound.ProviderRateLimiter;
+
+/*
+ * Computes the next discovery batches for a user while they are still
+ * swiping through the current one.
+ *
+ * start() registers the user's seeds and first batch; from then on up to
+ * discovery.prefetch.queue-size batches are kept ready, each built from the
+ * same seeds minus every track already shown or swiped.
+ * next() hands out a ready batch and tops the queue up again; only when the
+ * queue is empty does the caller compute a batch itself.
+ *
+ * Prefetching is optional work, so it yields to interactive traffic: it only
+ * starts while Last.fm's circuit is closed and its bucket still holds
+ * discovery.prefetch.min-permits permits, otherwise it tries again later.
+ * At most discovery.prefetch.max-concurrent fills run at once. State is
+ * dropped after discovery.prefetch.idle-minutes without a refresh.
+ */
+@Service
+public class DiscoveryPrefetcher {
+
+    private final DiscoveryService discoveryService;
+    private final ParallelFetcher parallelFetcher;
+    private final ProviderRateLimiter rateLimiter;
+    private final ProviderCircuitBreakers circuitBreakers;
+    private final SwipeHistory swipeHistory;
+
+    private final Cache<String, UserPrefetch> users;
+    private final Semaphore fillSlots;
+
+    @Value("${discovery.prefetch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${discovery.prefetch.queue-size:2}")
+    private int queueSize;
+
+    @Value("${discovery.prefetch.min-permits:2}")
+    private int minPermits;
+
+    @Value("${discovery.prefetch.retry-ms:2000}")
+    private long retryMs;
+
+    public DiscoveryPrefetcher(DiscoveryService discoveryService, ParallelFetcher parallelFetcher,
+                               ProviderRateLimiter rateLimiter, ProviderCircuitBreakers circuitBreakers,
+                               SwipeHistory swipeHistory,
+                               @Value("${discovery.prefetch.max-users:1000}") long maxUsers,
+                               @Value("${discovery.prefetch.idle-minutes:30}") long idleMinutes,
+                               @Value("${discovery.prefetch.max-concurrent:4}") int maxConcurrent) {
+        this.discoveryService = discoveryService;
+        this.parallelFetcher = parallelFetcher;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreakers = circuitBreakers;
+        this.swipeHistory = swipeHistory;
+        this.fillSlots = new Semaphore(maxConcurrent);
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .<String, UserPrefetch>removalListener((key, state, cause) -> {
+                    if (state != null) state.cancelled = true;
+                })
+                .build();
+    }
+
+    private static final class UserPrefetch {
+        // Filters are looked up per batch: the cached instance can be replaced while the prefetch lives
+        final String userId;
+        final List<String> seedArtists;
+        final String workout;
+        // Keys of every track shown so far; accessed only while holding the UserPrefetch lock
+        final TrackKeySet shown = new TrackKeySet();
+        final BlockingQueue<List<Track>> ready;
+        final AtomicBoolean filling = new AtomicBoolean();
+        // Held while a batch is built, so a fill and a synchronous compute never pick the same tracks.
+        // A lock rather than synchronized: the build does blocking I/O and must not pin a virtual thread
+        final ReentrantLock computing = new ReentrantLock();
+        volatile boolean cancelled;
+
+        UserPrefetch(String userId, List<String> seedArtists, String workout, int queueSize) {
+            this.userId = userId;
+            this.seedArtists = List.copyOf(seedArtists);
+            this.workout = workout;
+            this.ready = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        synchronized boolean wasShown(Track track) {
+            return shown.contains(track.getTrackKey());
+        }
+
+        synchronized void markShown(List<Track> tracks) {
+            tracks.forEach(track -> shown.add(track.getTrackKey()));
+        }
+    }
+
+    /**
+     * Start prefetching for a user who was just shown {@code currentBatch}.
+     * Replaces any earlier prefetch state of that user.
+     *
+     * @param userKey identifies the user, e.g. the HTTP session ID
+     * @param userId Spotify user ID whose swiped tracks are excluded from the batches
+     */
+    public void start(String userKey, String userId, List<String> seedArtists, String workout, List<Track> currentBatch) {
+        UserPrefetch state = new UserPrefetch(userId, seedArtists, workout, Math.max(1, queueSize));
+        state.markShown(currentBatch);
+        users.put(userKey, state);
+        scheduleFill(state);
+    }
+
+    /**
+     * The user's next batch: a prefetched one when ready, otherwise computed now.
+     *
+     * @return empty when start() was never called for the user (or their state expired)
+     */
+    public Optional<List<Track>> next(String userKey) {
+        UserPrefetch state = users.getIfPresent(userKey);
+        if (state == null) {
+            return Optional.empty();
+        }
+
+        List<Track> batch = state.ready.poll();
+        if (batch != null) {
+            System.out.println("⚡ Serving prefetched discovery batch (" + batch.size() + " tracks, "
+                    + state.ready.size() + " more ready)");
+        } else {
+            state.computing.lock();
+            try {
+                // A fill may have finished while we waited for the lock
+                batch = state.ready.poll();
+                if (batch == null) {
+                    System.out.println("⏳ No prefetched batch ready, computing discovery now");
+                    batch = compute(state);
+                }
+            } finally {
+                state.computing.unlock();
+            }
+        }
+        scheduleFill(state);
+        return Optional.of(batch);
+    }
+
+    private void scheduleFill(UserPrefetch state) {
+        if (state.cancelled || state.ready.remainingCapacity() == 0 || !state.filling.compareAndSet(false, true)) {
+            return;
+        }
+        if (circuitBreakers.isOpen(Provider.LASTFM) || rateLimiter.availablePermits(Provider.LASTFM) < minPermits
+                || !fillSlots.tryAcquire()) {
+            // Leave the budget to interactive requests and look again later
+            state.filling.set(false);
+            CompletableFuture.delayedExecutor(retryMs, TimeUnit.MILLISECONDS).execute(() -> scheduleFill(state));
+            return;
+        }
+
+        parallelFetcher.submit(() -> compute(state)).whenComplete((batch, error) -> {
+            fillSlots.release();
+            state.filling.set(false);
+            if (error != null) {
+                System.err.println("❌ Discovery prefetch failed: " + error.getMessage());
+                return;
+            }
+            if (state.cancelled || batch.isEmpty()) {
+                // Nothing new left for these seeds; next() will compute (and find) nothing too
+                return;
+            }
+            if (state.ready.offer(batch)) {
+                System.out.println("📦 Prefetched discovery batch of " + batch.size() + " tracks");
+            }
+            scheduleFill(state);
+        });
+    }
+
+    /**
+     * Build one batch for the user and mark its tracks as seen, so the batch
+     * after it does not repeat them. Batches of one user are built one at a
+     * time; each starts after the previous one's tracks are marked.
+     */
+    private List<Track> compute(UserPrefetch state) {
+        state.computing.lock();
+        try {
+            SwipeHistory.Filters history = swipeHistory.forUser(state.userId);
+            List<Track> batch = discoveryService.getDiscoveryTracks(state.seedArtists, state.workout, batchSize,
+                    track -> state.wasShown(track) || history.seen(track));
+            state.markShown(batch);
+            return batch;
+        } finally {
+            state.computing.unlock();
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package ca.sheridancollege.jamsy.services;
 
 import ca.sheridancollege.jamsy.beans.Track;
-import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.beans.TrackKeySet;
+import ca.sheridancollege.jamsy.models.SongActionView;
 import ca.sheridancollege.jamsy.repositories.SongActionRepository;
+import ca.sheridancollege.jamsy.services.graph.ArtistSimilarityGraph;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import ca.sheridancollege.jamsy.services.playlist.PlaylistAssembler;
 
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.data.domain.PageRequest;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 
@@ -22,58 +34,102 @@ public class DiscoveryService {
 
     private final LastFmService lastFmService;
     
+    private final ParallelFetcher parallelFetcher;
+    
+    private final ArtistSimilarityGraph artistGraph;
+    
     private final int NUMBER_OF_ARTISTS = 10;
+    // Liked tracks mixed back into a one-hour playlist for continuity
+    private static final int FAMILIAR_TRACKS = 10;
+    private static final int MAX_TRACKS_PER_ARTIST = 2;
+    // Length assumed for a track whose duration is not known yet, when sizing the candidate pool
+    private static final long TYPICAL_TRACK_MS = 210_000;
     
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    @Value("${lastfm.api.base-url}")
-    private String baseUrl;
+    // Overall budget for one discovery fan-out; partial results are returned after it
+    @Value("${discovery.fanout.deadline-ms:8000}")
+    private long fanOutDeadlineMs;
+    
+    // How far the similarity walk may move away from the seeds (1 = direct neighbours only)
+    @Value("${discovery.graph.max-depth:2}")
+    private int graphMaxDepth;
     
-    @Value("${lastfm.api.key}")
-    private String apiKey;
+    // One-hour playlists may end up this much shorter or longer than the target
+    @Value("${playlist.assembly.tolerance-ms:120000}")
+    private long playlistToleranceMs;
+    
+    // Duration step of the assembler's table; finer is more exact but slower
+    @Value("${playlist.assembly.resolution-ms:5000}")
+    private long playlistResolutionMs;
+    
+    // Budget for looking up missing track durations before assembling
+    @Value("${playlist.assembly.duration-lookup-deadline-ms:5000}")
+    private long durationLookupDeadlineMs;
     
     @Autowired
     private SongActionRepository songActionRepo;
+    
+    @Autowired
+    private SwipeHistory swipeHistory;
 
     @Autowired
-    public DiscoveryService(LastFmService lastFmService) {
+    public DiscoveryService(LastFmService lastFmService, ParallelFetcher parallelFetcher,
+                            ArtistSimilarityGraph artistGraph) {
         this.lastFmService = lastFmService;
+        this.parallelFetcher = parallelFetcher;
+        this.artistGraph = artistGraph;
     }
 
     public List<Track> getDiscoveryTracks(List<String> seedArtistNames, String workout, int limit) {
+        return getDiscoveryTracks(seedArtistNames, workout, limit, track -> false);
+    }
+
+    /**
+     * Same as {@link #getDiscoveryTracks(List, String, int)}, leaving out tracks
+     * matching {@code excluded} (e.g. already shown or swiped).
+     */
+    public List<Track> getDiscoveryTracks(List<String> seedArtistNames, String workout, int limit,
+                                          Predicate<Track> excluded) {
         System.out.println("Analyzing selected artists: " + seedArtistNames);
+        long deadline = ParallelFetcher.deadlineAfter(fanOutDeadlineMs);
         
-        // Step 1: Analyze genres of selected artists
-        Map<String, Integer> genreFrequency = analyzeArtistGenres(seedArtistNames);
-        System.out.println("Genre analysis: " + genreFrequency);
+        // Step 1: Analyze genres of selected artists (runs alongside the lookups below)
+        CompletableFuture<Map<String, Integer>> genreAnalysis =
+                parallelFetcher.submit(() -> analyzeArtistGenres(seedArtistNames, deadline));
 
-        // Step 2: Get similar artists for each seed artist
-        List<String> allSimilarArtists = new ArrayList<>();
-        Set<String> uniqueArtists = new HashSet<>();
-        
-        for (String artistName : seedArtistNames) {
-        	
-        	//using last fm service to get similar artists to the selected artist
-            List<String> similarArtists = lastFmService.getSimilarArtists(artistName, NUMBER_OF_ARTISTS);
-            
-            for (String similarArtist : similarArtists) {
-                if (uniqueArtists.add(similarArtist)) {
-                    allSimilarArtists.add(similarArtist);
-                }
-            }
-        }
+        // Step 2: Walk the similarity graph out from the seeds; only unseen seeds hit Last.fm
+        List<String> allSimilarArtists = new ArrayList<>(artistGraph.walk(
+                seedArtistNames, graphMaxDepth, NUMBER_OF_ARTISTS * seedArtistNames.size(), deadline));
 
         System.out.println("Found similar artists: " + allSimilarArtists.size());
         System.out.println("Similar artists: " + allSimilarArtists);
 
         // Step 3: Get ONLY 1 track from each similar artist
-        Map<String, Track> uniqueTracks = new LinkedHashMap<>();
+        List<Track> uniqueTracks = new ArrayList<>();
+        TrackKeySet uniqueKeys = new TrackKeySet(limit * 2);
         Set<String> artistsUsed = new HashSet<>();
         
         // Shuffle the artists first to ensure random selection
         Collections.shuffle(allSimilarArtists);
         
-        for (String similarArtist : allSimilarArtists) {
+        // Fetch top tracks and genres for all candidates in parallel; a few extra cover artists with no tracks
+        List<String> candidates = new ArrayList<>(
+                allSimilarArtists.subList(0, Math.min(allSimilarArtists.size(), limit * 3)));
+        CompletableFuture<Map<String, List<String>>> candidateGenres = parallelFetcher.submit(
+                () -> parallelFetcher.fetchAll(candidates, lastFmService::getArtistGenres, deadline));
+        Map<String, List<Track>> tracksByArtist = parallelFetcher.fetchAll(
+                candidates,
+                similarArtist -> lastFmService.getArtistTopTracks(similarArtist, 3),
+                deadline);
+
+        // Artists that suit the workout or share a top seed genre go first; the others only fill up
+        List<String> topGenres = topGenres(resultBy(genreAnalysis, deadline, Collections.emptyMap()));
+        Map<String, List<String>> genresByArtist = resultBy(candidateGenres, deadline, Collections.emptyMap());
+        System.out.println("Top genres from selection: " + topGenres + ", workout: " + workout);
+        candidates.sort(Comparator.comparing((String artist) ->
+                !isRelevant(genresByArtist.getOrDefault(artist, Collections.emptyList()), topGenres, workout)));
+        Random random = new Random();
+        
+        for (String similarArtist : candidates) {
             if (uniqueTracks.size() >= limit * 2) break; // Get more than needed for better shuffling
             
             // Skip if we've already used this artist
@@ -81,18 +137,20 @@ public class DiscoveryService {
                 continue;
             }
             
-            System.out.println("Getting tracks for: " + similarArtist);
-            List<Track> artistTracks = lastFmService.getArtistTopTracks(similarArtist, 3);
+            List<Track> artistTracks = tracksByArtist.getOrDefault(similarArtist, Collections.emptyList());
+            artistTracks = artistTracks.stream()
+                    .filter(excluded.negate())
+                    .collect(Collectors.toList());
             System.out.println("Found " + artistTracks.size() + " tracks for " + similarArtist);
             
             // Take only ONE track from this artist
             if (!artistTracks.isEmpty()) {
                 // Randomly select one track from the available tracks
-                Track selectedTrack = artistTracks.get(new Random().nextInt(artistTracks.size()));
-                String trackKey = selectedTrack.getName() + "-" + selectedTrack.getArtistName();
+                Track selectedTrack = artistTracks.get(random.nextInt(artistTracks.size()));
                 
-                if (!uniqueTracks.containsKey(trackKey) && selectedTrack.getName() != null && selectedTrack.getArtistName() != null) {
-                    uniqueTracks.put(trackKey, selectedTrack);
+                if (selectedTrack.getName() != null && selectedTrack.getArtistName() != null
+                        && uniqueKeys.add(selectedTrack.getTrackKey())) {
+                    uniqueTracks.add(selectedTrack);
                     artistsUsed.add(similarArtist); // Mark this artist as used
                     System.out.println("✅ Selected 1 track from " + similarArtist + ": " + selectedTrack.getName());
                 }
@@ -103,7 +161,7 @@ public class DiscoveryService {
         
         // Step 4: Print all retrieved songs with artist info
         System.out.println("=== ALL RETRIEVED SONGS (1 per artist) ===");
-        List<Track> allTracks = new ArrayList<>(uniqueTracks.values());
+        List<Track> allTracks = uniqueTracks;
         for (Track track : allTracks) {
             System.out.println("🎵 " + track.getName() + " by " + track.getArtistName());
         }
@@ -124,11 +182,132 @@ public class DiscoveryService {
         return allTracks;
     }
 
-    private Map<String, Integer> analyzeArtistGenres(List<String> artistNames) {
+    /**
+     * Summary sent after the last streamed track.
+     *
+     * @param partial true when the fan-out deadline cut the search short
+     */
+    public record DiscoverySummary(int trackCount, int artistsConsidered, long elapsedMs, boolean partial) {}
+
+    /**
+     * Streaming variant of {@link #getDiscoveryTracks}: instead of waiting for
+     * the whole fan-out, each seed walks the similarity graph on its own and
+     * every similar artist's top tracks are fetched in parallel, so the first
+     * track is handed to {@code sink} as soon as one lookup returns. The same
+     * rules apply (one track per artist, no duplicates, no {@code excluded}
+     * tracks, at most {@code limit}), but tracks arrive in completion order
+     * rather than shuffled. Tracks of artists that fit neither the workout nor
+     * the seed genres are held back and only sent once the others run out.
+     *
+     * @param sink receives each qualifying track; return false to stop early
+     *             (e.g. the client went away). Calls are serialized.
+     * @return completes with the summary once the limit, the deadline or the
+     *         end of the candidates is reached
+     */
+    public CompletableFuture<DiscoverySummary> streamDiscoveryTracks(List<String> seedArtistNames, String workout,
+                                                                     int limit, Predicate<Track> excluded,
+                                                                     Predicate<Track> sink) {
+        long started = System.nanoTime();
+        long deadline = ParallelFetcher.deadlineAfter(fanOutDeadlineMs);
+        Set<String> artistsUsed = ConcurrentHashMap.newKeySet();
+        TrackKeySet trackKeys = new TrackKeySet(limit);
+        AtomicInteger emitted = new AtomicInteger();
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        // A lock rather than synchronized: the sink writes to the response and must not pin a virtual thread
+        ReentrantLock sinkLock = new ReentrantLock();
+        CompletableFuture<List<String>> topGenres =
+                parallelFetcher.submit(() -> topGenres(analyzeArtistGenres(seedArtistNames, deadline)));
+        Queue<Track> heldBack = new ConcurrentLinkedQueue<>();
+
+        Predicate<Track> offer = track -> {
+            sinkLock.lock();
+            try {
+                if (stopped.get() || !trackKeys.add(track.getTrackKey())) {
+                    return false;
+                }
+                if (!sink.test(track) || emitted.incrementAndGet() >= limit) {
+                    stopped.set(true);
+                }
+                return true;
+            } finally {
+                sinkLock.unlock();
+            }
+        };
+
+        List<CompletableFuture<Void>> seedBranches = new ArrayList<>();
+        for (String seed : new LinkedHashSet<>(seedArtistNames)) {
+            seedBranches.add(parallelFetcher.submit(() -> {
+                List<String> similar = new ArrayList<>(artistGraph.walk(List.of(seed), graphMaxDepth, NUMBER_OF_ARTISTS, deadline));
+                Collections.shuffle(similar);
+
+                List<CompletableFuture<Void>> lookups = new ArrayList<>();
+                for (String similarArtist : similar) {
+                    if (stopped.get()) break;
+                    if (!artistsUsed.add(similarArtist)) continue;
+                    lookups.add(parallelFetcher.submit(() -> {
+                        if (stopped.get() || System.nanoTime() > deadline) return null;
+                        CompletableFuture<List<String>> artistGenres =
+                                parallelFetcher.submit(() -> lastFmService.getArtistGenres(similarArtist));
+                        List<Track> artistTracks = lastFmService.getArtistTopTracks(similarArtist, 3).stream()
+                                .filter(excluded.negate())
+                                .collect(Collectors.toList());
+                        if (!artistTracks.isEmpty()) {
+                            Track selectedTrack = artistTracks.get(ThreadLocalRandom.current().nextInt(artistTracks.size()));
+                            if (selectedTrack.getName() != null && selectedTrack.getArtistName() != null) {
+                                if (isRelevant(resultBy(artistGenres, deadline, Collections.emptyList()),
+                                        resultBy(topGenres, deadline, Collections.emptyList()), workout)) {
+                                    offer.test(selectedTrack);
+                                } else {
+                                    heldBack.add(selectedTrack);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                awaitUntil(lookups, deadline);
+                return null;
+            }));
+        }
+
+        return parallelFetcher.submit(() -> {
+            boolean partial = !awaitUntil(seedBranches, deadline);
+            // Fill up with the held-back tracks; they are already fetched, so this ignores the deadline
+            for (Track track : heldBack) {
+                if (stopped.get()) break;
+                offer.test(track);
+            }
+            stopped.set(true);
+            DiscoverySummary summary = new DiscoverySummary(emitted.get(), artistsUsed.size(),
+                    (System.nanoTime() - started) / 1_000_000, partial && emitted.get() < limit);
+            System.out.println("📡 Streamed " + summary.trackCount() + " discovery tracks in " + summary.elapsedMs() + "ms"
+                    + (summary.partial() ? " (deadline reached)" : ""));
+            return summary;
+        });
+    }
+
+    // @return false if the deadline passed before every future finished
+    private static boolean awaitUntil(List<CompletableFuture<Void>> futures, long deadline) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Map<String, Integer> analyzeArtistGenres(List<String> artistNames, long deadline) {
         Map<String, Integer> genreCount = new HashMap<>();
         
-        for (String artistName : artistNames) {
-            List<String> genres = lastFmService.getArtistGenres(artistName);
+        Map<String, List<String>> genresByArtist =
+                parallelFetcher.fetchAll(artistNames, lastFmService::getArtistGenres, deadline);
+        for (List<String> genres : genresByArtist.values()) {
             for (String genre : genres) {
                 genreCount.put(genre, genreCount.getOrDefault(genre, 0) + 1);
             }
@@ -137,105 +316,52 @@ public class DiscoveryService {
         return genreCount;
     }
 
-    private List<String> findRelevantSimilarArtists(List<String> seedArtistNames, Map<String, Integer> genreFrequency, String workout) {
-        List<String> allSimilarArtists = new ArrayList<>();
-        Set<String> uniqueArtists = new HashSet<>();
-        
-        // Get top 3 genres
-        List<String> topGenres = genreFrequency.entrySet().stream()
+    private static List<String> topGenres(Map<String, Integer> genreFrequency) {
+        return genreFrequency.entrySet().stream()
             .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
             .limit(3)
             .map(Map.Entry::getKey)
             .collect(Collectors.toList());
-
-        System.out.println("Top genres from selection: " + topGenres);
-
-        // Get similar artists with basic genre matching
-        for (String artistName : seedArtistNames) {
-            List<String> similarArtists = lastFmService.getSimilarArtists(artistName, 10);
-            
-            for (String similarArtist : similarArtists) {
-                if (uniqueArtists.add(similarArtist)) {
-                    // Simple check: include if it matches workout OR shares a genre
-                    if (lastFmService.artistMatchesWorkout(similarArtist, workout) || 
-                        sharesAnyGenre(similarArtist, topGenres)) {
-                        allSimilarArtists.add(similarArtist);
-                        System.out.println("Added similar artist: " + similarArtist);
-                    }
-                }
-            }
-        }
-
-        System.out.println("Total similar artists found: " + allSimilarArtists.size());
-        Collections.shuffle(allSimilarArtists);
-        return allSimilarArtists;
     }
 
-    private boolean sharesAnyGenre(String artistName, List<String> topGenres) {
-        List<String> artistGenres = lastFmService.getArtistGenres(artistName);
-        return artistGenres.stream()
-            .anyMatch(artistGenre -> topGenres.stream()
-                .anyMatch(topGenre -> artistGenre.toLowerCase().contains(topGenre.toLowerCase())));
-    }
-    
-    private boolean isArtistRelevantForWorkout(String artistName, String workout, List<String> topGenres) {
-        // First priority: check if artist matches workout vibe
-        boolean matchesWorkout = lastFmService.artistMatchesWorkout(artistName, workout);
-        
-        // If it matches workout, include it regardless of genre
-        if (matchesWorkout) {
+    // Include if the artist matches the workout OR shares a genre with the seeds
+    private boolean isRelevant(List<String> artistGenres, List<String> topGenres, String workout) {
+        if (lastFmService.genresMatchWorkout(artistGenres, workout)) {
             return true;
         }
-        
-        // Second priority: check if artist shares any genre with top genres
-        List<String> artistGenres = lastFmService.getArtistGenres(artistName);
-        
         return artistGenres.stream()
             .anyMatch(artistGenre -> topGenres.stream()
-                .anyMatch(topGenre -> artistGenre.toLowerCase().contains(topGenre.toLowerCase()) || 
-                                     topGenre.toLowerCase().contains(artistGenre.toLowerCase())));
-    }
-
-    private boolean isArtistRelevant(String artistName, List<String> topGenres, String workout) {
-        List<String> artistGenres = lastFmService.getArtistGenres(artistName);
-        
-        boolean sharesGenres = artistGenres.stream()
-            .anyMatch(artistGenre -> topGenres.stream()
-                .anyMatch(topGenre -> artistGenre.contains(topGenre) || topGenre.contains(artistGenre)));
-
-        boolean matchesWorkout = lastFmService.artistMatchesWorkout(artistName, workout);
-
-        return sharesGenres && matchesWorkout;
+                .anyMatch(topGenre -> artistGenre.toLowerCase().contains(topGenre.toLowerCase())));
     }
 
-    private void addTracksToResult(Map<String, Track> result, List<Track> tracks, int maxSize) {
-        // Shuffle the incoming tracks to avoid same-artist clustering
-        List<Track> shuffledTracks = new ArrayList<>(tracks);
-        Collections.shuffle(shuffledTracks);
-        
-        for (Track track : shuffledTracks) {
-            if (result.size() >= maxSize) break;
-            
-            String trackKey = track.getName() + "-" + track.getArtistName();
-            if (!result.containsKey(trackKey) && track.getName() != null && track.getArtistName() != null) {
-                result.put(trackKey, track);
-            }
+    // Result of a lookup that finishes by the deadline, or the fallback
+    private static <T> T resultBy(CompletableFuture<T> future, long deadline, T fallback) {
+        try {
+            T result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return result != null ? result : fallback;
+        } catch (TimeoutException | ExecutionException e) {
+            return fallback;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
         }
     }
-    
+
     /**
      * Helper method → fetch additional lesser-known tracks
-     * Used when playlist doesn’t reach the minimum song count.
+     * Used when the candidate pool is too short to fill the target duration:
+     * adds tracks to the pool until it holds about neededMs of music.
      */
     private void getMoreObscureTracks(
             List<Track> likedTracks,
-            List<Track> finalPlaylist,
-            Set<String> addedTrackKeys,
-            Map<String, Integer> artistCount,
-            int neededCount,
-            Set<String> likedTrackKeys
+            List<Track> pool,
+            TrackKeySet poolKeys,
+            TrackKeySet likedTrackKeys,
+            SwipeHistory.Filters history,
+            long neededMs
     ) {
-        System.out.println("🔎 Trying to fetch more obscure tracks (" + neededCount + " needed)");
+        long poolMs = estimatedDurationMs(pool);
+        System.out.println("🔎 Trying to fetch more obscure tracks (" + ((neededMs - poolMs) / 60000) + " more minutes needed)");
 
         // Use Last.fm again but with lower popularity filter or broader pool
         for (Track liked : likedTracks) {
@@ -248,76 +374,90 @@ public class DiscoveryService {
             );
 
             for (Track candidate : obscureTracks) {
-                if (finalPlaylist.size() >= neededCount) {
+                if (poolMs >= neededMs) {
                     System.out.println("✅ Filled obscure track quota");
                     return;
                 }
 
-                String artistKey = candidate.getArtistName() != null
-                    ? candidate.getArtistName().toLowerCase()
-                    : "unknown";
+                long trackKey = candidate.getTrackKey();
 
-                String trackKey = candidate.getName().toLowerCase() + "|" + artistKey;
+                // Skip if already liked (the seeds or any earlier like), skipped or in the pool
+                if (likedTrackKeys.contains(trackKey) || history.liked(candidate) || history.skipped(candidate)
+                        || !poolKeys.add(trackKey)) continue;
 
-                // Skip if already liked or added
-                if (likedTrackKeys.contains(trackKey) || addedTrackKeys.contains(trackKey)) continue;
+                pool.add(candidate);
+                poolMs += candidate.getDurationMs() > 0 ? candidate.getDurationMs() : TYPICAL_TRACK_MS;
 
-                int currentArtistCount = artistCount.getOrDefault(artistKey, 0);
-                if (currentArtistCount >= 2) continue;
+                System.out.println("➕ Added obscure: " + candidate.getName() + " by " + candidate.getArtistName());
+            }
+        }
 
-                finalPlaylist.add(candidate);
-                addedTrackKeys.add(trackKey);
-                artistCount.put(artistKey, currentArtistCount + 1);
+        System.out.println("⚠️ Done adding obscure tracks. Pool size: " + pool.size());
+    }
 
-                System.out.println("➕ Added obscure: " + candidate.getName() + " by " + candidate.getArtistName());
+    // Pool length, counting tracks whose duration is not known yet as TYPICAL_TRACK_MS
+    private static long estimatedDurationMs(List<Track> tracks) {
+        long total = 0;
+        for (Track track : tracks) {
+            total += track.getDurationMs() > 0 ? track.getDurationMs() : TYPICAL_TRACK_MS;
+        }
+        return total;
+    }
+
+    /**
+     * Look up the durations Last.fm's track lists left out (track.getInfo, cached),
+     * in parallel until the deadline. Tracks still unknown afterwards keep 0.
+     */
+    private void fillMissingDurations(List<Track> tracks, long deadline) {
+        Map<Long, List<Track>> missing = new LinkedHashMap<>();
+        for (Track track : tracks) {
+            if (track.getDurationMs() <= 0 && track.getName() != null && track.getArtistName() != null) {
+                missing.computeIfAbsent(track.getTrackKey(), key -> new ArrayList<>()).add(track);
             }
         }
+        if (missing.isEmpty()) return;
+
+        Map<Long, Integer> durations = parallelFetcher.fetchAll(missing.keySet(), key -> {
+            Track track = missing.get(key).get(0);
+            int durationMs = lastFmService.getTrackDurationMs(track.getName(), track.getArtistName());
+            return durationMs > 0 ? durationMs : null;
+        }, deadline);
+        durations.forEach((key, durationMs) -> missing.get(key).forEach(track -> track.setDurationMs(durationMs)));
 
-        System.out.println("⚠️ Done adding obscure tracks. Final size: " + finalPlaylist.size());
+        System.out.println("⏱️ Looked up " + durations.size() + " of " + missing.size() + " missing durations");
     }
 
     
     /* UPDATED ATIN START */
     /* Extended playlist (final result) */
-    public List<Track> generateOneHourPlaylist(List<Track> likedTracks, int targetMinutes) {
+    public List<Track> generateOneHourPlaylist(String userId, List<Track> likedTracks, int targetMinutes) {
 
         System.out.println("Inside the generate playlist method");
 
-        // Fetch user history
-        List<SongAction> likedSongs = songActionRepo.findByAction("like");
-        List<SongAction> skippedSongs = songActionRepo.findByAction("skip");
-
-        Set<String> likedKeys = likedSongs.stream()
-            .map(s -> s.getSongName().toLowerCase() + "|" + s.getArtist().toLowerCase())
-            .collect(Collectors.toSet());
-
-        Set<String> skippedKeys = skippedSongs.stream()
-            .map(s -> s.getSongName().toLowerCase() + "|" + s.getArtist().toLowerCase())
-            .collect(Collectors.toSet());
+        // User history: likes and skips are checked against the swipe filters, only the latest likes are loaded
+        SwipeHistory.Filters history = swipeHistory.forUser(userId);
+        List<SongActionView> likedSongs = songActionRepo.findRecent(userId, "like", PageRequest.of(0, FAMILIAR_TRACKS));
 
-        System.out.println("🧠 Loaded preferences: " + likedKeys.size() + " liked, " + skippedKeys.size() + " skipped");
+        System.out.println("🧠 Loaded preferences for " + userId + ": " + likedSongs.size() + " recent likes");
 
-        int targetMs = targetMinutes * 60 * 1000;
-        int minSongs = 50; // Minimum 50 songs
+        long targetMs = targetMinutes * 60_000L;
 
         System.out.println("🎵 Starting playlist generation with " + likedTracks.size() + " liked tracks");
-        System.out.println("🎯 Target: " + minSongs + " songs, " + targetMinutes + " minutes");
+        System.out.println("🎯 Target: " + targetMinutes + " minutes (± " + (playlistToleranceMs / 1000) + "s)");
 
         // Create sets for tracking - EXCLUDE LIKED TRACKS
-        Set<String> likedTrackKeys = likedTracks.stream()
-                .map(t -> t.getName().toLowerCase() + "|" + t.getArtistName().toLowerCase())
-                .collect(Collectors.toSet());
-
-        Set<String> addedTrackKeys = new HashSet<>();
-        Map<String, Integer> artistCount = new HashMap<>();
+        TrackKeySet likedTrackKeys = new TrackKeySet(likedTracks.size());
+        for (Track likedTrack : likedTracks) {
+            likedTrackKeys.add(likedTrack.getTrackKey());
+        }
 
         // Step 1: Get similar tracks ONLY for the liked tracks
         List<Track> similarPool = new ArrayList<>();
-        Set<String> processedSeeds = new HashSet<>();
+        TrackKeySet poolKeys = new TrackKeySet();
+        TrackKeySet processedSeeds = new TrackKeySet(likedTracks.size());
 
         for (Track likedTrack : likedTracks) {
-            String seedKey = likedTrack.getName().toLowerCase() + "|" + likedTrack.getArtistName().toLowerCase();
-            if (!processedSeeds.add(seedKey)) continue; // skip duplicates
+            if (!processedSeeds.add(likedTrack.getTrackKey())) continue; // skip duplicates
 
             System.out.println("🔍 Finding similar tracks for: " + likedTrack.getName() + " by " + likedTrack.getArtistName());
 
@@ -330,190 +470,61 @@ public class DiscoveryService {
             System.out.println("📊 Found " + similarTracks.size() + " similar tracks for " + likedTrack.getName());
 
             for (Track similar : similarTracks) {
-                String trackKey = similar.getName().toLowerCase() + "|" + similar.getArtistName().toLowerCase();
+                long trackKey = similar.getTrackKey();
 
-                // Skip already liked or skipped songs
-                if (skippedKeys.contains(trackKey)) continue;
+                // Skip already liked or skipped songs, and duplicates; likedTracks only holds the newest likes
+                if (history.skipped(similar) || history.liked(similar)) continue;
                 if (likedTrackKeys.contains(trackKey)) continue;
 
-                if (!addedTrackKeys.contains(trackKey)) {
+                if (poolKeys.add(trackKey)) {
                     similarPool.add(similar);
                 }
             }
         }
 
-        System.out.println("📊 Total similar pool: " + similarPool.size() + " tracks");
-
-        // Step 2: Remove duplicates
-        Set<String> poolKeys = new HashSet<>();
-        List<Track> uniqueSimilarPool = similarPool.stream()
-            .filter(t -> poolKeys.add(t.getName().toLowerCase() + "|" + t.getArtistName().toLowerCase()))
-            .collect(Collectors.toList());
-
-        System.out.println("📊 After deduplication: " + uniqueSimilarPool.size() + " unique similar tracks");
-
-        // Step 3: Sort by match score (best matches first)
-        uniqueSimilarPool.sort(Comparator.comparing(Track::getMatchScore).reversed());
+        System.out.println("📊 Total similar pool: " + similarPool.size() + " unique tracks");
 
-        // Step 4: Build final playlist
-        List<Track> finalPlaylist = new ArrayList<>();
-        int totalDuration = 0;
-
-        for (Track candidate : uniqueSimilarPool) {
-            if (finalPlaylist.size() >= minSongs && totalDuration >= targetMs) break;
-
-            String artistKey = candidate.getArtistName().toLowerCase();
-            String trackKey = candidate.getName().toLowerCase() + "|" + artistKey;
-
-            if (addedTrackKeys.contains(trackKey)) continue;
-
-            int currentArtistCount = artistCount.getOrDefault(artistKey, 0);
-            if (currentArtistCount >= 2) continue;
-
-            finalPlaylist.add(candidate);
-            addedTrackKeys.add(trackKey);
-            artistCount.put(artistKey, currentArtistCount + 1);
-            totalDuration += candidate.getDurationMs() > 0 ? candidate.getDurationMs() : 180000;
-
-            System.out.println("✅ Added to playlist: " + candidate.getName() + " by " + candidate.getArtistName());
-        }
-
-        // Step 5: If we still don't have enough songs, try different approach
-        if (finalPlaylist.size() < minSongs) {
-            System.out.println("🔄 Need more songs, current: " + finalPlaylist.size() + ", target: " + minSongs);
-            getMoreObscureTracks(likedTracks, finalPlaylist, addedTrackKeys, artistCount,
-                    minSongs - finalPlaylist.size(), likedTrackKeys);
+        // Step 2: If the pool cannot fill the target (with room to choose), widen it
+        if (estimatedDurationMs(similarPool) < targetMs * 2) {
+            System.out.println("🔄 Need more songs, current pool: " + similarPool.size());
+            getMoreObscureTracks(likedTracks, similarPool, poolKeys, likedTrackKeys, history, targetMs * 2);
         }
 
-        // ✅ Add some familiar liked tracks back (optional 30–50%)
-        List<Track> likedTrackObjs = likedSongs.stream()
+        // Step 3: Some familiar liked tracks come back (for continuity); they are always included
+        List<Track> familiarTracks = likedSongs.stream()
             .map(s -> {
                 Track t = new Track();
-                t.setName(s.getSongName());
-                t.setArtists(Collections.singletonList(s.getArtist()));
+                t.setName(s.songName());
+                t.setArtistName(s.artist());
+                t.setArtists(Collections.singletonList(s.artist()));
                 return t;
             })
-            .limit(10) // or likedTracks.size() / 2 dynamically
             .collect(Collectors.toList());
 
-        finalPlaylist.addAll(likedTrackObjs);
-        System.out.println("💖 Added " + likedTrackObjs.size() + " familiar liked tracks for continuity");
+        // Step 4: Durations decide what fits, so fill in the missing ones in one parallel batch
+        List<Track> needDurations = new ArrayList<>(similarPool);
+        needDurations.addAll(familiarTracks);
+        fillMissingDurations(needDurations, ParallelFetcher.deadlineAfter(durationLookupDeadlineMs));
+
+        // Step 5: Best-scoring selection that lands on the target length, max two tracks per artist
+        long started = System.nanoTime();
+        PlaylistAssembler.Result assembled = PlaylistAssembler.assemble(familiarTracks, similarPool, targetMs,
+                playlistToleranceMs, MAX_TRACKS_PER_ARTIST, playlistResolutionMs);
+        List<Track> finalPlaylist = new ArrayList<>(assembled.tracks());
+        System.out.println("🧩 Assembled " + finalPlaylist.size() + " tracks in " + (System.nanoTime() - started) / 1_000_000
+                + "ms (match score " + String.format("%.2f", assembled.score()) + ")"
+                + (assembled.withinTolerance() ? "" : " ⚠️ not enough candidates to reach the target"));
 
         // Final shuffle for variety
         Collections.shuffle(finalPlaylist);
 
-        System.out.println("🎉 Final playlist: " + finalPlaylist.size() + " similar tracks (NO LIKED TRACKS)");
-        System.out.println("⏱️  Total duration: " + (totalDuration / 60000) + " minutes");
+        System.out.println("🎉 Final playlist: " + finalPlaylist.size() + " tracks");
+        System.out.println("⏱️  Total duration: " + (assembled.durationMs() / 60000) + " minutes "
+                + (assembled.durationMs() / 1000 % 60) + " seconds");
 
         return finalPlaylist;
     }
 
-
-    private List<Track> getTracksFromSimilarObscureArtists(Track seed, int limit, Set<String> likedTrackKeys) {
-        List<Track> tracks = new ArrayList<>();
-        try {
-            // Get similar artists
-            String url = baseUrl + "?method=artist.getSimilar" +
-                    "&artist=" + URLEncoder.encode(seed.getArtistName(), StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey +
-                    "&format=json&limit=10";
-            
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("similarartists")) {
-                    Map<String, Object> similarArtists = (Map<String, Object>) body.get("similarartists");
-                    if (similarArtists.containsKey("artist")) {
-                        List<Map<String, Object>> artistList = 
-                            (List<Map<String, Object>>) similarArtists.get("artist");
-                        
-                        for (Map<String, Object> artist : artistList) {
-                            if (tracks.size() >= limit) break;
-                            
-                            String artistName = (String) artist.get("name");
-                            
-                            // Check if this artist is obscure
-                            if (lastFmService.isArtistObscure(artistName)) {
-                                // Get top tracks from this obscure artist
-                                List<Track> topTracks = getTopTracksForArtist(artistName, 3);
-                                
-                                for (Track track : topTracks) {
-                                    String trackKey = track.getName().toLowerCase() + "|" + track.getArtistName().toLowerCase();
-                                    if (!likedTrackKeys.contains(trackKey)) {
-                                        tracks.add(track);
-                                        if (tracks.size() >= limit) break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("❌ Error getting similar artists: " + e.getMessage());
-        }
-        return tracks;
-    }
-
-    private List<Track> getTopTracksForArtist(String artistName, int limit) {
-        try {
-            String url = baseUrl + "?method=artist.getTopTracks" +
-                    "&artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey +
-                    "&format=json&limit=" + limit;
-            
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("toptracks")) {
-                    Map<String, Object> topTracks = (Map<String, Object>) body.get("toptracks");
-                    if (topTracks.containsKey("track")) {
-                        List<Map<String, Object>> trackList = 
-                            (List<Map<String, Object>>) topTracks.get("track");
-                        
-                        return trackList.stream().map(trackMap -> {
-                            Track track = new Track();
-                            track.setName((String) trackMap.get("name"));
-                            track.setArtistName(artistName);
-                            track.setArtists(Collections.singletonList(artistName));
-                            track.setMatchScore(0.6f); // Good score for top tracks
-                            
-                            // Duration
-                            if (trackMap.containsKey("duration")) {
-                                Number duration = (Number) trackMap.get("duration");
-                                track.setDurationMs(duration != null ? duration.intValue() * 1000 : 180000);
-                            } else {
-                                track.setDurationMs(180000);
-                            }
-                            
-                            // Album image
-                            if (trackMap.containsKey("image")) {
-                                List<Map<String, Object>> images =
-                                        (List<Map<String, Object>>) trackMap.get("image");
-                                for (Map<String, Object> image : images) {
-                                    if ("medium".equals(image.get("size"))) {
-                                        String imageUrl = (String) image.get("#text");
-                                        if (imageUrl != null && !imageUrl.isEmpty()) {
-                                            track.setImageUrl(imageUrl);
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                            
-                            return track;
-                        }).limit(limit).collect(Collectors.toList());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("❌ Error getting top tracks for " + artistName + ": " + e.getMessage());
-        }
-        return Collections.emptyList();
-    }
-	
     public List<Map<String, Object>> convertTracksForFrontend(List<Track> tracks) {
         List<Map<String, Object>> frontendTracks = new ArrayList<>();
 
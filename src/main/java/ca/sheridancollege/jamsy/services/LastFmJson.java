@@ -0,0 +1,87 @@
+package ca.sheridancollege.jamsy.services;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/*
+ * Typed views of the Last.fm responses LastFmService reads. Jackson binds
+ * them straight from the token stream: only the fields declared here are
+ * materialized, everything else is skipped without building maps.
+ *
+ * Last.fm quirks handled here: numbers often arrive as strings (coerced by
+ * Jackson) and a list with one element is sent as a bare object (hence
+ * ACCEPT_SINGLE_VALUE_AS_ARRAY).
+ */
+final class LastFmJson {
+
+    private LastFmJson() {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ArtistInfoResponse(ArtistInfo artist) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ArtistInfo(String name, Stats stats, Tags tags) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Stats(Long listeners, Long playcount) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Tags(@JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<Named> tag) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Named(String name) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SimilarArtistsResponse(@JsonProperty("similarartists") SimilarArtists similarArtists) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SimilarArtists(@JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<SimilarArtist> artist) {}
+
+    /** match is Last.fm's similarity score in [0, 1]. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SimilarArtist(String name, Float match) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TopTracksResponse(@JsonProperty("toptracks") TrackList topTracks) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SimilarTracksResponse(@JsonProperty("similartracks") TrackList similarTracks) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TrackList(@JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<LastFmTrack> track) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TrackInfoResponse(TrackInfo track) {}
+
+    /** Unlike the track lists, track.getInfo gives duration in milliseconds (0 when unknown). */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record TrackInfo(String name, Long duration) {}
+
+    /** duration is in seconds; match is only present on track.getSimilar. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record LastFmTrack(String name, Named artist, Float match, Integer duration,
+                       @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY) List<Image> image) {
+
+        String artistName() {
+            return artist != null ? artist.name() : null;
+        }
+
+        /** URL of the "medium" image, or null. */
+        String mediumImageUrl() {
+            if (image == null) return null;
+            for (Image img : image) {
+                if ("medium".equals(img.size()) && img.url() != null && !img.url().isEmpty()) {
+                    return img.url();
+                }
+            }
+            return null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Image(@JsonProperty("#text") String url, String size) {}
+}
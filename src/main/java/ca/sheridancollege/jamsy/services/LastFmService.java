@@ -4,13 +4,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.beans.TrackKey;
+import ca.sheridancollege.jamsy.services.cache.LastFmResponseCache;
+import ca.sheridancollege.jamsy.services.outbound.Provider;
+import ca.sheridancollege.jamsy.services.outbound.RetryScheduler;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -23,36 +29,51 @@ public class LastFmService {
     private String apiKey;
 
     private final RestTemplate restTemplate;
+    private final LastFmResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final RetryScheduler retryScheduler;
 
     @Value("${lastfm.api.base-url}")
     private String baseUrl;
     
-    public LastFmService(RestTemplate restTemplate) {
+    public LastFmService(RestTemplate restTemplate, LastFmResponseCache responseCache, ObjectMapper objectMapper,
+                         RetryScheduler retryScheduler) {
         this.restTemplate = restTemplate;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * Calls a Last.fm method through the two-tier response cache and binds the
+     * body to the given typed view (see {@link LastFmJson}). Throttled or failed
+     * calls are retried by {@link RetryScheduler}; if they still fail the cache
+     * answers with its expired copy when it has one.
+     *
+     * @param query URL-encoded parameters without api_key/format; together with
+     *              the method it forms the cache key
+     * @return the decoded body, or null if Last.fm returned nothing
+     */
+    private <T> T callLastFm(String method, String query, Class<T> type) throws IOException {
+        String body = responseCache.get(method, query, () -> {
+            String url = baseUrl + "?method=" + method + "&" + query + "&api_key=" + apiKey + "&format=json";
+            return retryScheduler.call(Provider.LASTFM, method, () -> restTemplate.getForObject(url, String.class));
+        });
+        return body != null ? objectMapper.readValue(body, type) : null;
     }
 
     public List<String> getArtistGenres(String artistName) {
         try {
-            String url = baseUrl + "?method=artist.getInfo&artist=" +
-                    URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey + "&format=json";
-
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("artist")) {
-                    Map<String, Object> artist = (Map<String, Object>) body.get("artist");
-                    if (artist.containsKey("tags")) {
-                        Map<String, Object> tags = (Map<String, Object>) artist.get("tags");
-                        if (tags.containsKey("tag")) {
-                            List<Map<String, Object>> tagList = (List<Map<String, Object>>) tags.get("tag");
-                            return tagList.stream()
-                                    .map(tag -> (String) tag.get("name"))
-                                    .filter(Objects::nonNull)
-                                    .collect(Collectors.toList());
-                        }
-                    }
+            LastFmJson.ArtistInfoResponse body = callLastFm("artist.getInfo",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8), LastFmJson.ArtistInfoResponse.class);
+
+            if (body != null && body.artist() != null) {
+                LastFmJson.Tags tags = body.artist().tags();
+                if (tags != null && tags.tag() != null) {
+                    return tags.tag().stream()
+                            .map(LastFmJson.Named::name)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
                 }
             }
         } catch (Exception e) {
@@ -62,31 +83,31 @@ public class LastFmService {
     }
 
     public List<String> getSimilarArtists(String artistName, int limit) {
+        return new ArrayList<>(getSimilarArtistsWithMatch(artistName, limit).keySet());
+    }
+
+    /**
+     * Similar artists with their Last.fm match score (0..1), best match first.
+     */
+    public Map<String, Float> getSimilarArtistsWithMatch(String artistName, int limit) {
+        Map<String, Float> similar = new LinkedHashMap<>();
         try {
-            String url = baseUrl + "?method=artist.getSimilar&artist=" +
-                    URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey + "&format=json&limit=" + limit;
-
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("similarartists")) {
-                    Map<String, Object> similarArtists = (Map<String, Object>) body.get("similarartists");
-                    if (similarArtists.containsKey("artist")) {
-                        List<Map<String, Object>> artistList = (List<Map<String, Object>>) similarArtists.get("artist");
-                        return artistList.stream()
-                                .map(artist -> (String) artist.get("name"))
-                                .filter(Objects::nonNull)
-                                .limit(limit)
-                                .collect(Collectors.toList());
+            LastFmJson.SimilarArtistsResponse body = callLastFm("artist.getSimilar",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) + "&limit=" + limit,
+                    LastFmJson.SimilarArtistsResponse.class);
+
+            if (body != null && body.similarArtists() != null && body.similarArtists().artist() != null) {
+                for (LastFmJson.SimilarArtist artist : body.similarArtists().artist()) {
+                    if (similar.size() >= limit) break;
+                    if (artist.name() != null) {
+                        similar.putIfAbsent(artist.name(), artist.match() != null ? artist.match() : 0.0f);
                     }
                 }
             }
         } catch (Exception e) {
             System.out.println("❌ Error getting similar artists for " + artistName + ": " + e.getMessage());
         }
-        return Collections.emptyList();
+        return similar;
     }
 
 
@@ -98,61 +119,36 @@ public class LastFmService {
                 return Collections.emptyList();
             }
             
-            String url = baseUrl + "?method=artist.getTopTracks&artist=" +
-                    URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey + "&format=json&limit=" + limit;
-
             System.out.println("🎶 Fetching Last.fm tracks for: " + artistName);
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("toptracks")) {
-                    Map<String, Object> topTracks = (Map<String, Object>) body.get("toptracks");
-                    if (topTracks.containsKey("track")) {
-                        List<Map<String, Object>> trackList = (List<Map<String, Object>>) topTracks.get("track");
-
-                        System.out.println("✅ Found " + trackList.size() + " tracks for " + artistName);
-
-                        return trackList.stream().map(trackMap -> {
-                            Track track = new Track();
-
-                            // Name
-                            track.setName((String) trackMap.get("name"));
-
-                            // Artist (normalize into both fields)
-                            if (trackMap.containsKey("artist")) {
-                                Map<String, Object> artist = (Map<String, Object>) trackMap.get("artist");
-                                if (artist.containsKey("name")) {
-                                    String aName = (String) artist.get("name");
-                                    track.setArtistName(aName);
-                                    track.setArtists(Collections.singletonList(aName)); // ✅ key fix
-                                }
-                            }
-
-                            // Album image (fallback to medium size)
-                            if (trackMap.containsKey("image")) {
-                                List<Map<String, Object>> images = (List<Map<String, Object>>) trackMap.get("image");
-                                if (images != null) {
-                                    for (Map<String, Object> image : images) {
-                                        if ("medium".equals(image.get("size")) && image.containsKey("#text")) {
-                                            String imageUrl = (String) image.get("#text");
-                                            if (imageUrl != null && !imageUrl.isEmpty()) {
-                                                track.setImageUrl(imageUrl);
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-
-                            System.out.println("➡ Track: " + track.getName() + " by " + track.getArtists());
-                            return track;
-                        }).limit(limit).collect(Collectors.toList());
+            LastFmJson.TopTracksResponse body = callLastFm("artist.getTopTracks",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) + "&limit=" + limit,
+                    LastFmJson.TopTracksResponse.class);
+
+            if (body != null && body.topTracks() != null && body.topTracks().track() != null) {
+                List<LastFmJson.LastFmTrack> trackList = body.topTracks().track();
+
+                System.out.println("✅ Found " + trackList.size() + " tracks for " + artistName);
+
+                return trackList.stream().map(item -> {
+                    Track track = new Track();
+
+                    // Name
+                    track.setName(item.name());
+
+                    // Artist (normalize into both fields)
+                    String aName = item.artistName();
+                    if (aName != null) {
+                        track.setArtistName(aName);
+                        track.setArtists(Collections.singletonList(aName)); // ✅ key fix
                     }
-                }
-            } else {
-                System.out.println("⚠️ Last.fm API error: " + response.getStatusCode());
+
+                    // Album image (fallback to medium size)
+                    track.setImageUrl(item.mediumImageUrl());
+                    track.setTrackKey(TrackKey.of(track));
+
+                    System.out.println("➡ Track: " + track.getName() + " by " + track.getArtists());
+                    return track;
+                }).limit(limit).collect(Collectors.toList());
             }
         } catch (Exception e) {
             System.out.println("❌ Error getting top tracks for " + artistName + ": " + e.getMessage());
@@ -163,76 +159,41 @@ public class LastFmService {
     // Similar tracks 
     public List<Track> getSimilarTracks(String trackName, String artistName, int limit) {
         try {
-            String url = baseUrl + "?method=track.getSimilar" +
-                    "&artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
+            LastFmJson.SimilarTracksResponse body = callLastFm("track.getSimilar",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
                     "&track=" + URLEncoder.encode(trackName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey +
-                    "&format=json&limit=" + (limit + 20); // Get extra for obscurity filtering
-
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("similartracks")) {
-                    Map<String, Object> similarTracks = (Map<String, Object>) body.get("similartracks");
-                    if (similarTracks.containsKey("track")) {
-                        List<Map<String, Object>> trackList =
-                                (List<Map<String, Object>>) similarTracks.get("track");
-
-                        List<Track> allTracks = trackList.stream().map(trackMap -> {
-                            Track track = new Track();
-                            track.setName((String) trackMap.get("name"));
-                            track.setSeedTrackName(trackName);
-                            track.setSeedArtistName(artistName);
-
-                            // Get match score for vibe matching
-                            if (trackMap.containsKey("match")) {
-                                Number match = (Number) trackMap.get("match");
-                                track.setMatchScore(match != null ? match.floatValue() : 0.0f);
-                            } else {
-                                track.setMatchScore(0.0f);
-                            }
-
-                            // Artist info
-                            if (trackMap.containsKey("artist")) {
-                                Map<String, Object> artist = (Map<String, Object>) trackMap.get("artist");
-                                if (artist.containsKey("name")) {
-                                    String aName = (String) artist.get("name");
-                                    track.setArtistName(aName);
-                                    track.setArtists(Collections.singletonList(aName));
-                                }
-                            }
-
-                            // Duration
-                            if (trackMap.containsKey("duration")) {
-                                Number duration = (Number) trackMap.get("duration");
-                                track.setDurationMs(duration != null ? duration.intValue() * 1000 : 180000);
-                            } else {
-                                track.setDurationMs(180000);
-                            }
-
-                            // Album image
-                            if (trackMap.containsKey("image")) {
-                                List<Map<String, Object>> images =
-                                        (List<Map<String, Object>>) trackMap.get("image");
-                                for (Map<String, Object> image : images) {
-                                    if ("medium".equals(image.get("size"))) {
-                                        String imageUrl = (String) image.get("#text");
-                                        if (imageUrl != null && !imageUrl.isEmpty()) {
-                                            track.setImageUrl(imageUrl);
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-
-                            return track;
-                        }).collect(Collectors.toList());
-
-                        // Filter for obscure artists and good matches
-                        return filterForObscureArtists(allTracks, limit);
+                    "&limit=" + (limit + 20), // Get extra for obscurity filtering
+                    LastFmJson.SimilarTracksResponse.class);
+
+            if (body != null && body.similarTracks() != null && body.similarTracks().track() != null) {
+                List<Track> allTracks = body.similarTracks().track().stream().map(item -> {
+                    Track track = new Track();
+                    track.setName(item.name());
+                    track.setSeedTrackName(trackName);
+                    track.setSeedArtistName(artistName);
+
+                    // Get match score for vibe matching
+                    track.setMatchScore(item.match() != null ? item.match() : 0.0f);
+
+                    // Artist info
+                    String aName = item.artistName();
+                    if (aName != null) {
+                        track.setArtistName(aName);
+                        track.setArtists(Collections.singletonList(aName));
                     }
-                }
+
+                    // Duration (0 = unknown, see getTrackDurationMs)
+                    track.setDurationMs(item.duration() != null && item.duration() > 0 ? item.duration() * 1000 : 0);
+
+                    // Album image
+                    track.setImageUrl(item.mediumImageUrl());
+                    track.setTrackKey(TrackKey.of(track));
+
+                    return track;
+                }).collect(Collectors.toList());
+
+                // Filter for obscure artists and good matches
+                return filterForObscureArtists(allTracks, limit);
             }
         } catch (Exception e) {
             System.out.println("❌ Error getting similar tracks for " + trackName + " by " + artistName + ": " + e.getMessage());
@@ -240,6 +201,30 @@ public class LastFmService {
         return Collections.emptyList();
     }
 
+    /**
+     * Length of a track from Last.fm track.getInfo (cached like every Last.fm call).
+     *
+     * @return the duration in ms, or 0 if Last.fm does not know it
+     */
+    public int getTrackDurationMs(String trackName, String artistName) {
+        if (trackName == null || artistName == null) {
+            return 0;
+        }
+        try {
+            LastFmJson.TrackInfoResponse body = callLastFm("track.getInfo",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
+                    "&track=" + URLEncoder.encode(trackName, StandardCharsets.UTF_8) +
+                    "&autocorrect=1",
+                    LastFmJson.TrackInfoResponse.class);
+            if (body != null && body.track() != null && body.track().duration() != null) {
+                return (int) Math.max(0, body.track().duration());
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Error getting duration for " + trackName + " by " + artistName + ": " + e.getMessage());
+        }
+        return 0;
+    }
+
     private List<Track> filterForObscureArtists(List<Track> tracks, int limit) {
         List<Track> obscureTracks = new ArrayList<>();
         
@@ -260,48 +245,25 @@ public class LastFmService {
     public boolean isArtistObscure(String artistName) {
         try {
             // Use Last.fm artist.getInfo to check listener count and popularity
-            String url = baseUrl + "?method=artist.getInfo" +
-                    "&artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8) +
-                    "&api_key=" + apiKey +
-                    "&format=json";
-
-            ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
+            // (same cached response as getArtistGenres)
+            LastFmJson.ArtistInfoResponse body = callLastFm("artist.getInfo",
+                    "artist=" + URLEncoder.encode(artistName, StandardCharsets.UTF_8), LastFmJson.ArtistInfoResponse.class);
             
-            if (response.getStatusCode().is2xxSuccessful()) {
-                Map<String, Object> body = response.getBody();
-                if (body != null && body.containsKey("artist")) {
-                    Map<String, Object> artistInfo = (Map<String, Object>) body.get("artist");
-                    
-                    // Check listener count - artists with less than 500,000 listeners are considered obscure
-                    if (artistInfo.containsKey("stats")) {
-                        Map<String, Object> stats = (Map<String, Object>) artistInfo.get("stats");
-                        if (stats.containsKey("listeners")) {
-                            String listenerCountStr = (String) stats.get("listeners");
-                            try {
-                                int listenerCount = Integer.parseInt(listenerCountStr);
-                                // Consider artists with less than 500,000 listeners as obscure
-                                boolean isObscure = listenerCount < 500000;
-                                System.out.println("🎵 Artist: " + artistName + " - Listeners: " + listenerCount + " - Obscure: " + isObscure);
-                                return isObscure;
-                            } catch (NumberFormatException e) {
-                                System.out.println("❌ Could not parse listener count for: " + artistName);
-                            }
-                        }
-                    }
-                    
-                    // Additional check: if playcount is very high, likely popular
-                    if (artistInfo.containsKey("stats") && ((Map<String, Object>) artistInfo.get("stats")).containsKey("playcount")) {
-                        String playCountStr = (String) ((Map<String, Object>) artistInfo.get("stats")).get("playcount");
-                        try {
-                            long playCount = Long.parseLong(playCountStr);
-                            if (playCount > 10000000) { // More than 10 million plays
-                                System.out.println("❌ High playcount artist: " + artistName + " - Plays: " + playCount);
-                                return false;
-                            }
-                        } catch (NumberFormatException e) {
-                            // Continue to other checks
-                        }
-                    }
+            if (body != null && body.artist() != null && body.artist().stats() != null) {
+                LastFmJson.Stats stats = body.artist().stats();
+                
+                // Check listener count - artists with less than 500,000 listeners are considered obscure
+                if (stats.listeners() != null) {
+                    long listenerCount = stats.listeners();
+                    boolean isObscure = listenerCount < 500000;
+                    System.out.println("🎵 Artist: " + artistName + " - Listeners: " + listenerCount + " - Obscure: " + isObscure);
+                    return isObscure;
+                }
+                
+                // Additional check: if playcount is very high, likely popular
+                if (stats.playcount() != null && stats.playcount() > 10000000) { // More than 10 million plays
+                    System.out.println("❌ High playcount artist: " + artistName + " - Plays: " + stats.playcount());
+                    return false;
                 }
             }
         } catch (Exception e) {
@@ -315,8 +277,13 @@ public class LastFmService {
 
 
     public boolean artistMatchesWorkout(String artistName, String workout) {
-        List<String> genres = getArtistGenres(artistName);
+        return genresMatchWorkout(getArtistGenres(artistName), workout);
+    }
 
+    /**
+     * Same check as {@link #artistMatchesWorkout} for genres already looked up.
+     */
+    public boolean genresMatchWorkout(List<String> genres, String workout) {
         Map<String, List<String>> workoutGenres = Map.of(
                 "cardio", Arrays.asList("electronic", "dance", "pop", "hip hop", "edm", "house", "techno", "trance"),
                 "strength", Arrays.asList("rock", "metal", "hard rock", "punk", "alternative", "industrial"),
@@ -325,7 +292,7 @@ public class LastFmService {
         );
 
         List<String> targetGenres = workoutGenres.getOrDefault(
-                workout.toLowerCase(),
+                workout != null ? workout.toLowerCase() : "",
                 Arrays.asList("pop", "electronic", "dance")
         );
 
@@ -15,16 +15,20 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.exceptions.ProviderUnavailableException;
 
 @Service
 public class MusicBrainzService {
     private static final String API_URL = "https://musicbrainz.org/ws/2/";
     private final RestTemplate restTemplate;
     private final DeezerService deezerService;
+    private final LastFmService lastFmService;
 
-    public MusicBrainzService(RestTemplateBuilder restTemplateBuilder, DeezerService deezerService) {
+    public MusicBrainzService(RestTemplateBuilder restTemplateBuilder, DeezerService deezerService,
+                              LastFmService lastFmService) {
         this.restTemplate = restTemplateBuilder.build();
         this.deezerService = deezerService;
+        this.lastFmService = lastFmService;
     }
 
     public List<Track> getObscureSimilarTracks(String trackName, String artistName, int maxPopularity) {
@@ -102,6 +106,9 @@ public class MusicBrainzService {
                     .limit(3)
                     .collect(Collectors.toList());
 
+        } catch (ProviderUnavailableException e) {
+            // MusicBrainz circuit open: Last.fm's similar tracks stand in
+            return lastFmService.getSimilarTracks(trackName, artistName, 3);
         } catch (Exception e) {
             System.err.println("Error getting MusicBrainz data for " + trackName + ": " + e.getMessage());
             return Collections.emptyList();
@@ -265,6 +272,9 @@ public class MusicBrainzService {
                     .limit(10)
                     .collect(Collectors.toList());
 
+        } catch (ProviderUnavailableException e) {
+            // MusicBrainz circuit open: fall back to the artist's Last.fm top tracks
+            return lastFmService.getArtistTopTracks(artistName, 10);
         } catch (Exception e) {
             System.out.println("Error getting MusicBrainz obscure tracks: " + e.getMessage());
             return Collections.emptyList();
@@ -0,0 +1,304 @@
+package ca.sheridancollege.jamsy.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.repositories.SongActionRepository;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Write-behind persistence for swipe events (SongAction rows).
+ *
+ * record() appends the event to a local journal (an H2 MVStore file,
+ * committed before returning, so it survives a process crash) and queues
+ * it; the swipe is acknowledged right away. A single writer thread collects
+ * events for up to swipes.write-behind.flush-interval-ms after the first one
+ * (or until batch-size are waiting) and saves each batch in one transaction
+ * with JDBC batching (hibernate.jdbc.batch_size). Journal entries are
+ * removed once their batch is committed. Entries left in the journal by a
+ * crash or a failed flush are replayed at startup; only entries written
+ * before this process opened the journal are replayed, so swipes accepted
+ * while the replay runs are not inserted twice.
+ *
+ * When a batch fails, its rows are saved one at a time. A row the database
+ * rejects (e.g. a value over its column length) is moved to the
+ * "dead-letter" map of the journal file and logged, so it cannot block the
+ * swipes behind it. Only failures that look like the database being
+ * unavailable keep the batch queued for a retry.
+ *
+ * Reads through SongActionRepository see an event once its batch has been
+ * flushed, i.e. after at most flush-interval-ms under normal load. The
+ * user's SwipeHistory filters are updated immediately.
+ */
+@Service
+public class SongActionWriter {
+
+    private record Pending(long journalKey, SongAction action) {}
+
+    private final SongActionRepository songActionRepo;
+    private final SwipeHistory swipeHistory;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Pending> queue;
+    private final MVStore store;
+    private final MVMap<Long, String> journal;
+    private final MVMap<Long, String> deadLetters;
+    private final AtomicLong nextKey;
+    // Journal keys below this were written by an earlier process and are replayed
+    private final long replayBefore;
+    private final Counter deadLettered;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Value("${swipes.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${swipes.write-behind.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${swipes.write-behind.retry-ms:2000}")
+    private long retryMs;
+
+    public SongActionWriter(SongActionRepository songActionRepo, SwipeHistory swipeHistory,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${swipes.write-behind.queue-size:10000}") int queueSize,
+                            @Value("${swipes.journal.file:./data/swipe-journal.mv.db}") String file) throws IOException {
+        this.songActionRepo = songActionRepo;
+        this.swipeHistory = swipeHistory;
+        this.objectMapper = objectMapper;
+        this.queue = new LinkedBlockingQueue<>(queueSize);
+
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).autoCommitDisabled().open();
+        this.journal = store.openMap("events");
+        this.deadLetters = store.openMap("dead-letter");
+        Long lastKey = journal.lastKey();
+        this.replayBefore = lastKey != null ? lastKey + 1 : 0;
+        // Dead letters keep their journal key, so new keys must not reuse one even once the journal drained
+        Long lastDeadLetter = deadLetters.lastKey();
+        this.nextKey = new AtomicLong(lastDeadLetter != null ? Math.max(replayBefore, lastDeadLetter + 1) : replayBefore);
+        System.out.println("💾 Swipe journal opened at " + path + " with " + journal.size() + " unflushed events");
+
+        Gauge.builder("jamsy.swipes.pending", queue, BlockingQueue::size)
+                .description("Swipe events acknowledged but not yet written to the database")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("jamsy.swipes.dead-lettered")
+                .description("Swipe events the database rejected, kept in the journal's dead-letter map")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accept a swipe event. Returns once the event is in the journal; the
+     * database write happens in the background. Only blocks when the queue
+     * is full, i.e. the database has fallen behind by queue-size events.
+     */
+    public void record(SongAction action) {
+        // Stamped at acknowledgement, not at flush, so recency order matches swipe order
+        if (action.getCreatedAt() == null) {
+            action.setCreatedAt(Instant.now());
+        }
+
+        String encoded;
+        try {
+            encoded = objectMapper.writeValueAsString(action);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot journal song action", e);
+        }
+
+        long key = nextKey.getAndIncrement();
+        synchronized (store) {
+            journal.put(key, encoded);
+            store.commit();
+        }
+        swipeHistory.record(action);
+
+        try {
+            queue.put(new Pending(key, action));
+        } catch (InterruptedException e) {
+            // Still in the journal; replayed at the next startup
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        replayJournal();
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("song-action-writer").start(this::drainLoop);
+    }
+
+    private void replayJournal() {
+        if (journal.isEmpty()) return;
+
+        List<Pending> batch = new ArrayList<>();
+        int replayed = 0;
+        for (Map.Entry<Long, String> entry : journal.entrySet()) {
+            // Keys are ascending; later ones were recorded by this process and are already queued
+            if (entry.getKey() >= replayBefore) break;
+            try {
+                SongAction action = objectMapper.readValue(entry.getValue(), SongAction.class);
+                if (action.getCreatedAt() == null) {
+                    action.setCreatedAt(Instant.now());
+                }
+                // The filters may not have been stored before the crash; recording twice is harmless
+                swipeHistory.record(action);
+                batch.add(new Pending(entry.getKey(), action));
+            } catch (JsonProcessingException e) {
+                System.out.println("⚠️ Dropping unreadable swipe journal entry " + entry.getKey());
+                removeFromJournal(List.of(new Pending(entry.getKey(), null)));
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                if (!flush(batch)) return;
+                replayed += batch.size();
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty() && flush(batch)) {
+            replayed += batch.size();
+        }
+        System.out.println("🔁 Replayed " + replayed + " swipe events from the journal");
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Linger up to flush-interval-ms after the first event so bursts share one batch
+                long lingerUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = lingerUntil - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                while (!flush(batch) && running) {
+                    TimeUnit.MILLISECONDS.sleep(retryMs);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Save one batch in a single transaction and drop it from the journal.
+     * If the batch fails, its rows are saved one by one and rejected rows are dead-lettered.
+     *
+     * @return false if the database is unavailable (the unsaved events stay journaled)
+     */
+    private boolean flush(List<Pending> batch) {
+        List<SongAction> actions = batch.stream().map(Pending::action).toList();
+        try {
+            songActionRepo.saveAll(actions);
+        } catch (Exception e) {
+            // IDs assigned in the rolled-back transaction must not be reused
+            actions.forEach(action -> action.setId(null));
+            if (isUnavailable(e)) {
+                System.out.println("❌ Failed to write " + actions.size() + " swipe events, will retry: " + e.getMessage());
+                return false;
+            }
+            System.out.println("⚠️ Batch of " + actions.size() + " swipe events rejected, saving one by one: " + e.getMessage());
+            return flushOneByOne(batch);
+        }
+        removeFromJournal(batch);
+        return true;
+    }
+
+    private boolean flushOneByOne(List<Pending> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            try {
+                songActionRepo.save(pending.action());
+            } catch (Exception e) {
+                pending.action().setId(null);
+                if (isUnavailable(e)) {
+                    // What was saved so far leaves the journal; the rest is retried
+                    removeFromJournal(batch.subList(0, i));
+                    batch.subList(0, i).clear();
+                    System.out.println("❌ Database unavailable while writing swipe events, will retry: " + e.getMessage());
+                    return false;
+                }
+                deadLetter(pending, e);
+            }
+        }
+        removeFromJournal(batch);
+        return true;
+    }
+
+    private void deadLetter(Pending pending, Exception e) {
+        System.out.println("☠️ Dead-lettering swipe event " + pending.journalKey() + ": " + e.getMessage());
+        synchronized (store) {
+            deadLetters.put(pending.journalKey(), journal.get(pending.journalKey()));
+        }
+        deadLettered.increment();
+    }
+
+    // Connection loss and timeouts are retried; anything else means the row itself is bad
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    private void removeFromJournal(List<Pending> batch) {
+        synchronized (store) {
+            for (Pending pending : batch) {
+                journal.remove(pending.journalKey());
+            }
+            store.commit();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // The writer drains what is queued and exits; anything it cannot write stays journaled
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("💾 Closing swipe journal with " + journal.size() + " unflushed events");
+        store.close();
+    }
+}
@@ -0,0 +1,238 @@
+package ca.sheridancollege.jamsy.services.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Two-tier cache for raw Last.fm JSON responses.
+ *
+ * L1 is an in-heap Caffeine cache, L2 is an H2 MVStore file on disk, so the
+ * cache survives restarts. Each Last.fm method has its own TTL
+ * (lastfm.cache.ttl-hours.<method>). After the TTL an entry is still served
+ * for lastfm.cache.stale-window-hours while a background refresh replaces it,
+ * and it is also served if Last.fm cannot be reached.
+ *
+ * Last.fm reports errors (e.g. {"error":6,...}) with HTTP 200; such bodies
+ * are returned to the caller but never cached. Every
+ * lastfm.cache.sweep-minutes the disk map is swept: entries past their TTL
+ * and stale window are removed, then the oldest ones if more than
+ * lastfm.cache.l2-max-entries remain.
+ */
+@Component
+public class LastFmResponseCache {
+
+    private static final long DEFAULT_TTL_HOURS = 24;
+
+    private final Environment environment;
+    private final ExecutorService refreshExecutor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Cache<String, String> memory;
+    private final MVStore store;
+    private final MVMap<String, String> disk;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService sweeper;
+    private final long maxDiskEntries;
+
+    @Value("${lastfm.cache.stale-window-hours:24}")
+    private long staleWindowHours;
+
+    public LastFmResponseCache(Environment environment,
+                               MeterRegistry meterRegistry,
+                               ObjectMapper objectMapper,
+                               @Qualifier("outboundExecutor") ExecutorService refreshExecutor,
+                               @Value("${lastfm.cache.file:./data/lastfm-cache.mv.db}") String file,
+                               @Value("${lastfm.cache.l1-max-entries:10000}") long maxEntries,
+                               @Value("${lastfm.cache.l2-max-entries:200000}") long maxDiskEntries,
+                               @Value("${lastfm.cache.sweep-minutes:60}") long sweepMinutes) throws IOException {
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.maxDiskEntries = maxDiskEntries;
+        this.refreshExecutor = refreshExecutor;
+        this.memory = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "lastfmResponses");
+
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).compress().open();
+        this.disk = store.openMap("responses");
+        System.out.println("💾 Last.fm cache opened at " + path + " with " + disk.size() + " entries");
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("lastfm-cache-sweeper").factory());
+        sweeper.scheduleWithFixedDelay(this::sweepSafely, sweepMinutes, sweepMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Return the cached response for {@code method} + {@code query}, calling
+     * {@code loader} only when there is no usable entry.
+     *
+     * @param method Last.fm method name, selects the TTL (e.g. artist.getInfo)
+     * @param query  request parameters without the API key
+     * @param loader fetches the raw response body from Last.fm
+     */
+    public String get(String method, String query, Supplier<String> loader) {
+        String key = method + "?" + query;
+        String encoded = memory.getIfPresent(key);
+        if (encoded == null) {
+            encoded = disk.get(key);
+            if (encoded != null) {
+                memory.put(key, encoded);
+            }
+        }
+
+        if (encoded != null) {
+            long ageMs = System.currentTimeMillis() - fetchedAt(encoded);
+            long ttlMs = TimeUnit.HOURS.toMillis(ttlHours(method));
+            if (ageMs < ttlMs) {
+                return body(encoded);
+            }
+            if (ageMs < ttlMs + TimeUnit.HOURS.toMillis(staleWindowHours)) {
+                refreshInBackground(key, loader);
+                return body(encoded);
+            }
+        }
+
+        try {
+            return load(key, loader);
+        } catch (RuntimeException e) {
+            if (encoded != null) {
+                System.out.println("⚠️ Last.fm unavailable, serving expired cache for " + key);
+                return body(encoded);
+            }
+            throw e;
+        }
+    }
+
+    private String load(String key, Supplier<String> loader) {
+        String body = loader.get();
+        if (body != null && isCacheable(body)) {
+            String encoded = System.currentTimeMillis() + "\n" + body;
+            memory.put(key, encoded);
+            disk.put(key, encoded);
+        }
+        return body;
+    }
+
+    private void refreshInBackground(String key, Supplier<String> loader) {
+        if (!refreshing.add(key)) return;
+        refreshExecutor.execute(() -> {
+            try {
+                load(key, loader);
+            } catch (Exception e) {
+                System.out.println("⚠️ Background refresh failed for " + key + ": " + e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    // Only well-formed JSON without Last.fm's "error" field is worth keeping
+    private boolean isCacheable(String body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            return root != null && root.isObject() && !root.has("error");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            System.out.println("⚠️ Last.fm cache sweep failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop disk entries that can no longer be served fresh or stale, then
+     * the oldest ones above the size cap.
+     *
+     * @return number of entries removed
+     */
+    int sweep() {
+        long now = System.currentTimeMillis();
+        long staleMs = TimeUnit.HOURS.toMillis(staleWindowHours);
+        int removed = 0;
+        List<Map.Entry<String, Long>> kept = new ArrayList<>();
+        for (Map.Entry<String, String> entry : disk.entrySet()) {
+            String key = entry.getKey();
+            long fetchedAt = fetchedAt(entry.getValue());
+            long ttlMs = TimeUnit.HOURS.toMillis(ttlHours(key.substring(0, key.indexOf('?'))));
+            if (now - fetchedAt >= ttlMs + staleMs) {
+                remove(key);
+                removed++;
+            } else {
+                kept.add(Map.entry(key, fetchedAt));
+            }
+        }
+
+        if (kept.size() > maxDiskEntries) {
+            kept.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+            for (Map.Entry<String, Long> entry : kept.subList(0, (int) (kept.size() - maxDiskEntries))) {
+                remove(entry.getKey());
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            System.out.println("🧹 Swept " + removed + " Last.fm cache entries, " + disk.size() + " left");
+        }
+        return removed;
+    }
+
+    private void remove(String key) {
+        disk.remove(key);
+        memory.invalidate(key);
+    }
+
+    private long ttlHours(String method) {
+        return environment.getProperty("lastfm.cache.ttl-hours." + method, Long.class, DEFAULT_TTL_HOURS);
+    }
+
+    // Entries are stored as "<fetchedAtMillis>\n<body>" so the file holds plain strings only
+    private static long fetchedAt(String encoded) {
+        return Long.parseLong(encoded.substring(0, encoded.indexOf('\n')));
+    }
+
+    private static String body(String encoded) {
+        return encoded.substring(encoded.indexOf('\n') + 1);
+    }
+
+    @PreDestroy
+    public void close() {
+        sweeper.shutdownNow();
+        System.out.println("💾 Closing Last.fm cache: " + memory.stats());
+        store.close();
+    }
+}
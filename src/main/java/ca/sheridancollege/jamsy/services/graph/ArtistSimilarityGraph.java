@@ -0,0 +1,263 @@
+package ca.sheridancollege.jamsy.services.graph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ca.sheridancollege.jamsy.services.LastFmService;
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Local artist-similarity graph built from Last.fm artist.getSimilar.
+ *
+ * Artists are interned to int IDs; each artist's neighbours are kept as a
+ * pair of parallel int[]/float[] arrays (target ID, match score), best match
+ * first. The graph fills up as artists are looked up and is mirrored to an
+ * H2 MVStore file so it survives restarts. Discovery walks it in memory;
+ * only seeds whose neighbourhood is missing or older than
+ * discovery.graph.refresh-days trigger a Last.fm call.
+ */
+@Component
+public class ArtistSimilarityGraph {
+
+    // Neighbours stored per artist; walks can ask for fewer
+    private static final int FETCH_LIMIT = 50;
+
+    private final LastFmService lastFmService;
+    private final ParallelFetcher parallelFetcher;
+    private final ExecutorService fillExecutor;
+    private final Semaphore backgroundFills;
+
+    private final MVStore store;
+    // id -> display name, and id -> [fetchedAtSeconds, target0, floatBits(weight0), target1, ...]
+    private final MVMap<Integer, String> storedNames;
+    private final MVMap<Integer, int[]> storedEdges;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private final Map<Integer, Edges> adjacency = new ConcurrentHashMap<>();
+    private final Set<Integer> filling = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    @Value("${discovery.graph.refresh-days:30}")
+    private long refreshDays;
+
+    @Value("${discovery.graph.min-score:0.05}")
+    private double minScore;
+
+    private record Edges(int[] targets, float[] weights, long fetchedAtSeconds) {}
+
+    private record Visit(int id, double score, int depth) {}
+
+    public ArtistSimilarityGraph(LastFmService lastFmService,
+                                 ParallelFetcher parallelFetcher,
+                                 @Qualifier("outboundExecutor") ExecutorService fillExecutor,
+                                 @Value("${discovery.graph.file:./data/artist-graph.mv.db}") String file,
+                                 @Value("${discovery.graph.max-background-fills:4}") int maxBackgroundFills) throws IOException {
+        this.lastFmService = lastFmService;
+        this.parallelFetcher = parallelFetcher;
+        this.fillExecutor = fillExecutor;
+        this.backgroundFills = new Semaphore(maxBackgroundFills);
+
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).compress().open();
+        this.storedNames = store.openMap("names");
+        this.storedEdges = store.openMap("edges");
+
+        int maxId = -1;
+        for (Map.Entry<Integer, String> entry : storedNames.entrySet()) {
+            names.put(entry.getKey(), entry.getValue());
+            ids.put(normalize(entry.getValue()), entry.getKey());
+            maxId = Math.max(maxId, entry.getKey());
+        }
+        nextId.set(maxId + 1);
+        for (Map.Entry<Integer, int[]> entry : storedEdges.entrySet()) {
+            adjacency.put(entry.getKey(), decode(entry.getValue()));
+        }
+        System.out.println("🕸️ Artist graph loaded from " + path + ": " + names.size() + " artists, "
+                + adjacency.size() + " with neighbours");
+    }
+
+    /**
+     * Direct neighbours of an artist, best match first. Fetches from Last.fm
+     * only if the artist has not been expanded yet (or its data is stale).
+     */
+    public Map<String, Float> neighbours(String artistName, int limit) {
+        Edges edges = ensureEdges(intern(artistName), artistName);
+        Map<String, Float> result = new LinkedHashMap<>();
+        if (edges != null) {
+            for (int i = 0; i < edges.targets().length && result.size() < limit; i++) {
+                result.put(names.get(edges.targets()[i]), edges.weights()[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Weighted, depth-bounded walk from the seeds. A candidate's score is the
+     * product of match scores along its best path; seeds themselves are never
+     * returned. Seed neighbourhoods are loaded in parallel (within the
+     * deadline); deeper levels use only what is already in the graph and queue
+     * missing artists for a background fill.
+     *
+     * @return up to {@code limit} artist names, highest score first
+     */
+    public List<String> walk(Collection<String> seeds, int maxDepth, int limit, long deadlineNanos) {
+        Map<String, Integer> seedIds = new LinkedHashMap<>();
+        for (String seed : seeds) {
+            if (seed != null && !seed.isBlank()) {
+                seedIds.putIfAbsent(seed, intern(seed));
+            }
+        }
+        parallelFetcher.fetchAll(seedIds.keySet(), seed -> ensureEdges(seedIds.get(seed), seed), deadlineNanos);
+
+        Set<Integer> seedSet = new HashSet<>(seedIds.values());
+        Map<Integer, Double> best = new HashMap<>();
+        Set<Integer> expanded = new HashSet<>();
+        PriorityQueue<Visit> queue = new PriorityQueue<>((a, b) -> Double.compare(b.score(), a.score()));
+        seedSet.forEach(id -> queue.add(new Visit(id, 1.0, 0)));
+
+        while (!queue.isEmpty()) {
+            Visit visit = queue.poll();
+            if (visit.depth() >= maxDepth || !expanded.add(visit.id())) continue;
+
+            Edges edges = adjacency.get(visit.id());
+            if (edges == null || isStale(edges)) {
+                fillInBackground(visit.id());
+            }
+            if (edges == null) continue;
+
+            for (int i = 0; i < edges.targets().length; i++) {
+                int target = edges.targets()[i];
+                double score = visit.score() * edges.weights()[i];
+                if (score < minScore || seedSet.contains(target)) continue;
+                if (score > best.getOrDefault(target, 0.0)) {
+                    best.put(target, score);
+                    queue.add(new Visit(target, score, visit.depth() + 1));
+                }
+            }
+        }
+
+        return best.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> names.get(entry.getKey()))
+                .toList();
+    }
+
+    public int artistCount() {
+        return names.size();
+    }
+
+    private Edges ensureEdges(int id, String artistName) {
+        Edges edges = adjacency.get(id);
+        if (edges != null && !isStale(edges)) {
+            return edges;
+        }
+
+        Map<String, Float> similar = lastFmService.getSimilarArtistsWithMatch(artistName, FETCH_LIMIT);
+        if (similar.isEmpty()) {
+            // Keep stale data rather than dropping a known neighbourhood on a failed call
+            return edges;
+        }
+
+        int[] targets = new int[similar.size()];
+        float[] weights = new float[similar.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : similar.entrySet()) {
+            targets[i] = intern(entry.getKey());
+            weights[i] = entry.getValue();
+            i++;
+        }
+        Edges fresh = new Edges(targets, weights, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        adjacency.put(id, fresh);
+        storedEdges.put(id, encode(fresh));
+        return fresh;
+    }
+
+    private void fillInBackground(int id) {
+        if (!filling.add(id)) return;
+        if (!backgroundFills.tryAcquire()) {
+            filling.remove(id);
+            return;
+        }
+        fillExecutor.execute(() -> {
+            try {
+                ensureEdges(id, names.get(id));
+            } catch (Exception e) {
+                System.out.println("⚠️ Graph fill failed for " + names.get(id) + ": " + e.getMessage());
+            } finally {
+                backgroundFills.release();
+                filling.remove(id);
+            }
+        });
+    }
+
+    private int intern(String artistName) {
+        return ids.computeIfAbsent(normalize(artistName), key -> {
+            int id = nextId.getAndIncrement();
+            names.put(id, artistName);
+            storedNames.put(id, artistName);
+            return id;
+        });
+    }
+
+    private boolean isStale(Edges edges) {
+        long ageSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - edges.fetchedAtSeconds();
+        return ageSeconds > TimeUnit.DAYS.toSeconds(refreshDays);
+    }
+
+    private static String normalize(String artistName) {
+        return artistName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] encode(Edges edges) {
+        int[] packed = new int[1 + edges.targets().length * 2];
+        packed[0] = (int) edges.fetchedAtSeconds();
+        for (int i = 0; i < edges.targets().length; i++) {
+            packed[1 + i * 2] = edges.targets()[i];
+            packed[2 + i * 2] = Float.floatToIntBits(edges.weights()[i]);
+        }
+        return packed;
+    }
+
+    private static Edges decode(int[] packed) {
+        int count = (packed.length - 1) / 2;
+        int[] targets = new int[count];
+        float[] weights = new float[count];
+        for (int i = 0; i < count; i++) {
+            targets[i] = packed[1 + i * 2];
+            weights[i] = Float.intBitsToFloat(packed[2 + i * 2]);
+        }
+        return new Edges(targets, weights, Integer.toUnsignedLong(packed[0]));
+    }
+
+    @PreDestroy
+    public void close() {
+        System.out.println("🕸️ Closing artist graph: " + names.size() + " artists, " + adjacency.size() + " expanded");
+        store.close();
+    }
+}
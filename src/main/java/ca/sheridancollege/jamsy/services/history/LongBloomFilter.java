@@ -0,0 +1,103 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Bloom filter over 64-bit keys that are already well mixed (TrackKey).
+ * The k bit positions come from enhanced double hashing of the key and a
+ * second, independently mixed hash of it (plain double hashing over the two
+ * 32-bit halves overshoots the target rate at small sizes and low rates),
+ * so put() and mightContain() allocate nothing. Bits are set with CAS, so
+ * concurrent puts and lookups need no lock.
+ */
+final class LongBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int hashes;
+
+    /**
+     * Sized for {@code expectedItems} keys at false-positive rate {@code fpp};
+     * the rate grows gradually once more keys are added.
+     */
+    LongBloomFilter(int expectedItems, double fpp) {
+        int n = Math.max(1, expectedItems);
+        long bits = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = wordCount * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    private LongBloomFilter(long[] words, int hashes) {
+        this.words = new AtomicLongArray(words);
+        this.numBits = words.length * 64L;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Inverse of {@link #toArray()}.
+     */
+    static LongBloomFilter fromArray(long[] stored) {
+        long[] words = new long[stored.length - 1];
+        System.arraycopy(stored, 1, words, 0, words.length);
+        return new LongBloomFilter(words, (int) stored[0]);
+    }
+
+    void put(long key) {
+        long h1 = key;
+        long h2 = secondHash(key);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1, numBits);
+            h1 += h2;
+            h2 += i;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(index);
+            while ((current & mask) == 0 && !words.compareAndSet(index, current, current | mask)) {
+                current = words.get(index);
+            }
+        }
+    }
+
+    boolean mightContain(long key) {
+        long h1 = key;
+        long h2 = secondHash(key);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1, numBits);
+            h1 += h2;
+            h2 += i;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // fmix64 of the re-seeded key; odd, so the probe sequence never stalls
+    private static long secondHash(long key) {
+        long hash = key ^ 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash | 1;
+    }
+
+    long sizeInBytes() {
+        return words.length() * 8L;
+    }
+
+    /**
+     * Snapshot for storage: [hashes, word0, word1, ...].
+     */
+    long[] toArray() {
+        long[] stored = new long[words.length() + 1];
+        stored[0] = hashes;
+        for (int i = 0; i < words.length(); i++) {
+            stored[i + 1] = words.get(i);
+        }
+        return stored;
+    }
+}
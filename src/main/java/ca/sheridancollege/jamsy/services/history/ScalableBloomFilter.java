@@ -0,0 +1,135 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import java.util.List;
+
+/*
+ * Bloom filter that grows with its content: a chain of LongBloomFilter
+ * stages, each GROWTH times the capacity of the one before and with half its
+ * false-positive rate, so the overall rate stays below fpp however many keys
+ * are added (fpp/2 + fpp/4 + ...). A user with a short history costs a few
+ * hundred bytes instead of a filter sized for the heaviest user.
+ *
+ * Lookups read a snapshot of the stage array and need no lock; put() must
+ * be called by one thread at a time (SwipeHistory synchronizes on the filter).
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH = 4;
+
+    private static final class Stage {
+        final LongBloomFilter filter;
+        final int capacity;
+        int count;
+
+        Stage(LongBloomFilter filter, int capacity, int count) {
+            this.filter = filter;
+            this.capacity = capacity;
+            this.count = count;
+        }
+    }
+
+    private final int initialCapacity;
+    private final double fpp;
+    private volatile Stage[] stages;
+    // First stage changed since the last takeDirtyStages(); stages.length when clean
+    private int dirtyFrom;
+
+    ScalableBloomFilter(int initialCapacity, double fpp) {
+        this(initialCapacity, fpp, new Stage[0]);
+    }
+
+    private ScalableBloomFilter(int initialCapacity, double fpp, Stage[] stages) {
+        this.initialCapacity = Math.max(1, initialCapacity);
+        this.fpp = fpp;
+        this.stages = stages;
+        this.dirtyFrom = stages.length;
+    }
+
+    /**
+     * Rebuild from stored stages, each in the form returned by {@link #stageArray(int)}.
+     */
+    static ScalableBloomFilter fromStages(int initialCapacity, double fpp, List<long[]> stored) {
+        Stage[] stages = new Stage[stored.size()];
+        for (int i = 0; i < stages.length; i++) {
+            long[] array = stored.get(i);
+            long[] filter = new long[array.length - 1];
+            System.arraycopy(array, 1, filter, 0, filter.length);
+            stages[i] = new Stage(LongBloomFilter.fromArray(filter), capacity(initialCapacity, i), (int) array[0]);
+        }
+        return new ScalableBloomFilter(initialCapacity, fpp, stages);
+    }
+
+    /**
+     * Add a key. Keys that already test positive are not added again, so
+     * repeats (e.g. journal replays) do not use up capacity.
+     */
+    void put(long key) {
+        if (mightContain(key)) return;
+
+        Stage[] current = stages;
+        Stage last = current.length > 0 ? current[current.length - 1] : null;
+        if (last == null || last.count >= last.capacity) {
+            int index = current.length;
+            int capacity = capacity(initialCapacity, index);
+            last = new Stage(new LongBloomFilter(capacity, fpp / (2L << index)), capacity, 0);
+            Stage[] grown = new Stage[index + 1];
+            System.arraycopy(current, 0, grown, 0, index);
+            grown[index] = last;
+            stages = grown;
+        }
+        last.filter.put(key);
+        last.count++;
+        dirtyFrom = Math.min(dirtyFrom, stages.length - 1);
+    }
+
+    boolean mightContain(long key) {
+        for (Stage stage : stages) {
+            if (stage.filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int stageCount() {
+        return stages.length;
+    }
+
+    /**
+     * Index of the first stage changed since the previous call (stageCount()
+     * if none), and marks everything clean.
+     */
+    int takeDirtyStages() {
+        int from = dirtyFrom;
+        dirtyFrom = stages.length;
+        return from;
+    }
+
+    /**
+     * Snapshot of one stage for storage: [count, hashes, word0, word1, ...].
+     */
+    long[] stageArray(int index) {
+        Stage stage = stages[index];
+        long[] filter = stage.filter.toArray();
+        long[] array = new long[filter.length + 1];
+        array[0] = stage.count;
+        System.arraycopy(filter, 0, array, 1, filter.length);
+        return array;
+    }
+
+    /**
+     * Heap used by the bit arrays, for sizing estimates.
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.filter.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static int capacity(int initialCapacity, int index) {
+        long capacity = (long) Math.max(1, initialCapacity) * (long) Math.pow(GROWTH, index);
+        return (int) Math.min(Integer.MAX_VALUE / 2, capacity);
+    }
+}
@@ -0,0 +1,215 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.beans.TrackKey;
+import ca.sheridancollege.jamsy.models.SongAction;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Per-user membership filters over everything the user has swiped:
+ * seen (any action), liked and skipped. Each is a Bloom filter of
+ * TrackKeys, by (name, artist) and by ISRC when known, so a check costs a
+ * few bit reads whatever the history size. A track reported as swiped may
+ * (rarely, below swipes.filter.fpp) not have been; one reported as not
+ * swiped never was. Unlikes do not clear the liked filter.
+ *
+ * Filters grow with the user's history (ScalableBloomFilter, starting at
+ * swipes.filter.initial-items keys) and are only created on a user's first
+ * swipe; users who never swiped share one empty instance. At about 11 bits
+ * per key, a user with 1000 swipes costs a few KB across the three filters.
+ *
+ * Filters are updated on every swipe (SongActionWriter.record) and stored
+ * in an H2 MVStore file, so they outlive the in-memory swipe table. Changed
+ * stages are written in batches every swipes.filter.flush-ms and on
+ * shutdown; after a crash the last interval is rebuilt from the swipe
+ * journal where it was still unflushed. Recently used users are kept in
+ * memory (swipes.filter.max-users).
+ */
+@Service
+public class SwipeHistory {
+
+    /**
+     * One user's filters. Lookups allocate nothing and are safe from any thread.
+     */
+    public static final class Filters {
+        private static final Filters EMPTY = new Filters(new ScalableBloomFilter(1, 1), new ScalableBloomFilter(1, 1),
+                new ScalableBloomFilter(1, 1));
+
+        private final ScalableBloomFilter seen;
+        private final ScalableBloomFilter liked;
+        private final ScalableBloomFilter skipped;
+
+        private Filters(ScalableBloomFilter seen, ScalableBloomFilter liked, ScalableBloomFilter skipped) {
+            this.seen = seen;
+            this.liked = liked;
+            this.skipped = skipped;
+        }
+
+        public boolean seen(Track track) {
+            return contains(seen, track);
+        }
+
+        public boolean liked(Track track) {
+            return contains(liked, track);
+        }
+
+        public boolean skipped(Track track) {
+            return contains(skipped, track);
+        }
+
+        private static boolean contains(ScalableBloomFilter filter, Track track) {
+            long isrcKey = TrackKey.ofIsrc(track.getIsrc());
+            if (isrcKey != 0 && filter.mightContain(isrcKey)) {
+                return true;
+            }
+            return filter.mightContain(track.getTrackKey());
+        }
+    }
+
+    private final MVStore store;
+    // "<userId>/<seen|liked|skipped>/<stage>" -> ScalableBloomFilter.stageArray(stage)
+    private final MVMap<String, long[]> stored;
+    private final Cache<String, Filters> users;
+    // "<userId>/<kind>" -> filter with stages not yet written
+    private final Map<String, ScalableBloomFilter> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final int initialItems;
+    private final double fpp;
+
+    public SwipeHistory(@Value("${swipes.filter.file:./data/swipe-filters.mv.db}") String file,
+                        @Value("${swipes.filter.max-users:10000}") long maxUsers,
+                        @Value("${swipes.filter.initial-items:256}") int initialItems,
+                        @Value("${swipes.filter.fpp:0.01}") double fpp,
+                        @Value("${swipes.filter.flush-ms:1000}") long flushMs) throws IOException {
+        this.initialItems = initialItems;
+        this.fpp = fpp;
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).open();
+        this.stored = store.openMap("filter-stages");
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("swipe-filter-flusher").factory());
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushMs, flushMs, TimeUnit.MILLISECONDS);
+        System.out.println("💾 Swipe filters opened at " + path + " with " + stored.size() + " filter stages");
+    }
+
+    /**
+     * The user's filters, empty for a user who never swiped. Nothing is
+     * allocated or cached for such a user.
+     */
+    public Filters forUser(String userId) {
+        Filters filters = users.getIfPresent(userId);
+        if (filters != null) {
+            return filters;
+        }
+        if (!hasStored(userId)) {
+            return Filters.EMPTY;
+        }
+        return users.get(userId, this::load);
+    }
+
+    /**
+     * Add one swipe to its user's filters. Idempotent, so journal replays may repeat it.
+     */
+    public void record(SongAction action) {
+        String userId = action.getUserId() != null ? action.getUserId() : SongAction.ANONYMOUS;
+        Filters filters = users.get(userId, this::load);
+        long nameKey = TrackKey.of(action.getSongName(), action.getArtist());
+        long isrcKey = TrackKey.ofIsrc(action.getIsrc());
+
+        add(userId, "seen", filters.seen, nameKey, isrcKey);
+        if ("like".equals(action.getAction())) {
+            add(userId, "liked", filters.liked, nameKey, isrcKey);
+        } else if ("skip".equals(action.getAction())) {
+            add(userId, "skipped", filters.skipped, nameKey, isrcKey);
+        }
+    }
+
+    private void add(String userId, String kind, ScalableBloomFilter filter, long nameKey, long isrcKey) {
+        // Lookups never lock; puts and snapshots for storage take turns
+        synchronized (filter) {
+            filter.put(nameKey);
+            if (isrcKey != 0) {
+                filter.put(isrcKey);
+            }
+        }
+        dirty.put(userId + "/" + kind, filter);
+    }
+
+    /**
+     * Write every filter changed since the last flush; only its changed stages are stored.
+     */
+    void flush() {
+        dirty.keySet().forEach(this::flush);
+    }
+
+    private void flush(String key) {
+        ScalableBloomFilter filter = dirty.remove(key);
+        if (filter == null) return;
+        synchronized (filter) {
+            for (int stage = filter.takeDirtyStages(); stage < filter.stageCount(); stage++) {
+                stored.put(key + "/" + stage, filter.stageArray(stage));
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not store swipe filters: " + e.getMessage());
+        }
+    }
+
+    // Every swipe lands in "seen", so its first stage exists once the user swiped
+    private boolean hasStored(String userId) {
+        return dirty.containsKey(userId + "/seen") || stored.containsKey(userId + "/seen/0");
+    }
+
+    private Filters load(String userId) {
+        // An evicted user may still have unwritten stages; store them before reading back
+        for (String kind : new String[] {"seen", "liked", "skipped"}) {
+            flush(userId + "/" + kind);
+        }
+        return new Filters(loadFilter(userId, "seen"), loadFilter(userId, "liked"), loadFilter(userId, "skipped"));
+    }
+
+    private ScalableBloomFilter loadFilter(String userId, String kind) {
+        List<long[]> stages = new ArrayList<>();
+        long[] stage;
+        while ((stage = stored.get(userId + "/" + kind + "/" + stages.size())) != null) {
+            stages.add(stage);
+        }
+        return ScalableBloomFilter.fromStages(initialItems, fpp, stages);
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdownNow();
+        flush();
+        store.close();
+    }
+}
@@ -0,0 +1,40 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+/*
+ * Fully read response. getBody() hands out a fresh stream over the same
+ * bytes each time, so one instance can be shared by several callers.
+ */
+record BufferedClientHttpResponse(HttpStatusCode statusCode, String statusText, HttpHeaders headers, byte[] content)
+        implements ClientHttpResponse {
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+        return statusText;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,148 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.function.BiConsumer;
+
+/*
+ * Count-based circuit breaker.
+ *
+ * CLOSED: calls go through and the outcome of the last windowSize calls is
+ * kept. Once at least minimumCalls are recorded and the failure rate reaches
+ * the threshold, the circuit opens. Slow calls count as failures.
+ * OPEN: calls are refused immediately until openNanos have passed.
+ * HALF_OPEN: up to halfOpenProbes calls are let through; if they all succeed
+ * the circuit closes with a fresh window, any failure opens it again.
+ *
+ * State changes are rare and the critical sections tiny, so a monitor is
+ * enough here.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final long slowCallNanos;
+    private final BiConsumer<State, State> onTransition;
+
+    private final boolean[] window;
+    private int windowPosition;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    /**
+     * @param failureRateThreshold fraction of failed calls (0-1) that opens the circuit
+     * @param onTransition         called with (from, to) on every state change
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openNanos,
+                          int halfOpenProbes, long slowCallNanos, BiConsumer<State, State> onTransition) {
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenProbes = halfOpenProbes;
+        this.slowCallNanos = slowCallNanos;
+        this.onTransition = onTransition;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Ask to make a call. When this returns true the caller must report the
+     * outcome through either onSuccess or onFailure.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * The call completed; it still counts as a failure if it took longer than the slow-call threshold.
+     */
+    public void onSuccess(long durationNanos) {
+        record(durationNanos > slowCallNanos);
+    }
+
+    public void onFailure() {
+        record(true);
+    }
+
+    private synchronized void record(boolean failed) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (probesInFlight > 0) probesInFlight--;
+                if (failed) {
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    resetWindow();
+                    transition(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                if (windowCount == windowSize && window[windowPosition]) {
+                    windowFailures--;
+                }
+                window[windowPosition] = failed;
+                windowPosition = (windowPosition + 1) % windowSize;
+                windowCount = Math.min(windowCount + 1, windowSize);
+                if (failed) windowFailures++;
+
+                if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Late result of a call started before the circuit opened
+            }
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (from != to) {
+            onTransition.accept(from, to);
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Failure rate over the current window, 0 while it is empty.
+     */
+    public synchronized double failureRate() {
+        return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+    }
+}
@@ -0,0 +1,66 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import ca.sheridancollege.jamsy.exceptions.ProviderUnavailableException;
+
+/*
+ * Guards every outbound call with the circuit breaker of its provider. While
+ * a circuit is open, calls fail at once with ProviderUnavailableException
+ * instead of waiting for a timeout; the services catch it and fall back
+ * (cached data, an alternate provider, or skipping the enrichment).
+ *
+ * Runs after RateLimitInterceptor so the time spent waiting for a local
+ * permit does not make a healthy provider look slow; RateLimitInterceptor
+ * skips the wait for providers whose circuit is open.
+ *
+ * I/O errors, timeouts, 5xx and slow responses count as failures. 4xx do
+ * not: they say nothing about the provider's health, and 429 is handled by
+ * the provider-wide pause in RateLimitInterceptor.
+ */
+@Component
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    public CircuitBreakerInterceptor(ProviderCircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Provider provider = Provider.forUri(request.getURI());
+        if (provider == null) {
+            return execution.execute(request, body);
+        }
+
+        CircuitBreaker breaker = circuitBreakers.get(provider);
+        if (!breaker.tryAcquire()) {
+            circuitBreakers.recordRejected(provider);
+            throw new ProviderUnavailableException(provider + " circuit is open, skipping " + request.getURI().getPath());
+        }
+
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            breaker.onFailure();
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess(System.nanoTime() - start);
+        }
+        return response;
+    }
+}
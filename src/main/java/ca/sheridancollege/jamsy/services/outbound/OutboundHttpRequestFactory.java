@@ -0,0 +1,223 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * The HTTP stack behind every RestTemplate (installed by WebConfig).
+ *
+ * Each provider gets its own java.net.http.HttpClient, i.e. its own
+ * keep-alive connection pool, negotiating HTTP/2 over TLS and falling back
+ * to HTTP/1.1. Responses are requested gzip-compressed and inflated here.
+ * Timeouts are read from outbound.http.<provider>.* with
+ * outbound.http.default.* as fallback:
+ *   connect-timeout-ms  TCP/TLS connect
+ *   read-timeout-ms     until the response headers arrive
+ *   deadline-ms         whole exchange including the body; the call is
+ *                       cancelled once it passes
+ *
+ * outbound.base-url.<provider> (e.g. http://localhost:9090) redirects every
+ * call for that provider to another server, keeping path and query. This is
+ * how the load-test stub (src/loadtest) stands in for the real APIs without
+ * touching the hardcoded URLs such as SpotifyApiClient.SPOTIFY_API_URL.
+ * Interceptors still see the original URI, so rate limits and coalescing
+ * behave as they would against the real provider.
+ */
+@Component
+public class OutboundHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundHttpRequestFactory.class);
+
+    // Headers the JDK client sets itself and refuses from callers
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final Map<Provider, ProviderClient> clients = new EnumMap<>(Provider.class);
+    private final Map<Provider, URI> baseUrls = new EnumMap<>(Provider.class);
+    private final ProviderClient defaultClient;
+
+    private record ProviderClient(HttpClient httpClient, Duration readTimeout, Duration deadline) {}
+
+    public OutboundHttpRequestFactory(Environment environment,
+                                      @Qualifier("outboundExecutor") ExecutorService executor) {
+        this.defaultClient = buildClient(environment, executor, "default");
+        for (Provider provider : Provider.values()) {
+            clients.put(provider, buildClient(environment, executor, provider.key()));
+            String baseUrl = environment.getProperty("outbound.base-url." + provider.key(), "");
+            if (!baseUrl.isBlank()) {
+                baseUrls.put(provider, URI.create(baseUrl.trim()));
+                logger.info("Routing {} calls to {}", provider, baseUrl.trim());
+            }
+        }
+    }
+
+    private static ProviderClient buildClient(Environment environment, ExecutorService executor, String key) {
+        long connect = timeout(environment, key, "connect-timeout-ms", 3000);
+        long read = timeout(environment, key, "read-timeout-ms", 10000);
+        long deadline = timeout(environment, key, "deadline-ms", 15000);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connect))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        logger.debug("Outbound client for {}: connect {}ms, read {}ms, deadline {}ms", key, connect, read, deadline);
+        return new ProviderClient(httpClient, Duration.ofMillis(read), Duration.ofMillis(deadline));
+    }
+
+    private static long timeout(Environment environment, String key, String name, long fallback) {
+        Long value = environment.getProperty("outbound.http." + key + "." + name, Long.class);
+        return value != null ? value : environment.getProperty("outbound.http.default." + name, Long.class, fallback);
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        Provider provider = Provider.forUri(uri);
+        if (provider == null) {
+            return new OutboundRequest(defaultClient, uri, uri, httpMethod);
+        }
+        return new OutboundRequest(clients.get(provider), uri, rebase(uri, baseUrls.get(provider)), httpMethod);
+    }
+
+    // Swap scheme, host and port for the override; path and query stay as the caller built them
+    private static URI rebase(URI uri, URI baseUrl) {
+        if (baseUrl == null) {
+            return uri;
+        }
+        String target = baseUrl.getScheme() + "://" + baseUrl.getRawAuthority() + uri.getRawPath()
+                + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        return URI.create(target);
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.values().forEach(client -> client.httpClient().shutdownNow());
+        defaultClient.httpClient().shutdownNow();
+    }
+
+    // Buffers the body and sends it in one piece; every outbound body here is small JSON
+    private static class OutboundRequest extends AbstractClientHttpRequest {
+
+        private final ProviderClient client;
+        private final URI uri;
+        private final URI target;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        OutboundRequest(ProviderClient client, URI uri, URI target, HttpMethod method) {
+            this.client = client;
+            this.uri = uri;
+            this.target = target;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            byte[] body = this.body.toByteArray();
+            java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(target)
+                    .timeout(client.readTimeout())
+                    .method(method.name(), body.length > 0 ? BodyPublishers.ofByteArray(body) : BodyPublishers.noBody());
+            headers.forEach((name, values) -> {
+                if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    values.forEach(value -> builder.header(name, value));
+                }
+            });
+            if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+                builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            }
+            if ("http".equalsIgnoreCase(target.getScheme())) {
+                // No cleartext HTTP/2 upgrade attempts against plain-http APIs such as Last.fm
+                builder.version(HttpClient.Version.HTTP_1_1);
+            }
+
+            CompletableFuture<HttpResponse<byte[]>> exchange =
+                    client.httpClient().sendAsync(builder.build(), BodyHandlers.ofByteArray());
+            try {
+                return toResponse(exchange.get(client.deadline().toMillis(), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                exchange.cancel(true);
+                throw new HttpTimeoutException("Deadline of " + client.deadline().toMillis() + "ms exceeded for " + uri);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                exchange.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while calling " + uri);
+            }
+        }
+
+        private static ClientHttpResponse toResponse(HttpResponse<byte[]> response) throws IOException {
+            HttpHeaders headers = new HttpHeaders();
+            response.headers().map().forEach((name, values) -> {
+                if (!name.startsWith(":")) {
+                    headers.addAll(name, values);
+                }
+            });
+
+            byte[] content = response.body();
+            if (content.length > 0 && "gzip".equalsIgnoreCase(headers.getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                    content = in.readAllBytes();
+                }
+                headers.remove(HttpHeaders.CONTENT_ENCODING);
+                headers.setContentLength(content.length);
+            }
+
+            HttpStatus status = HttpStatus.resolve(response.statusCode());
+            return new BufferedClientHttpResponse(HttpStatusCode.valueOf(response.statusCode()),
+                    status != null ? status.getReasonPhrase() : "", headers, content);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Micrometer meters for outbound provider traffic, exported through
+ * /actuator/prometheus. Every meter is tagged with the provider key
+ * ("other" for unknown hosts); request meters are also tagged with a
+ * low-cardinality endpoint name (see endpoint()).
+ *
+ *   jamsy.outbound.requests        timer, per provider/endpoint/method/status/outcome
+ *                                  (outcome IO_ERROR when no response came back)
+ *   jamsy.outbound.errors          counter, non-2xx responses and I/O failures
+ *   jamsy.outbound.throttled       counter, 429 responses from the provider
+ *   jamsy.outbound.retries         counter, repeated calls and why
+ *   jamsy.outbound.in_flight       gauge, calls currently on the wire
+ *   jamsy.outbound.coalesced       counter, GETs answered by another caller's call
+ *   jamsy.ratelimit.wait           timer, time spent waiting for a local permit
+ *   jamsy.ratelimit.rejected       counter, calls refused by the local budget
+ *   jamsy.ratelimit.available      gauge, permits left in the local bucket
+ *   jamsy.ratelimit.capacity       gauge, bucket size (burst)
+ */
+@Component
+public class OutboundMetrics {
+
+    static final String OTHER = "other";
+
+    // Path segments after these are IDs (Spotify, MusicBrainz) and collapse to {id}
+    private static final Set<String> COLLECTIONS = Set.of("users", "playlists", "artists", "tracks", "albums",
+            "artist", "recording", "release");
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public OutboundMetrics(MeterRegistry registry, ProviderRateLimiter rateLimiter,
+                           SingleFlightInterceptor singleFlightInterceptor) {
+        this.registry = registry;
+        for (Provider provider : Provider.values()) {
+            inFlight(provider.key());
+            Gauge.builder("jamsy.ratelimit.available", rateLimiter, limiter -> limiter.availablePermits(provider))
+                    .description("Permits left in the local token bucket")
+                    .tag("provider", provider.key())
+                    .register(registry);
+            Gauge.builder("jamsy.ratelimit.capacity", rateLimiter, limiter -> limiter.capacity(provider))
+                    .description("Burst size of the local token bucket")
+                    .tag("provider", provider.key())
+                    .register(registry);
+        }
+        inFlight(OTHER);
+        FunctionCounter.builder("jamsy.outbound.coalesced", singleFlightInterceptor, SingleFlightInterceptor::coalescedCount)
+                .description("GETs answered by an identical call already in flight")
+                .register(registry);
+    }
+
+    /**
+     * Provider key for metric tags.
+     */
+    public static String providerTag(Provider provider) {
+        return provider != null ? provider.key() : OTHER;
+    }
+
+    /**
+     * Low-cardinality name for the endpoint behind a URI: the Last.fm method
+     * (artist.getSimilar), otherwise the path with IDs replaced, e.g.
+     * v1/artists/{id}/top-tracks.
+     */
+    public static String endpoint(Provider provider, URI uri) {
+        return endpoint(provider, uri.getRawPath(), uri.getRawQuery());
+    }
+
+    /**
+     * Same as {@link #endpoint(Provider, URI)} for a URL string that may not be
+     * encoded yet (RestTemplate encodes it later).
+     */
+    public static String endpoint(Provider provider, String url) {
+        UriComponents components = UriComponentsBuilder.fromUriString(url).build();
+        return endpoint(provider, components.getPath(), components.getQuery());
+    }
+
+    private static String endpoint(Provider provider, String path, String query) {
+        if (provider == Provider.LASTFM) {
+            String method = queryParam(query, "method");
+            return method != null ? method : "unknown";
+        }
+        if (provider == null) {
+            return OTHER;
+        }
+
+        StringBuilder endpoint = new StringBuilder();
+        boolean idNext = false;
+        for (String segment : (path != null ? path : "").split("/")) {
+            if (segment.isEmpty()) continue;
+            if (!endpoint.isEmpty()) endpoint.append('/');
+            endpoint.append(idNext || segment.length() >= 16 ? "{id}" : segment);
+            idNext = COLLECTIONS.contains(segment);
+        }
+        return endpoint.isEmpty() ? "/" : endpoint.toString();
+    }
+
+    AtomicInteger inFlight(String provider) {
+        return inFlight.computeIfAbsent(provider, key -> {
+            AtomicInteger gauge = new AtomicInteger();
+            Gauge.builder("jamsy.outbound.in_flight", gauge, AtomicInteger::get)
+                    .description("Outbound calls currently waiting on the provider")
+                    .tag("provider", key)
+                    .register(registry);
+            return gauge;
+        });
+    }
+
+    void recordCall(String provider, String endpoint, String method, String status, String outcome, long nanos) {
+        Timer.builder("jamsy.outbound.requests")
+                .description("Outbound provider calls, from send to response headers and body")
+                .tags("provider", provider, "endpoint", endpoint, "method", method, "status", status, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordError(String provider, String endpoint, String reason) {
+        Counter.builder("jamsy.outbound.errors")
+                .tags("provider", provider, "endpoint", endpoint, "reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    void recordThrottled(String provider, String endpoint) {
+        Counter.builder("jamsy.outbound.throttled")
+                .description("429 responses returned by the provider")
+                .tags("provider", provider, "endpoint", endpoint)
+                .register(registry)
+                .increment();
+    }
+
+    void recordRateLimitWait(String provider, long nanos, boolean granted) {
+        Timer.builder("jamsy.ratelimit.wait")
+                .description("Time spent waiting for a permit from the local rate budget")
+                .tags("provider", provider)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (!granted) {
+            Counter.builder("jamsy.ratelimit.rejected")
+                    .description("Calls refused because the local rate budget stayed exhausted")
+                    .tags("provider", provider)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Count a call that is being repeated, e.g. after a 429 or with another token.
+     */
+    public void recordRetry(Provider provider, String endpoint, String reason) {
+        Counter.builder("jamsy.outbound.retries")
+                .tags("provider", providerTag(provider), "endpoint", endpoint, "reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    private static String queryParam(String query, String name) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+}
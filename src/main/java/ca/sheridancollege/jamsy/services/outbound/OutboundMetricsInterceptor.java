@@ -0,0 +1,57 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+/*
+ * Times every call that actually goes out to a provider. Installed last, so
+ * coalesced GETs and rate-limit waits are not counted as provider latency
+ * (they have their own meters, see OutboundMetrics).
+ */
+@Component
+public class OutboundMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final OutboundMetrics metrics;
+
+    public OutboundMetricsInterceptor(OutboundMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Provider provider = Provider.forUri(request.getURI());
+        String providerTag = OutboundMetrics.providerTag(provider);
+        String endpoint = OutboundMetrics.endpoint(provider, request.getURI());
+        String method = request.getMethod().name();
+
+        AtomicInteger inFlight = metrics.inFlight(providerTag);
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            metrics.recordCall(providerTag, endpoint, method, String.valueOf(status),
+                    status < 400 ? "SUCCESS" : status < 500 ? "CLIENT_ERROR" : "SERVER_ERROR", System.nanoTime() - start);
+            if (status == 429) {
+                metrics.recordThrottled(providerTag, endpoint);
+            }
+            if (status >= 400) {
+                metrics.recordError(providerTag, endpoint, String.valueOf(status));
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metrics.recordCall(providerTag, endpoint, method, "IO_ERROR", "IO_ERROR", System.nanoTime() - start);
+            metrics.recordError(providerTag, endpoint, e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/*
+ * Runs independent outbound lookups at the same time and collects whatever
+ * finished before a deadline. Total latency follows the slowest branch
+ * instead of the sum of all branches.
+ */
+@Component
+public class ParallelFetcher {
+
+    private final ExecutorService executor;
+
+    public ParallelFetcher(@Qualifier("outboundExecutor") ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Absolute deadline (in {@link System#nanoTime()} units) that lies the given
+     * number of milliseconds in the future.
+     */
+    public static long deadlineAfter(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    public <V> CompletableFuture<V> submit(Supplier<V> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Apply {@code fetcher} to every key in parallel and wait until all branches
+     * finish or the deadline passes, whichever comes first.
+     *
+     * @param keys          inputs, duplicates are fetched once
+     * @param fetcher       blocking lookup for one key
+     * @param deadlineNanos absolute deadline from {@link #deadlineAfter(long)}
+     * @return results of the branches that completed in time, in key order;
+     *         failed, late and null results are left out
+     */
+    public <K, V> Map<K, V> fetchAll(Collection<K> keys, Function<K, V> fetcher, long deadlineNanos) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (!futures.containsKey(key)) {
+                futures.put(key, submit(() -> fetcher.apply(key)));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("⏱️ Fan-out deadline reached, using partial results");
+        } catch (ExecutionException e) {
+            // At least one branch failed; the others are still usable
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<K, V> results = new LinkedHashMap<>();
+        int late = 0;
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            CompletableFuture<V> future = entry.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                V value = future.join();
+                if (value != null) {
+                    results.put(entry.getKey(), value);
+                }
+            } else if (!future.isDone()) {
+                // Late branches are abandoned; their virtual threads finish on their own
+                future.cancel(true);
+                late++;
+            }
+        }
+        if (late > 0) {
+            System.out.println("⚠️ Dropped " + late + " of " + futures.size() + " lookups that missed the deadline");
+        }
+        return results;
+    }
+}
@@ -0,0 +1,45 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * External music providers Jamsy calls out to. The key is used for
+ * provider-scoped properties, e.g. ratelimit.<key>.permits-per-second.
+ */
+public enum Provider {
+
+    SPOTIFY("spotify", "api.spotify.com", "accounts.spotify.com"),
+    LASTFM("lastfm", "ws.audioscrobbler.com"),
+    DEEZER("deezer", "api.deezer.com"),
+    MUSICBRAINZ("musicbrainz", "musicbrainz.org");
+
+    private final String key;
+    private final List<String> hosts;
+
+    Provider(String key, String... hosts) {
+        this.key = key;
+        this.hosts = Arrays.asList(hosts);
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Resolve the provider that serves the given URI, or null for any other host.
+     */
+    public static Provider forUri(URI uri) {
+        if (uri == null || uri.getHost() == null) {
+            return null;
+        }
+        String host = uri.getHost().toLowerCase();
+        for (Provider provider : values()) {
+            if (provider.hosts.contains(host)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+}
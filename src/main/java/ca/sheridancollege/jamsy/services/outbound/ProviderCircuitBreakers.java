@@ -0,0 +1,85 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * One circuit breaker per external provider, configured through
+ * circuit.<provider>.* with circuit.default.* as fallback:
+ *   window-size, minimum-calls, failure-rate   when to open
+ *   open-ms                                   how long to refuse calls
+ *   half-open-probes                          trial calls before closing
+ *   slow-call-ms                              slower calls count as failures
+ *
+ * Exported meters (tagged by provider):
+ *   jamsy.circuit.state         0 closed, 1 half-open, 2 open
+ *   jamsy.circuit.failure_rate  failure rate over the current window
+ *   jamsy.circuit.rejected      calls refused while open
+ *   jamsy.circuit.transitions   state changes, tagged with the new state
+ */
+@Component
+public class ProviderCircuitBreakers {
+
+    private final Map<Provider, CircuitBreaker> breakers = new EnumMap<>(Provider.class);
+    private final Map<Provider, Counter> rejected = new EnumMap<>(Provider.class);
+
+    public ProviderCircuitBreakers(Environment environment, MeterRegistry registry) {
+        for (Provider provider : Provider.values()) {
+            String key = provider.key();
+            CircuitBreaker breaker = new CircuitBreaker(
+                    setting(environment, key, "window-size", Integer.class, 20),
+                    setting(environment, key, "minimum-calls", Integer.class, 10),
+                    setting(environment, key, "failure-rate", Double.class, 0.5),
+                    TimeUnit.MILLISECONDS.toNanos(setting(environment, key, "open-ms", Long.class, 15000L)),
+                    setting(environment, key, "half-open-probes", Integer.class, 3),
+                    TimeUnit.MILLISECONDS.toNanos(setting(environment, key, "slow-call-ms", Long.class, 5000L)),
+                    (from, to) -> {
+                        System.out.println((to == CircuitBreaker.State.OPEN ? "🔴" : to == CircuitBreaker.State.CLOSED ? "🟢" : "🟡")
+                                + " Circuit for " + provider + ": " + from + " -> " + to);
+                        registry.counter("jamsy.circuit.transitions", "provider", key, "state", to.name()).increment();
+                    });
+            breakers.put(provider, breaker);
+
+            Gauge.builder("jamsy.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Circuit state: 0 closed, 1 half-open, 2 open")
+                    .tag("provider", key)
+                    .register(registry);
+            Gauge.builder("jamsy.circuit.failure_rate", breaker, CircuitBreaker::failureRate)
+                    .tag("provider", key)
+                    .register(registry);
+            rejected.put(provider, Counter.builder("jamsy.circuit.rejected")
+                    .description("Calls refused because the provider's circuit was open")
+                    .tag("provider", key)
+                    .register(registry));
+        }
+    }
+
+    private static <T> T setting(Environment environment, String key, String name, Class<T> type, T fallback) {
+        T value = environment.getProperty("circuit." + key + "." + name, type);
+        return value != null ? value : environment.getProperty("circuit.default." + name, type, fallback);
+    }
+
+    public CircuitBreaker get(Provider provider) {
+        return breakers.get(provider);
+    }
+
+    /**
+     * Whether calls to the provider are currently refused. Does not take a
+     * half-open probe, so callers can use it to skip optional work up front.
+     */
+    public boolean isOpen(Provider provider) {
+        return breakers.get(provider).state() == CircuitBreaker.State.OPEN;
+    }
+
+    void recordRejected(Provider provider) {
+        rejected.get(provider).increment();
+    }
+}
@@ -0,0 +1,128 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+/*
+ * One token bucket per external provider. Limits come from
+ * ratelimit.<provider>.permits-per-second and ratelimit.<provider>.burst,
+ * so a slow or throttled provider only ever delays calls to itself.
+ */
+@Service
+public class ProviderRateLimiter {
+
+    private final Map<Provider, TokenBucket> buckets = new EnumMap<>(Provider.class);
+
+    // Absolute System.nanoTime() a permit wait on this thread must end by; set by withWaitDeadline
+    private static final ThreadLocal<Long> waitDeadline = new ThreadLocal<>();
+
+    @Value("${ratelimit.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    public ProviderRateLimiter(Environment environment) {
+        for (Provider provider : Provider.values()) {
+            String prefix = "ratelimit." + provider.key();
+            double rate = environment.getProperty(prefix + ".permits-per-second", Double.class, 5.0);
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, 5);
+            buckets.put(provider, new TokenBucket(rate, burst));
+            System.out.println("🚦 Rate limit for " + provider + ": " + rate + "/s, burst " + burst);
+        }
+    }
+
+    /**
+     * Non-blocking: take a permit only if one is free right now.
+     */
+    public boolean tryAcquire(Provider provider) {
+        return buckets.get(provider).tryAcquire();
+    }
+
+    /**
+     * Reserve a permit and complete once it may be used. No thread waits in the
+     * meantime, which makes this the right call for async pipelines.
+     */
+    public CompletableFuture<Void> acquireAsync(Provider provider) {
+        long wait = buckets.get(provider).reserve(Long.MAX_VALUE);
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Run {@code call} with permit waits on this thread ending by {@code deadlineNanos}
+     * at the latest, e.g. the deadline of a retry budget. Nested deadlines only shorten it.
+     */
+    public static <T> T withWaitDeadline(long deadlineNanos, Supplier<T> call) {
+        Long outer = waitDeadline.get();
+        waitDeadline.set(outer != null ? Math.min(outer, deadlineNanos) : deadlineNanos);
+        try {
+            return call.get();
+        } finally {
+            if (outer != null) {
+                waitDeadline.set(outer);
+            } else {
+                waitDeadline.remove();
+            }
+        }
+    }
+
+    /**
+     * Wait on the calling thread (up to ratelimit.max-wait-ms, or less inside
+     * {@link #withWaitDeadline}) for a permit. Only the caller parks; other
+     * threads and other providers are unaffected.
+     *
+     * @return false if no permit frees up within the maximum wait
+     */
+    public boolean acquire(Provider provider) {
+        return acquire(provider, maxWaitMs);
+    }
+
+    /**
+     * Like {@link #acquire(Provider)}, but waiting at most {@code maxWaitMs}.
+     */
+    public boolean acquire(Provider provider, long maxWaitMs) {
+        long maxWait = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        Long deadline = waitDeadline.get();
+        if (deadline != null) {
+            maxWait = Math.min(maxWait, Math.max(0, deadline - System.nanoTime()));
+        }
+        long wait = buckets.get(provider).reserve(maxWait);
+        if (wait < 0) {
+            return false;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop handing out permits for the provider for the given time, e.g. after
+     * it answered 429 with Retry-After. Callers waiting for a permit either
+     * wait it out (within ratelimit.max-wait-ms) or fail fast.
+     */
+    public void pause(Provider provider, long millis) {
+        buckets.get(provider).pauseUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        System.out.println("⏸️ Pausing " + provider + " calls for " + millis + "ms");
+    }
+
+    public int availablePermits(Provider provider) {
+        return buckets.get(provider).availablePermits();
+    }
+
+    public int capacity(Provider provider) {
+        return buckets.get(provider).capacity();
+    }
+}
@@ -0,0 +1,79 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import ca.sheridancollege.jamsy.exceptions.RateLimitExceededException;
+
+/*
+ * Meters every outbound RestTemplate call against the rate budget of the
+ * provider it targets. Calls to unknown hosts pass through untouched.
+ * When a provider answers 429 or 503 the whole provider is paused (for its
+ * Retry-After, or ratelimit.default-pause-ms), so other requests stop
+ * hammering it instead of each discovering the overload on their own.
+ *
+ * Only outbound virtual threads wait out a full ratelimit.max-wait-ms for a
+ * permit. Servlet and scheduler threads are platform threads, so they wait at
+ * most ratelimit.platform-max-wait-ms (0 = fail fast) rather than parking.
+ */
+@Component
+public class RateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final ProviderRateLimiter rateLimiter;
+    private final OutboundMetrics metrics;
+    private final ProviderCircuitBreakers circuitBreakers;
+
+    @Value("${ratelimit.default-pause-ms:1000}")
+    private long defaultPauseMs;
+
+    @Value("${ratelimit.max-pause-ms:60000}")
+    private long maxPauseMs;
+
+    @Value("${ratelimit.platform-max-wait-ms:250}")
+    private long platformMaxWaitMs;
+
+    public RateLimitInterceptor(ProviderRateLimiter rateLimiter, OutboundMetrics metrics,
+                                ProviderCircuitBreakers circuitBreakers) {
+        this.rateLimiter = rateLimiter;
+        this.metrics = metrics;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Provider provider = Provider.forUri(request.getURI());
+        // No permit needed for a call CircuitBreakerInterceptor is about to refuse
+        if (provider != null && !circuitBreakers.isOpen(provider)) {
+            long start = System.nanoTime();
+            boolean granted = acquire(provider);
+            metrics.recordRateLimitWait(provider.key(), System.nanoTime() - start, granted);
+            if (!granted) {
+                throw new RateLimitExceededException(provider + " rate budget exhausted for " + request.getURI().getPath());
+            }
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        int status = response.getStatusCode().value();
+        if (provider != null && (status == 429 || status == 503)) {
+            Long retryAfter = RetryScheduler.retryAfterMillis(response.getHeaders());
+            rateLimiter.pause(provider, Math.min(maxPauseMs, retryAfter != null ? retryAfter : defaultPauseMs));
+        }
+        return response;
+    }
+
+    private boolean acquire(Provider provider) {
+        if (Thread.currentThread().isVirtual()) {
+            return rateLimiter.acquire(provider);
+        }
+        if (platformMaxWaitMs > 0) {
+            return rateLimiter.acquire(provider, platformMaxWaitMs);
+        }
+        return rateLimiter.tryAcquire(provider);
+    }
+}
@@ -0,0 +1,53 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * How many retries one piece of work may still spend, and until when. A
+ * budget belongs to a single request (or a single call), so one user's
+ * retries never use up another user's.
+ */
+public final class RetryBudget {
+
+    private final int maxRetries;
+    private final long deadlineNanos;
+    private final AtomicInteger used = new AtomicInteger();
+
+    /**
+     * @param maxRetries    retries allowed in total, not counting first attempts
+     * @param deadlineNanos absolute {@link System#nanoTime()} after which no retry may start
+     */
+    public RetryBudget(int maxRetries, long deadlineNanos) {
+        this.maxRetries = maxRetries;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Spend one retry that would start {@code delayMillis} from now.
+     *
+     * @return false when the budget is used up or the retry would start after the deadline
+     */
+    boolean tryTake(long delayMillis) {
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) > deadlineNanos) {
+            return false;
+        }
+        while (true) {
+            int current = used.get();
+            if (current >= maxRetries) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public int used() {
+        return used.get();
+    }
+}
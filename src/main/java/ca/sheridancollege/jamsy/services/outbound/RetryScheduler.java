@@ -0,0 +1,174 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import ca.sheridancollege.jamsy.exceptions.RateLimitExceededException;
+
+/*
+ * Retries outbound calls without parking a thread between attempts.
+ *
+ * A failed attempt is re-submitted through a delayed executor, so the wait
+ * costs a timer entry instead of a sleeping thread. The delay is the
+ * provider's Retry-After when it sent one, otherwise exponential backoff
+ * with jitter (retry.base-delay-ms doubling up to retry.max-delay-ms).
+ * Retries are drawn from a RetryBudget; when it runs out, or Retry-After
+ * points past its deadline, the original exception is passed on so the
+ * caller can fall back to cached or partial results. Waiting for a local
+ * rate-limit permit inside an attempt also ends at the budget's deadline.
+ * The provider-wide pause on 429/503 is applied by RateLimitInterceptor.
+ *
+ * Only use this for idempotent calls (GETs).
+ */
+@Component
+public class RetryScheduler {
+
+    private final ExecutorService executor;
+    private final OutboundMetrics metrics;
+
+    @Value("${retry.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${retry.max-total-ms:4000}")
+    private long maxTotalMs;
+
+    @Value("${retry.request-thread.max-total-ms:500}")
+    private long requestThreadMaxTotalMs;
+
+    @Value("${retry.base-delay-ms:200}")
+    private long baseDelayMs;
+
+    @Value("${retry.max-delay-ms:3000}")
+    private long maxDelayMs;
+
+    public RetryScheduler(@Qualifier("outboundExecutor") ExecutorService executor, OutboundMetrics metrics) {
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * A fresh budget with the configured retry count, ending retry.max-total-ms from now.
+     */
+    public RetryBudget newBudget() {
+        return new RetryBudget(maxRetries, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxTotalMs));
+    }
+
+    /**
+     * Run {@code call} on the outbound executor, retrying retryable failures
+     * within {@code budget}. The future fails with the last attempt's exception.
+     *
+     * @param endpoint low-cardinality name for the retry metric (see OutboundMetrics.endpoint)
+     */
+    public <T> CompletableFuture<T> submit(Provider provider, String endpoint, RetryBudget budget, Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> attempt(provider, endpoint, budget, call, result, 0));
+        return result;
+    }
+
+    /**
+     * Blocking form of {@link #submit} with a per-call budget. On an outbound
+     * (virtual) thread the wait is cheap and the full budget applies; on a
+     * servlet thread retries are limited to retry.request-thread.max-total-ms
+     * so the request can answer from cache or with partial results instead.
+     */
+    public <T> T call(Provider provider, String endpoint, Supplier<T> call) {
+        RetryBudget budget = Thread.currentThread().isVirtual()
+                ? newBudget()
+                : new RetryBudget(maxRetries, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestThreadMaxTotalMs));
+        try {
+            return submit(provider, endpoint, budget, call).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private <T> void attempt(Provider provider, String endpoint, RetryBudget budget, Supplier<T> call,
+                             CompletableFuture<T> result, int attempt) {
+        if (result.isDone()) return;
+        try {
+            // A permit wait may not outlast the budget either
+            result.complete(ProviderRateLimiter.withWaitDeadline(budget.deadlineNanos(), call));
+        } catch (Throwable e) {
+            // Anything not retried must still complete the future, or call() would wait forever
+            long delay = e instanceof RuntimeException runtime ? retryDelay(runtime, attempt) : -1;
+            if (delay < 0 || !budget.tryTake(delay)) {
+                result.completeExceptionally(e);
+                return;
+            }
+            metrics.recordRetry(provider, endpoint, reason(e));
+            System.out.println("🔁 Retrying " + provider + " " + endpoint + " in " + delay + "ms (" + reason(e) + ")");
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor)
+                    .execute(() -> attempt(provider, endpoint, budget, call, result, attempt + 1));
+        }
+    }
+
+    /**
+     * @return milliseconds to wait before the next attempt, or -1 if the failure is not retryable
+     */
+    private long retryDelay(RuntimeException e, int attempt) {
+        if (e instanceof HttpStatusCodeException http) {
+            int status = http.getStatusCode().value();
+            if (status == 429 || status == 503) {
+                Long retryAfter = retryAfterMillis(http.getResponseHeaders());
+                return retryAfter != null ? Math.max(retryAfter, backoff(attempt)) : backoff(attempt);
+            }
+            return http.getStatusCode().is5xxServerError() ? backoff(attempt) : -1;
+        }
+        if (e instanceof ResourceAccessException || e instanceof RateLimitExceededException) {
+            return backoff(attempt);
+        }
+        return -1;
+    }
+
+    // "Equal jitter": half the exponential step is fixed, the other half random
+    long backoff(int attempt) {
+        long step = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 20));
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+
+    private static String reason(Throwable e) {
+        if (e instanceof HttpStatusCodeException http) {
+            return String.valueOf(http.getStatusCode().value());
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * Parse a Retry-After header given either as delta-seconds or as an HTTP date.
+     *
+     * @return the delay in milliseconds, or null when absent or unparseable
+     */
+    static Long retryAfterMillis(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
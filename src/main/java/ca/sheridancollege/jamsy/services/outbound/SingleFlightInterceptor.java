@@ -0,0 +1,45 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+/*
+ * Shares one upstream call between concurrent identical GETs to a known
+ * provider, e.g. many users discovering from the same default seed artists
+ * at once. The key is the full URI plus the Authorization header, so
+ * user-scoped Spotify calls are only shared between requests made with the
+ * same token. Runs before RateLimitInterceptor, so coalesced callers do not
+ * spend rate budget.
+ */
+@Component
+public class SingleFlightInterceptor implements ClientHttpRequestInterceptor {
+
+    private final SingleFlight<String, BufferedClientHttpResponse> flights = new SingleFlight<>();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (request.getMethod() != HttpMethod.GET || Provider.forUri(request.getURI()) == null) {
+            return execution.execute(request, body);
+        }
+
+        String key = request.getURI() + "|" + request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return flights.execute(key, () -> {
+            try (ClientHttpResponse response = execution.execute(request, body)) {
+                return new BufferedClientHttpResponse(response.getStatusCode(), response.getStatusText(),
+                        HttpHeaders.readOnlyHttpHeaders(response.getHeaders()), response.getBody().readAllBytes());
+            }
+        });
+    }
+
+    public long coalescedCount() {
+        return flights.coalescedCount();
+    }
+}
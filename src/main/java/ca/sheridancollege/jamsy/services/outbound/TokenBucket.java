@@ -0,0 +1,93 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Lock-free token bucket.
+ *
+ * Implemented as a generic cell rate algorithm: instead of counting tokens it
+ * keeps the "theoretical arrival time" of the next permit in a single
+ * AtomicLong and advances it with compare-and-set. No thread ever holds a lock
+ * or sleeps inside the bucket; callers that must wait get the wait time back
+ * and decide themselves how to wait.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final int capacity;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond sustained refill rate
+     * @param capacity         permits that can be taken back-to-back when the bucket is full
+     */
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate and capacity must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.capacity = capacity;
+        this.burstToleranceNanos = intervalNanos * (capacity - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Take a permit only if one is available right now.
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Reserve the next permit if it becomes available within {@code maxWaitNanos}.
+     *
+     * @return nanoseconds the caller has to wait before using the permit
+     *         (0 when it can go immediately), or -1 when no permit was reserved
+     */
+    public long reserve(long maxWaitNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrival.get();
+            long wait = Math.max(0, tat - burstToleranceNanos - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            long next = (tat - now > 0 ? tat : now) + intervalNanos;
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Hand out no permits before {@code untilNanos} ({@link System#nanoTime()}
+     * units). Afterwards the bucket refills at its normal rate instead of
+     * releasing a full burst at once. An earlier pause is never shortened.
+     */
+    public void pauseUntil(long untilNanos) {
+        long pausedTat = untilNanos + burstToleranceNanos;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            if (tat >= pausedTat || theoreticalArrival.compareAndSet(tat, pausedTat)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimate of permits that could be taken immediately.
+     */
+    public int availablePermits() {
+        long headroom = System.nanoTime() + burstToleranceNanos - theoreticalArrival.get();
+        if (headroom < 0) {
+            return 0;
+        }
+        return (int) Math.min(capacity, headroom / intervalNanos + 1);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,183 @@
+package ca.sheridancollege.jamsy.services.playlist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.beans.TrackKey;
+import ca.sheridancollege.jamsy.beans.TrackKeyCounts;
+import ca.sheridancollege.jamsy.beans.TrackKeySet;
+
+/*
+ * Chooses the tracks of a playlist so that its length lands within a
+ * tolerance of a target duration while the summed matchScore is as high as
+ * possible, with at most artistCap tracks per artist.
+ *
+ * This is a group knapsack, solved by dynamic programming over the duration
+ * in resolutionMs steps. Every artist is one group whose options are:
+ * nothing, one of its tracks, or up to artistCap of them together. Only an
+ * artist's TRACKS_PER_ARTIST best-scoring tracks are combined, which keeps
+ * the option count small: 500 candidates against a one-hour target at 5 s
+ * steps is about a million cell updates, roughly ten milliseconds.
+ * Durations are rounded up to whole steps, so the result never runs over
+ * the window; each cell also carries its exact length, which is what the
+ * lower end of the window is checked against.
+ *
+ * Required tracks (e.g. familiar likes) are always included and count
+ * against both the target and the artist caps. Tracks without a known
+ * duration cannot be placed and are left out.
+ */
+public final class PlaylistAssembler {
+
+    // Best tracks per artist that are combined into options
+    private static final int TRACKS_PER_ARTIST = 8;
+
+    /**
+     * @param withinTolerance false when the candidates could not fill the target
+     */
+    public record Result(List<Track> tracks, long durationMs, double score, boolean withinTolerance) {}
+
+    private record Option(int units, long durationMs, float score, int[] members) {}
+
+    private PlaylistAssembler() {
+    }
+
+    public static Result assemble(List<Track> required, List<Track> candidates, long targetMs, long toleranceMs,
+                                  int artistCap, long resolutionMs) {
+        List<Track> playlist = new ArrayList<>();
+        TrackKeySet used = new TrackKeySet(required.size() + candidates.size());
+        TrackKeyCounts artistCount = new TrackKeyCounts(required.size());
+        long requiredMs = 0;
+        for (Track track : required) {
+            if (track.getDurationMs() <= 0 || !used.add(track.getTrackKey())) continue;
+            playlist.add(track);
+            artistCount.increment(TrackKey.ofArtist(track.getArtistName()));
+            requiredMs += track.getDurationMs();
+        }
+
+        // Group placeable candidates by artist, best match first within each artist
+        List<Track> placeable = new ArrayList<>(candidates.size());
+        for (Track track : candidates) {
+            if (track.getDurationMs() > 0 && used.add(track.getTrackKey())) {
+                placeable.add(track);
+            }
+        }
+        placeable.sort(Comparator.comparingLong((Track t) -> TrackKey.ofArtist(t.getArtistName()))
+                .thenComparing(Comparator.comparingDouble(Track::getMatchScore).reversed()));
+
+        int capacity = (int) Math.max(0, (targetMs + toleranceMs - requiredMs) / resolutionMs);
+        long lowestMs = targetMs - toleranceMs - requiredMs;
+
+        List<Option[]> groups = new ArrayList<>();
+        for (int start = 0; start < placeable.size(); ) {
+            long artistKey = TrackKey.ofArtist(placeable.get(start).getArtistName());
+            int end = start;
+            while (end < placeable.size() && TrackKey.ofArtist(placeable.get(end).getArtistName()) == artistKey) {
+                end++;
+            }
+            int slots = artistCap - artistCount.get(artistKey);
+            if (slots > 0) {
+                groups.add(options(placeable, start, Math.min(end, start + TRACKS_PER_ARTIST), slots, resolutionMs, capacity));
+            }
+            start = end;
+        }
+
+        // best[w]: highest score using exactly w units, bestMs[w]: its exact length;
+        // choice[g][w]: option of group g taken to reach w (0 = none)
+        float[] best = new float[capacity + 1];
+        float[] next = new float[capacity + 1];
+        long[] bestMs = new long[capacity + 1];
+        long[] nextMs = new long[capacity + 1];
+        Arrays.fill(best, Float.NEGATIVE_INFINITY);
+        best[0] = 0;
+        int reach = 0;
+        short[][] choice = new short[groups.size()][];
+        for (int g = 0; g < groups.size(); g++) {
+            Option[] options = groups.get(g);
+            short[] taken = new short[capacity + 1];
+            System.arraycopy(best, 0, next, 0, best.length);
+            System.arraycopy(bestMs, 0, nextMs, 0, bestMs.length);
+            int nextReach = reach;
+            for (int w = 0; w <= reach; w++) {
+                if (best[w] == Float.NEGATIVE_INFINITY) continue;
+                for (int o = 0; o < options.length; o++) {
+                    Option option = options[o];
+                    int to = w + option.units();
+                    if (to > capacity) continue;
+                    float score = best[w] + option.score();
+                    if (score > next[to]) {
+                        next[to] = score;
+                        nextMs[to] = bestMs[w] + option.durationMs();
+                        taken[to] = (short) (o + 1);
+                        nextReach = Math.max(nextReach, to);
+                    }
+                }
+            }
+            choice[g] = taken;
+            reach = nextReach;
+            float[] swap = best;
+            best = next;
+            next = swap;
+            long[] swapMs = bestMs;
+            bestMs = nextMs;
+            nextMs = swapMs;
+        }
+
+        // Best score inside the tolerance window; if nothing reaches it, the longest playlist possible
+        int end = -1;
+        for (int w = 0; w <= reach; w++) {
+            if (best[w] != Float.NEGATIVE_INFINITY && bestMs[w] >= lowestMs && (end < 0 || best[w] > best[end])) end = w;
+        }
+        if (end < 0) {
+            end = 0;
+            for (int w = 0; w <= reach; w++) {
+                if (best[w] != Float.NEGATIVE_INFINITY && bestMs[w] > bestMs[end]) end = w;
+            }
+        }
+
+        long durationMs = requiredMs;
+        double score = 0;
+        for (Track track : playlist) {
+            score += track.getMatchScore();
+        }
+        for (int g = groups.size() - 1, w = end; g >= 0; g--) {
+            int o = choice[g][w];
+            if (o == 0) continue;
+            Option option = groups.get(g)[o - 1];
+            for (int member : option.members()) {
+                Track track = placeable.get(member);
+                playlist.add(track);
+                durationMs += track.getDurationMs();
+                score += track.getMatchScore();
+            }
+            w -= option.units();
+        }
+
+        return new Result(playlist, durationMs, score, Math.abs(durationMs - targetMs) <= toleranceMs);
+    }
+
+    // Every non-empty combination of at most `slots` tracks from placeable[from, to)
+    private static Option[] options(List<Track> placeable, int from, int to, int slots, long resolutionMs, int capacity) {
+        List<Option> options = new ArrayList<>();
+        combine(placeable, from, to, slots, resolutionMs, capacity, new int[slots], 0, 0, 0, options);
+        return options.toArray(new Option[0]);
+    }
+
+    private static void combine(List<Track> placeable, int next, int to, int slots, long resolutionMs, int capacity,
+                                int[] members, int count, long durationMs, float score, List<Option> out) {
+        for (int i = next; i < to; i++) {
+            Track track = placeable.get(i);
+            long totalMs = durationMs + track.getDurationMs();
+            int units = (int) ((totalMs + resolutionMs - 1) / resolutionMs);
+            if (units > capacity) continue;
+            members[count] = i;
+            out.add(new Option(units, totalMs, score + track.getMatchScore(), Arrays.copyOf(members, count + 1)));
+            if (count + 1 < slots) {
+                combine(placeable, i + 1, to, slots, resolutionMs, capacity, members, count + 1, totalMs,
+                        score + track.getMatchScore(), out);
+            }
+        }
+    }
+}
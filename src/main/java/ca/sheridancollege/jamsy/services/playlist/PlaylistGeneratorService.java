@@ -2,8 +2,8 @@ package ca.sheridancollege.jamsy.services.playlist;
 
 import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyApiClient;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyTrackIdResolver;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
-import ca.sheridancollege.jamsy.services.spotify.SpotifyTrackService;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -14,14 +14,14 @@ public class PlaylistGeneratorService {
 
     private final SpotifyApiClient spotifyApiClient;
     private final SpotifyUserService spotifyUserService;
-    private final SpotifyTrackService spotifyTrackService;
+    private final SpotifyTrackIdResolver trackIdResolver;
 
     public PlaylistGeneratorService(SpotifyApiClient spotifyApiClient,
                                     SpotifyUserService spotifyUserService,
-                                    SpotifyTrackService spotifyTrackService) {
+                                    SpotifyTrackIdResolver trackIdResolver) {
         this.spotifyApiClient = spotifyApiClient;
         this.spotifyUserService = spotifyUserService;
-        this.spotifyTrackService = spotifyTrackService;
+        this.trackIdResolver = trackIdResolver;
     }
 
     /**
@@ -60,20 +60,7 @@ public class PlaylistGeneratorService {
             return null;
         }
 
-        // Convert tracks to Spotify URIs (with ID lookup if missing)
-        List<String> trackUris = tracks.stream()
-                .map(track -> {
-                    if (track.getId() == null || track.getId().isBlank()) {
-                        // Fallback: try to search ID by name + first artist
-                        String artist = (track.getArtists() != null && !track.getArtists().isEmpty())
-                                ? track.getArtists().get(0) : "";
-                        String id = spotifyTrackService.searchTrackId(track.getName(), artist, accessToken);
-                        track.setId(id);
-                    }
-                    return track.getId() != null ? "spotify:track:" + track.getId() : null;
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<String> trackUris = resolveTrackUris(accessToken, tracks);
 
         if (!trackUris.isEmpty()) {
             addTracksToPlaylist(accessToken, playlistId, trackUris);
@@ -84,6 +71,19 @@ public class PlaylistGeneratorService {
         return "https://open.spotify.com/playlist/" + playlistId;
     }
 
+    /**
+     * Spotify URIs for the tracks, looking up missing IDs (ISRC first, then
+     * name + artist) in parallel and from cache where possible. Tracks that
+     * cannot be found are left out.
+     */
+    public List<String> resolveTrackUris(String accessToken, List<Track> tracks) {
+        trackIdResolver.resolveIds(tracks, accessToken);
+        return tracks.stream()
+                .map(track -> track.getId() != null && !track.getId().isBlank() ? "spotify:track:" + track.getId() : null)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Add tracks to an existing playlist in batches of 100.
      */
@@ -95,17 +95,24 @@ public class PlaylistGeneratorService {
             List<String> batch = trackUris.subList(i, Math.min(i + batchSize, trackUris.size()));
 
             try {
-                String url = SpotifyApiClient.SPOTIFY_API_URL + "/playlists/" + playlistId + "/tracks";
-
-                Map<String, Object> body = new HashMap<>();
-                body.put("uris", batch);
-
-                spotifyApiClient.post(url, body, accessToken, Map.class);
-
-                System.out.println("✅ Added " + batch.size() + " tracks to playlist " + playlistId);
+                addTrackBatch(accessToken, playlistId, batch);
             } catch (Exception e) {
                 System.out.println("❌ Error adding tracks: " + e.getMessage());
             }
         }
     }
+
+    /**
+     * Add one batch (at most 100 URIs) to a playlist; failures are thrown to the caller.
+     */
+    public void addTrackBatch(String accessToken, String playlistId, List<String> batch) {
+        String url = SpotifyApiClient.SPOTIFY_API_URL + "/playlists/" + playlistId + "/tracks";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("uris", batch);
+
+        spotifyApiClient.post(url, body, accessToken, Map.class);
+
+        System.out.println("✅ Added " + batch.size() + " tracks to playlist " + playlistId);
+    }
 }
@@ -0,0 +1,192 @@
+package ca.sheridancollege.jamsy.services.playlist;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import ca.sheridancollege.jamsy.beans.Track;
+
+/*
+ * One asynchronous playlist creation, run by PlaylistJobService.
+ * Progress fields are written by the worker only; readers take a
+ * consistent snapshot through status().
+ */
+public class PlaylistJob {
+
+    public enum State { QUEUED, EXPANDING, RESOLVING, CREATING, ADDING, DONE, FAILED }
+
+    /**
+     * What the status endpoint and the SSE stream report.
+     */
+    public record Status(String jobId, State state, int totalTracks, int resolvedTracks, int addedTracks,
+                         String playlistUrl, String error) {
+
+        public boolean finished() {
+            return state == State.DONE || state == State.FAILED;
+        }
+    }
+
+    private final String id;
+    private final String idempotencyKey;
+    private final String accessToken;
+    private final String playlistName;
+    // Produces the tracks on the worker; may be slow (e.g. the one-hour expansion)
+    private final Supplier<List<Track>> trackSource;
+    private final List<Consumer<Status>> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.QUEUED;
+    private List<Track> tracks;
+    private List<String> trackUris;
+    private int resolvedTracks;
+    private int addedTracks;
+    private String playlistId;
+    private String error;
+
+    PlaylistJob(String id, String idempotencyKey, String accessToken, String playlistName,
+                Supplier<List<Track>> trackSource) {
+        this.id = id;
+        this.idempotencyKey = idempotencyKey;
+        this.accessToken = accessToken;
+        this.playlistName = playlistName;
+        this.trackSource = trackSource;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    String getAccessToken() {
+        return accessToken;
+    }
+
+    String getPlaylistName() {
+        return playlistName;
+    }
+
+    Supplier<List<Track>> getTrackSource() {
+        return trackSource;
+    }
+
+    synchronized List<Track> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Spotify URIs the tracks resolved to; null until resolved. Batches are added from this list.
+     */
+    synchronized List<String> getTrackUris() {
+        return trackUris;
+    }
+
+    synchronized String getPlaylistId() {
+        return playlistId;
+    }
+
+    synchronized int getAddedTracks() {
+        return addedTracks;
+    }
+
+    public synchronized Status status() {
+        return new Status(id, state, tracks != null ? tracks.size() : 0, resolvedTracks, addedTracks,
+                playlistId != null ? "https://open.spotify.com/playlist/" + playlistId : null, error);
+    }
+
+    /**
+     * Receive every status change until the job finishes. A listener added
+     * after that is called once with the final status.
+     */
+    public void subscribe(Consumer<Status> listener) {
+        listeners.add(listener);
+        Status current = status();
+        if (current.finished()) {
+            listeners.remove(listener);
+        }
+        listener.accept(current);
+    }
+
+    public void unsubscribe(Consumer<Status> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Carry over the playlist, its resolved URIs and how much of them was
+     * added from an earlier failed attempt with the same idempotency key, so
+     * a retry finishes that playlist instead of creating a second one.
+     * The URI list is reused rather than resolved again: addedTracks is an
+     * index into it and would not match a fresh resolution.
+     */
+    synchronized void resumeFrom(PlaylistJob failed) {
+        synchronized (failed) {
+            this.playlistId = failed.playlistId;
+            if (failed.trackUris != null) {
+                this.tracks = failed.tracks;
+                this.trackUris = failed.trackUris;
+                this.resolvedTracks = failed.resolvedTracks;
+                this.addedTracks = failed.addedTracks;
+            }
+        }
+    }
+
+    void update(State state) {
+        synchronized (this) {
+            this.state = state;
+        }
+        publish();
+    }
+
+    void expanded(List<Track> tracks) {
+        synchronized (this) {
+            this.tracks = tracks;
+        }
+        publish();
+    }
+
+    void resolved(List<String> trackUris) {
+        synchronized (this) {
+            this.trackUris = trackUris;
+            this.resolvedTracks = trackUris.size();
+        }
+        publish();
+    }
+
+    void created(String playlistId) {
+        synchronized (this) {
+            this.playlistId = playlistId;
+        }
+        publish();
+    }
+
+    void added(int addedTracks) {
+        synchronized (this) {
+            this.addedTracks = addedTracks;
+        }
+        publish();
+    }
+
+    void fail(String error) {
+        synchronized (this) {
+            this.state = State.FAILED;
+            this.error = error;
+        }
+        publish();
+    }
+
+    private void publish() {
+        Status current = status();
+        for (Consumer<Status> listener : listeners) {
+            try {
+                listener.accept(current);
+            } catch (RuntimeException e) {
+                listeners.remove(listener);
+            }
+        }
+        if (current.finished()) {
+            listeners.clear();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ca.sheridancollege.jamsy.services.playlist;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyUserService;
+
+/*
+ * Runs playlist creation (ID resolution, playlist creation, batched adds)
+ * as background jobs on the bounded playlistJobExecutor, so the HTTP
+ * request only submits and the client polls or subscribes for progress.
+ *
+ * Submissions are idempotent: a retry with the same idempotency key (the
+ * Idempotency-Key header, or a hash of token, name and tracks) gets the
+ * existing job back instead of creating a second playlist. Only a failed
+ * job is run again, and the new attempt continues the playlist the failed
+ * one already created. Jobs are kept for playlist.jobs.retention-minutes.
+ *
+ * Tracks can also be given as a Supplier, so slow work such as the one-hour
+ * expansion runs inside the job and the submitting request returns at once.
+ */
+@Service
+public class PlaylistJobService {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final PlaylistGeneratorService playlistGeneratorService;
+    private final SpotifyUserService spotifyUserService;
+    private final ExecutorService executor;
+    private final Cache<String, PlaylistJob> jobs;
+    private final Cache<String, PlaylistJob> jobsByKey;
+
+    public PlaylistJobService(PlaylistGeneratorService playlistGeneratorService,
+                              SpotifyUserService spotifyUserService,
+                              @Qualifier("playlistJobExecutor") ExecutorService executor,
+                              @Value("${playlist.jobs.retention-minutes:60}") long retentionMinutes,
+                              @Value("${playlist.jobs.max-retained:10000}") long maxRetained) {
+        this.playlistGeneratorService = playlistGeneratorService;
+        this.spotifyUserService = spotifyUserService;
+        this.executor = executor;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(maxRetained)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .build();
+        this.jobsByKey = Caffeine.newBuilder()
+                .maximumSize(maxRetained)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .build();
+    }
+
+    /**
+     * Submit a playlist creation, or return the job already submitted with the same key.
+     *
+     * @param idempotencyKey client-supplied key; null to derive one from the request
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public PlaylistJob submit(String accessToken, String playlistName, List<Track> tracks, String idempotencyKey) {
+        String key = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? scopedKey(accessToken, idempotencyKey)
+                : deriveKey(accessToken, playlistName, tracks);
+        return enqueue(key, accessToken, playlistName, () -> tracks);
+    }
+
+    /**
+     * Submit a playlist creation whose tracks are produced by the job itself.
+     *
+     * @param idempotencyKey required: the tracks are not known yet, so no key can be derived
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public PlaylistJob submit(String accessToken, String playlistName, Supplier<List<Track>> tracks,
+                              String idempotencyKey) {
+        return enqueue(scopedKey(accessToken, idempotencyKey), accessToken, playlistName, tracks);
+    }
+
+    // Client keys are scoped to the Spotify user (cached lookup), so users cannot collide
+    private String scopedKey(String accessToken, String idempotencyKey) {
+        return spotifyUserService.getSpotifyUserId(accessToken) + ":" + idempotencyKey.trim();
+    }
+
+    private PlaylistJob enqueue(String key, String accessToken, String playlistName, Supplier<List<Track>> tracks) {
+        PlaylistJob[] created = new PlaylistJob[1];
+        PlaylistJob job = jobsByKey.asMap().compute(key, (k, existing) -> {
+            if (existing != null && existing.status().state() != PlaylistJob.State.FAILED) {
+                return existing;
+            }
+            PlaylistJob fresh = new PlaylistJob(UUID.randomUUID().toString(), k, accessToken, playlistName, tracks);
+            if (existing != null) {
+                fresh.resumeFrom(existing);
+            }
+            created[0] = fresh;
+            return fresh;
+        });
+
+        if (created[0] == null) {
+            System.out.println("♻️ Playlist job " + job.getId() + " already submitted, returning it");
+            return job;
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobsByKey.asMap().remove(key, job);
+            jobs.invalidate(job.getId());
+            throw e;
+        }
+        System.out.println("📝 Queued playlist job " + job.getId());
+        return job;
+    }
+
+    public Optional<PlaylistJob> find(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    private void run(PlaylistJob job) {
+        try {
+            String accessToken = job.getAccessToken();
+
+            // A resumed job keeps the failed attempt's URIs, so its added count still lines up
+            List<String> trackUris = job.getTrackUris();
+            if (trackUris == null) {
+                List<Track> tracks = job.getTracks();
+                if (tracks == null) {
+                    job.update(PlaylistJob.State.EXPANDING);
+                    tracks = job.getTrackSource().get();
+                    job.expanded(tracks);
+                }
+                job.update(PlaylistJob.State.RESOLVING);
+                trackUris = playlistGeneratorService.resolveTrackUris(accessToken, tracks);
+                job.resolved(trackUris);
+            }
+
+            String playlistId = job.getPlaylistId();
+            if (playlistId == null) {
+                job.update(PlaylistJob.State.CREATING);
+                playlistId = playlistGeneratorService.createPlaylist(accessToken, job.getPlaylistName());
+                if (playlistId == null) {
+                    job.fail("Failed to create playlist");
+                    return;
+                }
+                job.created(playlistId);
+            }
+
+            job.update(PlaylistJob.State.ADDING);
+            for (int i = job.getAddedTracks(); i < trackUris.size(); i += BATCH_SIZE) {
+                List<String> batch = trackUris.subList(i, Math.min(i + BATCH_SIZE, trackUris.size()));
+                playlistGeneratorService.addTrackBatch(accessToken, playlistId, batch);
+                job.added(i + batch.size());
+            }
+
+            job.update(PlaylistJob.State.DONE);
+            System.out.println("✅ Playlist job " + job.getId() + " done: " + job.status().playlistUrl());
+        } catch (Exception e) {
+            System.out.println("❌ Playlist job " + job.getId() + " failed: " + e.getMessage());
+            job.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Idempotency key for a set of tracks regardless of order: SHA-256 over their sorted TrackKeys.
+     */
+    public static String trackSetKey(List<Track> tracks) {
+        long[] keys = tracks.stream().mapToLong(Track::getTrackKey).sorted().toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(keys.length * Long.BYTES);
+        for (long key : keys) {
+            buffer.putLong(key);
+        }
+        MessageDigest digest = sha256();
+        digest.update(buffer.array());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String deriveKey(String accessToken, String playlistName, List<Track> tracks) {
+        MessageDigest digest = sha256();
+        digest.update((accessToken + "\n" + playlistName + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Track track : tracks) {
+            digest.update((track.getId() + "|" + track.getName() + "|" + track.getArtists() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
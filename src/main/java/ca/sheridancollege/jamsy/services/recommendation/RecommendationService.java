@@ -5,6 +5,8 @@ import ca.sheridancollege.jamsy.beans.Track;
 import ca.sheridancollege.jamsy.services.LastFmService;
 import ca.sheridancollege.jamsy.services.DeezerService;
 import ca.sheridancollege.jamsy.services.spotify.SpotifyApiClient;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyJson;
+import ca.sheridancollege.jamsy.services.spotify.SpotifyTrackService;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -21,15 +23,18 @@ public class RecommendationService {
     private final SpotifyApiClient spotifyApiClient;
     private final LastFmService lastFmService;
     private final DeezerService deezerService;
+    private final SpotifyTrackService spotifyTrackService;
 
     public RecommendationService(
             SpotifyApiClient spotifyApiClient,
             LastFmService lastFmService,
-            DeezerService deezerService
+            DeezerService deezerService,
+            SpotifyTrackService spotifyTrackService
     ) {
         this.spotifyApiClient = spotifyApiClient;
         this.lastFmService = lastFmService;
         this.deezerService = deezerService;
+        this.spotifyTrackService = spotifyTrackService;
     }
 
     /**
@@ -58,12 +63,9 @@ public class RecommendationService {
                 featureParams.forEach(builder::queryParam);
             }
 
-            Map response = spotifyApiClient.get(builder.toUriString(), accessToken, Map.class);
-            if (response != null && response.containsKey("tracks")) {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("tracks");
-                if (items != null && !items.isEmpty()) {
-                    return items.stream().map(this::mapSpotifyTrack).toList();
-                }
+            SpotifyJson.Tracks response = spotifyApiClient.get(builder.toUriString(), accessToken, SpotifyJson.Tracks.class);
+            if (response != null && response.tracks() != null && !response.tracks().isEmpty()) {
+                return spotifyTrackService.toTracks(response.tracks());
             }
 
             // Fallback
@@ -97,12 +99,9 @@ public class RecommendationService {
                     "&target_danceability=" + workoutParams.get("danceability") +
                     "&target_tempo=" + workoutParams.get("tempo");
 
-            Map response = spotifyApiClient.get(url, accessToken, Map.class);
-            if (response != null && response.containsKey("tracks")) {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("tracks");
-                if (items != null && !items.isEmpty()) {
-                    return items.stream().map(this::mapSpotifyTrack).toList();
-                }
+            SpotifyJson.Tracks response = spotifyApiClient.get(url, accessToken, SpotifyJson.Tracks.class);
+            if (response != null && response.tracks() != null && !response.tracks().isEmpty()) {
+                return spotifyTrackService.toTracks(response.tracks());
             }
         } catch (Exception e) {
             System.out.println("❌ Error getting track-based recommendations: " + e.getMessage());
@@ -130,16 +129,13 @@ public class RecommendationService {
                     + "&target_energy=" + (template.getTargetEnergy() / 100.0)
                     + "&target_tempo=" + template.getTargetTempo();
 
-            Map response = spotifyApiClient.get(url, accessToken, Map.class);
-            if (response != null && response.containsKey("tracks")) {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("tracks");
-                if (items != null && !items.isEmpty()) {
-                    Collections.shuffle(items);
-                    return items.stream()
-                            .map(this::mapSpotifyTrack)
-                            .limit(10)
-                            .toList();
-                }
+            SpotifyJson.Tracks response = spotifyApiClient.get(url, accessToken, SpotifyJson.Tracks.class);
+            if (response != null && response.tracks() != null && !response.tracks().isEmpty()) {
+                List<Track> tracks = spotifyTrackService.toTracks(response.tracks());
+                Collections.shuffle(tracks);
+                return tracks.stream()
+                        .limit(10)
+                        .toList();
             }
 
             // Fallback
@@ -179,29 +175,4 @@ public class RecommendationService {
         }
         return params;
     }
-
-    private Track mapSpotifyTrack(Map<String, Object> data) {
-        Track track = new Track();
-        if (data == null) return track;
-
-        track.setId((String) data.get("id"));
-        track.setName((String) data.get("name"));
-        track.setPreviewUrl((String) data.get("preview_url"));
-        track.setPopularity(data.get("popularity") == null ? null : ((Number) data.get("popularity")).intValue());
-
-        List<Map<String, Object>> artists = (List<Map<String, Object>>) data.get("artists");
-        if (artists != null) {
-            track.setArtists(artists.stream().map(a -> (String) a.get("name")).toList());
-        }
-
-        Map<String, Object> album = (Map<String, Object>) data.get("album");
-        if (album != null && album.containsKey("images")) {
-            List<Map<String, Object>> images = (List<Map<String, Object>>) album.get("images");
-            if (images != null && !images.isEmpty()) {
-                track.setAlbumCover((String) images.get(0).get("url"));
-            }
-        }
-
-        return track;
-    }
 }
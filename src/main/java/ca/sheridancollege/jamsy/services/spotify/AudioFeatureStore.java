@@ -0,0 +1,299 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Long-lived store of Spotify audio features, in an H2 MVStore file.
+ *
+ * A track's features never change, so they are kept by track ID without
+ * expiry; tracks Spotify has no features for are stored as an empty vector
+ * and not asked for again. Misses are fetched from /audio-features in
+ * batches of up to 100 IDs per call.
+ *
+ * Per-artist averages over the artist's top tracks are precomputed and kept
+ * for spotify.audio-features.artist-ttl-days, since top tracks do change.
+ *
+ * Spotify refuses /audio-features (403) for apps without extended access;
+ * after a 403 the store only serves what it already holds for
+ * spotify.audio-features.unavailable-minutes instead of trying again on
+ * every request. The refusal is stored, so a restart does not retry it
+ * either. Until a features call has succeeded, artist averages start with
+ * a single artist as a probe; only once that works are the other artists'
+ * top tracks fetched, so a refused app costs two calls, not one per artist.
+ */
+@Component
+public class AudioFeatureStore {
+
+    // Vector layout of every stored entry
+    static final String[] FEATURES = {"danceability", "energy", "valence", "tempo", "acousticness", "loudness"};
+
+    private static final int MAX_IDS_PER_CALL = 100;
+    private static final double[] NO_FEATURES = new double[0];
+
+    private final SpotifyApiClient spotifyApiClient;
+    private final ParallelFetcher parallelFetcher;
+    private final MVStore store;
+    private final MVMap<String, double[]> trackFeatures;
+    private final MVMap<String, double[]> artistFeatures;
+    private final MVMap<String, Long> artistComputedAt;
+    private final MVMap<String, Long> state;
+
+    private volatile long unavailableUntil;
+    // Set once an /audio-features call succeeded in this process
+    private volatile boolean accessConfirmed;
+
+    @Value("${spotify.audio-features.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spotify.audio-features.tracks-per-artist:5}")
+    private int tracksPerArtist;
+
+    @Value("${spotify.audio-features.artist-ttl-days:30}")
+    private long artistTtlDays;
+
+    @Value("${spotify.audio-features.unavailable-minutes:60}")
+    private long unavailableMinutes;
+
+    @Value("${spotify.audio-features.deadline-ms:6000}")
+    private long deadlineMs;
+
+    public AudioFeatureStore(SpotifyApiClient spotifyApiClient, ParallelFetcher parallelFetcher,
+                             @Value("${spotify.audio-features.file:./data/audio-features.mv.db}") String file)
+            throws IOException {
+        this.spotifyApiClient = spotifyApiClient;
+        this.parallelFetcher = parallelFetcher;
+
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).compress().open();
+        this.trackFeatures = store.openMap("tracks");
+        this.artistFeatures = store.openMap("artists");
+        this.artistComputedAt = store.openMap("artistComputedAt");
+        this.state = store.openMap("state");
+        this.unavailableUntil = state.getOrDefault("unavailableUntil", 0L);
+        System.out.println("💾 Audio feature store opened at " + path + " with " + trackFeatures.size()
+                + " tracks and " + artistFeatures.size() + " artists");
+    }
+
+    /**
+     * Audio features of the given tracks; stored ones are served locally and
+     * misses are fetched in batches of up to 100.
+     *
+     * @return features by track ID; tracks without features are left out
+     */
+    public Map<String, Map<String, Double>> getTrackFeatures(Collection<String> trackIds, String accessToken) {
+        Map<String, double[]> vectors = trackVectors(trackIds, accessToken);
+        Map<String, Map<String, Double>> result = new LinkedHashMap<>();
+        vectors.forEach((id, vector) -> result.put(id, toMap(vector)));
+        return result;
+    }
+
+    /**
+     * Average audio features over each artist's top tracks. Precomputed
+     * averages are served from the store; for the rest, top tracks are looked
+     * up in parallel and their features fetched in shared batches.
+     *
+     * @return averages by artist ID; artists without features are left out
+     */
+    public Map<String, Map<String, Double>> getArtistFeatures(Collection<String> artistIds, String accessToken) {
+        Map<String, Map<String, Double>> result = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        long freshAfter = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(artistTtlDays);
+
+        for (String artistId : new LinkedHashSet<>(artistIds)) {
+            if (artistId == null) continue;
+            double[] vector = artistFeatures.get(artistId);
+            Long computedAt = artistComputedAt.get(artistId);
+            if (vector != null && computedAt != null && computedAt > freshAfter) {
+                if (vector.length > 0) result.put(artistId, toMap(vector));
+            } else {
+                missing.add(artistId);
+            }
+        }
+        if (missing.isEmpty() || !available()) {
+            return result;
+        }
+
+        System.out.println("🎚️ Precomputing audio features for " + missing.size() + " artists ("
+                + result.size() + " already stored)");
+        Map<String, List<String>> topTrackIds = new LinkedHashMap<>();
+        List<String> fanOut = missing;
+        if (!accessConfirmed) {
+            // Probe with one artist; on a 403 the rest fall back to genres without any top-track calls
+            String probe = missing.get(0);
+            try {
+                List<String> probeTrackIds = topTrackIds(probe, accessToken);
+                topTrackIds.put(probe, probeTrackIds);
+                trackVectors(probeTrackIds, accessToken);
+            } catch (Exception e) {
+                System.out.println("❌ Error fetching top tracks for " + probe + ": " + e.getMessage());
+            }
+            if (!available()) {
+                return result;
+            }
+            fanOut = missing.subList(1, missing.size());
+        }
+        topTrackIds.putAll(parallelFetcher.fetchAll(fanOut,
+                artistId -> topTrackIds(artistId, accessToken),
+                ParallelFetcher.deadlineAfter(deadlineMs)));
+
+        Set<String> allTrackIds = new LinkedHashSet<>();
+        topTrackIds.values().forEach(allTrackIds::addAll);
+        Map<String, double[]> vectors = trackVectors(allTrackIds, accessToken);
+
+        long now = System.currentTimeMillis();
+        topTrackIds.forEach((artistId, trackIds) -> {
+            if (!trackIds.stream().allMatch(trackFeatures::containsKey)) {
+                // A batch failed or was refused; compute this artist another time
+                return;
+            }
+            double[] average = average(trackIds.stream().map(vectors::get).filter(Objects::nonNull).toList());
+            artistFeatures.put(artistId, average);
+            artistComputedAt.put(artistId, now);
+            if (average.length > 0) result.put(artistId, toMap(average));
+        });
+        return result;
+    }
+
+    private Map<String, double[]> trackVectors(Collection<String> trackIds, String accessToken) {
+        Map<String, double[]> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String trackId : new LinkedHashSet<>(trackIds)) {
+            if (trackId == null) continue;
+            double[] vector = trackFeatures.get(trackId);
+            if (vector == null) {
+                missing.add(trackId);
+            } else if (vector.length > 0) {
+                result.put(trackId, vector);
+            }
+        }
+
+        for (int from = 0; from < missing.size() && available(); from += MAX_IDS_PER_CALL) {
+            List<String> batch = missing.subList(from, Math.min(from + MAX_IDS_PER_CALL, missing.size()));
+            Map<String, double[]> fetched = fetchBatch(batch, accessToken);
+            if (fetched == null) break;
+            for (String trackId : batch) {
+                double[] vector = fetched.getOrDefault(trackId, NO_FEATURES);
+                trackFeatures.put(trackId, vector);
+                if (vector.length > 0) result.put(trackId, vector);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return features of one batch by track ID, or null if the call failed
+     */
+    private Map<String, double[]> fetchBatch(List<String> trackIds, String accessToken) {
+        String url = SpotifyApiClient.SPOTIFY_API_URL + "/audio-features?ids=" + String.join(",", trackIds);
+        try {
+            SpotifyJson.AudioFeaturesList response =
+                    spotifyApiClient.get(url, accessToken, SpotifyJson.AudioFeaturesList.class);
+            Map<String, double[]> fetched = new HashMap<>();
+            if (response != null && response.audioFeatures() != null) {
+                for (SpotifyJson.AudioFeatures features : response.audioFeatures()) {
+                    if (features != null && features.id() != null) {
+                        fetched.put(features.id(), toVector(features));
+                    }
+                }
+            }
+            System.out.println("🎚️ Fetched audio features for " + fetched.size() + " of " + trackIds.size() + " tracks");
+            accessConfirmed = true;
+            return fetched;
+        } catch (HttpClientErrorException.Forbidden e) {
+            unavailableUntil = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(unavailableMinutes);
+            accessConfirmed = false;
+            state.put("unavailableUntil", unavailableUntil);
+            System.out.println("⚠️ Audio features access forbidden - serving stored features only for "
+                    + unavailableMinutes + " minutes");
+        } catch (Exception e) {
+            System.out.println("❌ Error fetching audio features: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private List<String> topTrackIds(String artistId, String accessToken) {
+        String url = SpotifyApiClient.SPOTIFY_API_URL + "/artists/" + artistId + "/top-tracks?market=US";
+        SpotifyJson.Tracks response = spotifyApiClient.get(url, accessToken, SpotifyJson.Tracks.class);
+        if (response == null || response.tracks() == null) {
+            return List.of();
+        }
+        return response.tracks().stream()
+                .filter(Objects::nonNull)
+                .map(SpotifyJson.TrackObject::id)
+                .filter(Objects::nonNull)
+                .limit(tracksPerArtist)
+                .toList();
+    }
+
+    private boolean available() {
+        return enabled && System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    private static double[] toVector(SpotifyJson.AudioFeatures features) {
+        return new double[] {
+                valueOrNaN(features.danceability()), valueOrNaN(features.energy()), valueOrNaN(features.valence()),
+                valueOrNaN(features.tempo()), valueOrNaN(features.acousticness()), valueOrNaN(features.loudness())};
+    }
+
+    private static double valueOrNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    // Average per feature over the vectors that have it; an empty vector if none do
+    private static double[] average(List<double[]> vectors) {
+        if (vectors.isEmpty()) {
+            return NO_FEATURES;
+        }
+        double[] average = new double[FEATURES.length];
+        for (int i = 0; i < FEATURES.length; i++) {
+            double sum = 0;
+            int count = 0;
+            for (double[] vector : vectors) {
+                if (!Double.isNaN(vector[i])) {
+                    sum += vector[i];
+                    count++;
+                }
+            }
+            average[i] = count > 0 ? sum / count : Double.NaN;
+        }
+        return average;
+    }
+
+    private static Map<String, Double> toMap(double[] vector) {
+        Map<String, Double> features = new HashMap<>();
+        for (int i = 0; i < FEATURES.length; i++) {
+            if (!Double.isNaN(vector[i])) {
+                features.put(FEATURES[i], vector[i]);
+            }
+        }
+        return features;
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+}
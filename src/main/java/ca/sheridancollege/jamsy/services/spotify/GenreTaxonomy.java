@@ -0,0 +1,201 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/*
+ * Precompiled genre → workout-category taxonomy.
+ *
+ * All search terms are compiled once into an Aho–Corasick automaton, stored
+ * as a dense transition table, so one pass over a genre string finds every
+ * term it contains. Each term carries a bitmask of the categories it votes
+ * for, separately for the three term lists SpotifyArtistService scores with:
+ *
+ *   bits 0-3   SCORING   categorizeGenres
+ *   bits 4-7   ANY       determineWorkoutCategories, "any genre mentions it"
+ *   bits 8-11  KEYWORD   determineWorkoutCategories, per-genre keyword bonus
+ *
+ * The mask of a genre is the OR of the masks of the terms found in it and is
+ * cached per genre string, so categorizing an artist is a few ORs.
+ * Matching is case-insensitive substring matching, as with String.contains.
+ */
+final class GenreTaxonomy {
+
+    static final int CARDIO = 1;
+    static final int STRENGTH = 1 << 1;
+    static final int HIIT = 1 << 2;
+    static final int YOGA = 1 << 3;
+
+    static final int SCORING = 0;
+    static final int ANY = 4;
+    static final int KEYWORD = 8;
+
+    // Same order the previous HashMap-based scoring listed categories in
+    static final int[] CATEGORY_ORDER = {CARDIO, YOGA, HIIT, STRENGTH};
+
+    private static final Map<Integer, String> NAMES = Map.of(
+            CARDIO, "Cardio",
+            STRENGTH, "Strength Training",
+            HIIT, "HIIT",
+            YOGA, "Yoga");
+
+    private static final Map<String, Integer> TERMS = new HashMap<>();
+
+    static {
+        terms(SCORING, CARDIO, "pop", "dance", "edm", "house", "techno", "electronic", "disco", "electropop",
+                "synthpop", "eurodance", "dancepop", "electro", "trance", "club", "party");
+        terms(SCORING, STRENGTH, "rock", "metal", "punk", "alternative", "grunge", "hard rock", "heavy metal",
+                "classic rock", "hardcore", "post-rock", "progressive rock", "metalcore", "thrash");
+        terms(SCORING, HIIT, "hip", "rap", "trap", "drill", "r&b", "urban", "gangsta", "east coast", "west coast",
+                "southern hip hop", "hardcore rap", "grime");
+        terms(SCORING, YOGA, "indie", "folk", "acoustic", "ambient", "chill", "lo-fi", "jazz", "classical",
+                "singer-songwriter", "indie folk", "ambient pop", "dream pop", "chillout", "new age", "meditation");
+
+        terms(ANY, CARDIO, "pop", "dance", "edm", "house", "techno", "electronic", "disco", "electropop",
+                "synthpop", "eurodance", "dancepop", "electro", "trance");
+        terms(ANY, STRENGTH, "rock", "metal", "hard rock", "punk", "alternative", "grunge", "heavy metal",
+                "hardcore", "post-rock", "progressive rock", "classic rock");
+        terms(ANY, HIIT, "hip hop", "rap", "trap", "drill", "r&b", "urban", "gangsta rap", "east coast hip hop",
+                "west coast hip hop", "southern hip hop");
+        terms(ANY, YOGA, "indie", "folk", "acoustic", "ambient", "chill", "lo-fi", "jazz", "classical",
+                "singer-songwriter", "indie folk", "ambient pop", "dream pop", "chillout");
+
+        terms(KEYWORD, CARDIO, "pop", "dance");
+        terms(KEYWORD, STRENGTH, "rock", "metal");
+        terms(KEYWORD, HIIT, "hip", "rap", "trap");
+        terms(KEYWORD, YOGA, "indie", "folk", "jazz", "ambient", "chill");
+    }
+
+    private static void terms(int group, int category, String... terms) {
+        for (String term : terms) {
+            TERMS.merge(term, category << group, (a, b) -> a | b);
+        }
+    }
+
+    private static final Automaton AUTOMATON = new Automaton(TERMS);
+
+    // Genre vocabularies are small; the bound only guards against free-form tags
+    private static final Cache<String, Integer> MASKS = Caffeine.newBuilder().maximumSize(20_000).build();
+
+    private GenreTaxonomy() {
+    }
+
+    /**
+     * Category bits of every term list matched by the genre (see the layout above).
+     */
+    static int mask(String genre) {
+        if (genre == null || genre.isEmpty()) {
+            return 0;
+        }
+        return MASKS.get(genre, AUTOMATON::scan);
+    }
+
+    /**
+     * The four category bits of one term list within a genre mask.
+     */
+    static int categories(int mask, int group) {
+        return (mask >>> group) & 0xF;
+    }
+
+    static String name(int category) {
+        return NAMES.get(category);
+    }
+
+    static List<String> names(int categories) {
+        List<String> names = new ArrayList<>(4);
+        for (int category : CATEGORY_ORDER) {
+            if ((categories & category) != 0) {
+                names.add(NAMES.get(category));
+            }
+        }
+        return names;
+    }
+
+    /*
+     * Aho–Corasick automaton with failure links folded into a full transition
+     * table. Characters that appear in no term share one symbol, which always
+     * leads back towards the root.
+     */
+    private static final class Automaton {
+
+        private final int[] symbols = new int[128];
+        private final int alphabetSize;
+        private final int[] next;
+        private final int[] output;
+
+        Automaton(Map<String, Integer> terms) {
+            int size = 1;
+            for (String term : terms.keySet()) {
+                for (char c : term.toCharArray()) {
+                    if (symbols[c] == 0) symbols[c] = size++;
+                }
+            }
+            alphabetSize = size;
+
+            // Trie
+            List<int[]> trie = new ArrayList<>();
+            List<Integer> outputs = new ArrayList<>();
+            trie.add(new int[alphabetSize]);
+            outputs.add(0);
+            for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+                int state = 0;
+                for (char c : entry.getKey().toCharArray()) {
+                    int symbol = symbols[c];
+                    if (trie.get(state)[symbol] == 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(new int[alphabetSize]);
+                        outputs.add(0);
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                outputs.set(state, outputs.get(state) | entry.getValue());
+            }
+
+            // Breadth-first: fill missing transitions from the failure state and inherit its output
+            int states = trie.size();
+            next = new int[states * alphabetSize];
+            output = new int[states];
+            int[] fail = new int[states];
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int child = trie.get(0)[symbol];
+                next[symbol] = child;
+                if (child != 0) queue[tail++] = child;
+            }
+            output[0] = outputs.get(0);
+            while (head < tail) {
+                int state = queue[head++];
+                output[state] = outputs.get(state) | output[fail[state]];
+                for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                    int child = trie.get(state)[symbol];
+                    if (child != 0) {
+                        fail[child] = next[fail[state] * alphabetSize + symbol];
+                        next[state * alphabetSize + symbol] = child;
+                        queue[tail++] = child;
+                    } else {
+                        next[state * alphabetSize + symbol] = next[fail[state] * alphabetSize + symbol];
+                    }
+                }
+            }
+        }
+
+        int scan(String text) {
+            int state = 0;
+            int mask = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int symbol = c < 128 ? symbols[c] : 0;
+                state = next[state * alphabetSize + symbol];
+                mask |= output[state];
+            }
+            return mask;
+        }
+    }
+}
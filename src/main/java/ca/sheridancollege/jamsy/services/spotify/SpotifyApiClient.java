@@ -1,8 +1,5 @@
 package ca.sheridancollege.jamsy.services.spotify;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -12,57 +9,31 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import ca.sheridancollege.jamsy.services.outbound.OutboundMetrics;
+import ca.sheridancollege.jamsy.services.outbound.Provider;
+import ca.sheridancollege.jamsy.services.outbound.RetryScheduler;
 import jakarta.annotation.PostConstruct;
 
 
 /*
- *A thin wrapper around RestTemplate and rate limiting 
+ *A thin wrapper around RestTemplate. Rate limiting is applied to every
+ *outbound call by RateLimitInterceptor (see ProviderRateLimiter).
+ *GETs that hit 429/5xx are retried by RetryScheduler.
  **/
 @Service
 public class SpotifyApiClient {
 	
 	public static final String SPOTIFY_API_URL = "https://api.spotify.com/v1";
 	private final RestTemplate restTemplate;
-	
-	private static final int MAX_REQUESTS_PER_MINUTE = 50;
-    private static final Map<String, RateLimitInfo> rateLimitMap = new ConcurrentHashMap<>();
+	private final RetryScheduler retryScheduler;
 	
     @Autowired
-    public SpotifyApiClient(RestTemplate restTemplate) {
+    public SpotifyApiClient(RestTemplate restTemplate, RetryScheduler retryScheduler) {
         this.restTemplate = restTemplate;
+        this.retryScheduler = retryScheduler;
         System.out.println("✅ RestTemplate injected successfully into SpotifyApiClient! " + this);
     }
     
-	 // Add this inner class
-    private static class RateLimitInfo {
-        private int requestCount = 0;
-        private long lastResetTime = System.currentTimeMillis();
-    }
-    
-    // Modify your methods to include rate limiting
-    public synchronized void checkRateLimit(String endpoint) {
-        RateLimitInfo info = rateLimitMap.computeIfAbsent(endpoint, k -> new RateLimitInfo());
-        
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - info.lastResetTime > 60000) { // 1 minute
-            info.requestCount = 0;
-            info.lastResetTime = currentTime;
-        }
-        
-        if (info.requestCount >= MAX_REQUESTS_PER_MINUTE) {
-            try {
-                Thread.sleep(1000); // Wait 1 second
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            info.requestCount = 0;
-            info.lastResetTime = System.currentTimeMillis();
-        }
-        
-        info.requestCount++;
-    }
-
-    
     /**
      * Generic GET request to Spotify API.
      */
@@ -71,8 +42,8 @@ public class SpotifyApiClient {
         headers.setBearerAuth(accessToken);
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, entity, responseType);
-        return response.getBody();
+        return retryScheduler.call(Provider.SPOTIFY, OutboundMetrics.endpoint(Provider.SPOTIFY, url),
+                () -> restTemplate.exchange(url, HttpMethod.GET, entity, responseType).getBody());
     }
 
     /**
@@ -0,0 +1,143 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/*
+ * Resolves Spotify artist objects through the bulk /artists?ids= endpoint.
+ *
+ * Lookups are queued for a short window and then sent in chunks of 50 IDs,
+ * so every caller that asked during the window with the same token (e.g.
+ * concurrent requests of one user) is answered from the same response.
+ * Batches never mix tokens: each call carries the token of the callers it
+ * answers, so one user's lookups are never made with another's credentials.
+ * A lookup not answered within spotify.artist-batch.timeout-ms resolves to null.
+ */
+@Service
+public class SpotifyArtistBatcher {
+
+    private static final int MAX_IDS_PER_CALL = 50;
+
+    private final SpotifyApiClient spotifyApiClient;
+    private final Executor flushExecutor;
+    private final ConcurrentLinkedQueue<PendingLookup> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    @Value("${spotify.artist-batch.window-ms:20}")
+    private long windowMs;
+
+    @Value("${spotify.artist-batch.timeout-ms:15000}")
+    private long timeoutMs;
+
+    private record PendingLookup(String artistId, String accessToken, CompletableFuture<SpotifyJson.ArtistObject> result) {}
+
+    public SpotifyArtistBatcher(SpotifyApiClient spotifyApiClient,
+                                @Qualifier("outboundExecutor") ExecutorService outboundExecutor) {
+        this.spotifyApiClient = spotifyApiClient;
+        this.flushExecutor = outboundExecutor;
+    }
+
+    /**
+     * Queue one artist ID. The future completes with the decoded Spotify artist
+     * object, or null when Spotify does not know the ID, the call failed or
+     * it took longer than the timeout.
+     */
+    public CompletableFuture<SpotifyJson.ArtistObject> lookup(String artistId, String accessToken) {
+        PendingLookup lookup = new PendingLookup(artistId, accessToken, new CompletableFuture<>());
+        pending.add(lookup);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Executor delayed = CompletableFuture.delayedExecutor(windowMs, TimeUnit.MILLISECONDS, flushExecutor);
+            delayed.execute(this::flush);
+        }
+        return lookup.result().completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Resolve several IDs at once; they end up in the same batch.
+     *
+     * @return artist objects keyed by ID, in request order, missing IDs left out
+     */
+    public Map<String, SpotifyJson.ArtistObject> lookupAll(Collection<String> artistIds, String accessToken) {
+        Map<String, CompletableFuture<SpotifyJson.ArtistObject>> futures = new LinkedHashMap<>();
+        for (String artistId : artistIds) {
+            if (artistId != null && !futures.containsKey(artistId)) {
+                futures.put(artistId, lookup(artistId, accessToken));
+            }
+        }
+
+        Map<String, SpotifyJson.ArtistObject> artists = new LinkedHashMap<>();
+        futures.forEach((artistId, future) -> {
+            SpotifyJson.ArtistObject artist = future.join();
+            if (artist != null) {
+                artists.put(artistId, artist);
+            }
+        });
+        return artists;
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+
+        // token -> artist ID -> waiters; a batch only ever carries its own callers' token
+        Map<String, Map<String, List<PendingLookup>>> waitersByToken = new LinkedHashMap<>();
+        PendingLookup lookup;
+        while ((lookup = pending.poll()) != null) {
+            waitersByToken.computeIfAbsent(lookup.accessToken(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(lookup.artistId(), k -> new ArrayList<>())
+                    .add(lookup);
+        }
+        waitersByToken.forEach(this::flushToken);
+    }
+
+    private void flushToken(String accessToken, Map<String, List<PendingLookup>> waitersById) {
+        List<String> ids = new ArrayList<>(waitersById.keySet());
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_CALL) {
+            List<String> chunk = ids.subList(i, Math.min(i + MAX_IDS_PER_CALL, ids.size()));
+            Map<String, SpotifyJson.ArtistObject> found;
+            try {
+                found = fetchArtists(chunk, accessToken);
+            } catch (Exception e) {
+                System.out.println("❌ Error resolving artist batch: " + e.getMessage());
+                found = Map.of();
+            }
+
+            for (String artistId : chunk) {
+                for (PendingLookup waiter : waitersById.get(artistId)) {
+                    waiter.result().complete(found.get(artistId));
+                }
+            }
+        }
+        System.out.println("🎤 Resolved " + ids.size() + " artists in "
+                + ((ids.size() + MAX_IDS_PER_CALL - 1) / MAX_IDS_PER_CALL) + " Spotify call(s)");
+    }
+
+    private Map<String, SpotifyJson.ArtistObject> fetchArtists(List<String> artistIds, String accessToken) {
+        String url = SpotifyApiClient.SPOTIFY_API_URL + "/artists?ids=" + String.join(",", artistIds);
+        SpotifyJson.Artists body = spotifyApiClient.get(url, accessToken, SpotifyJson.Artists.class);
+
+        Map<String, SpotifyJson.ArtistObject> artists = new HashMap<>();
+        if (body != null && body.artists() != null) {
+            for (SpotifyJson.ArtistObject artist : body.artists()) {
+                // Unknown IDs come back as null entries
+                if (artist != null && artist.id() != null) {
+                    artists.put(artist.id(), artist);
+                }
+            }
+        }
+        return artists;
+    }
+}
@@ -9,10 +9,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -21,6 +23,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import ca.sheridancollege.jamsy.config.CacheConfig;
 import ca.sheridancollege.jamsy.services.DeezerService;
 import ca.sheridancollege.jamsy.services.LastFmService;
 import ca.sheridancollege.jamsy.services.MusicBrainzService;
@@ -32,8 +37,10 @@ public class SpotifyArtistService {
 	
 	private final RestTemplate restTemplate;
 	private final SpotifyApiClient spotifyApiClient;
-	private final Map<String, List<Map<String, Object>>> artistCache = new ConcurrentHashMap<>();
 	private final LastFmService lastFmService;
+	private final SpotifyArtistBatcher spotifyArtistBatcher;
+	private final SpotifyUserService spotifyUserService;
+	private final CacheManager cacheManager;
 	private SpotifyTrackService spotifyTrackService;
 	private MusicBrainzService musicBrainzService;
 	
@@ -43,139 +50,79 @@ public class SpotifyArtistService {
 			 RestTemplate restTemplate,
 			 SpotifyTrackService spotifyTrackService,
 			 MusicBrainzService musicBrainzService,
-			 SpotifyApiClient spotifyApiClient
+			 SpotifyApiClient spotifyApiClient,
+			 SpotifyArtistBatcher spotifyArtistBatcher,
+			 SpotifyUserService spotifyUserService,
+			 CacheManager cacheManager
 		 ) {
 	        this.lastFmService = last;
 	        this.restTemplate = restTemplate;
 	        this.spotifyTrackService = spotifyTrackService;
 	        this.musicBrainzService = musicBrainzService;
 	        this.spotifyApiClient = spotifyApiClient;
+	        this.spotifyArtistBatcher = spotifyArtistBatcher;
+	        this.spotifyUserService = spotifyUserService;
+	        this.cacheManager = cacheManager;
 	    }
 	
 	public String getArtistName(String artistId, String accessToken) {
-        try {
-            String url = "https://api.spotify.com/v1/artists/" + artistId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                return (String) response.getBody().get("name");
-            }
-        } catch (Exception e) {
-            System.out.println("Error getting artist name for " + artistId + ": " + e.getMessage());
-        }
-        return null;
+        SpotifyJson.ArtistObject artist = spotifyArtistBatcher.lookup(artistId, accessToken).join();
+        return artist != null ? artist.name() : null;
     }
 	
 	public List<Map<String, Object>> getArtistNames(List<String> artistIds, String accessToken) {
 	    List<Map<String, Object>> artistDetails = new ArrayList<>();
-	    for (String artistId : artistIds) {
-	        try {
-	            String url = "https://api.spotify.com/v1/artists/" + artistId;
-	            HttpHeaders headers = new HttpHeaders();
-	            headers.set("Authorization", "Bearer " + accessToken);
-	            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-	            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-	            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-	                Map<String, Object> body = response.getBody();
+	    // One /artists?ids= call per 50 IDs instead of one call per artist
+	    Map<String, SpotifyJson.ArtistObject> artists = spotifyArtistBatcher.lookupAll(artistIds, accessToken);
+	    for (SpotifyJson.ArtistObject artist : artists.values()) {
+	        Map<String, Object> artistInfo = new HashMap<>();
+	        artistInfo.put("id", artist.id());
+	        artistInfo.put("name", artist.name());
+	        artistInfo.put("genres", artist.genres());
 
-	                Map<String, Object> artistInfo = new HashMap<>();
-	                artistInfo.put("id", body.get("id"));
-	                artistInfo.put("name", body.get("name"));
-	                artistInfo.put("genres", body.get("genres"));
-
-	                // get image if exists
-	                List<Map<String, Object>> images = (List<Map<String, Object>>) body.get("images");
-	                if (images != null && !images.isEmpty()) {
-	                    artistInfo.put("imageUrl", images.get(0).get("url"));
-	                }
-
-	                artistDetails.add(artistInfo);
-	            }
-	        } catch (Exception e) {
-	            System.out.println("Error getting artist details for " + artistId + ": " + e.getMessage());
+	        // get image if exists
+	        String imageUrl = artist.imageUrl();
+	        if (imageUrl != null) {
+	            artistInfo.put("imageUrl", imageUrl);
 	        }
+
+	        artistDetails.add(artistInfo);
 	    }
 	    return artistDetails;
 	}
 
-
-	private String parseImageUrlFromJson(String jsonResponse) {
-        try {
-            // Simple JSON parsing - find the images array
-            int imagesIndex = jsonResponse.indexOf("\"images\":");
-            if (imagesIndex == -1) return null;
-            
-            int arrayStart = jsonResponse.indexOf("[", imagesIndex);
-            int arrayEnd = jsonResponse.indexOf("]", arrayStart);
-            String imagesArray = jsonResponse.substring(arrayStart, arrayEnd + 1);
-            
-            // Find the first URL in the images array
-            int urlIndex = imagesArray.indexOf("\"url\":");
-            if (urlIndex == -1) return null;
-            
-            int urlStart = imagesArray.indexOf("\"", urlIndex + 6) + 1;
-            int urlEnd = imagesArray.indexOf("\"", urlStart);
-            return imagesArray.substring(urlStart, urlEnd);
-            
-        } catch (Exception e) {
-            System.out.println("Error parsing image URL from JSON: " + e.getMessage());
-            return null;
-        }
-    }
 	public String getArtistImageUrl(String accessToken, String artistId) {
-        try {
-            String url = "https://api.spotify.com/v1/artists/" + artistId;
-            
-            // Use pure Java HTTP client - no external dependencies
-            java.net.URL spotifyUrl = new java.net.URL(url);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) spotifyUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + accessToken);
-            connection.setConnectTimeout(3000);
-            connection.setReadTimeout(3000);
-            
-            int responseCode = connection.getResponseCode();
-            if (responseCode == 200) {
-                // Read the response
-                java.io.BufferedReader reader = new java.io.BufferedReader(
-                    new java.io.InputStreamReader(connection.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-                
-                // Parse the JSON response to extract image URL
-                return parseImageUrlFromJson(response.toString());
-            } else {
-                System.out.println("Spotify API returned error code: " + responseCode);
-            }
-        } catch (java.net.SocketTimeoutException e) {
-            System.out.println("Timeout getting artist image for ID " + artistId);
-        } catch (Exception e) {
-            System.out.println("Error getting artist image for ID " + artistId + ": " + e.getMessage());
-        }
-        return null;
+        SpotifyJson.ArtistObject artist = spotifyArtistBatcher.lookup(artistId, accessToken).join();
+        return artist != null ? artist.imageUrl() : null;
     }
 	
+	/**
+	 * Image URLs for a whole page of artist cards, resolved in one or two batched calls.
+	 * Artists without an image are left out of the result.
+	 */
+	public Map<String, String> getArtistImageUrls(String accessToken, List<String> artistIds) {
+	    Map<String, String> imageUrls = new HashMap<>();
+	    spotifyArtistBatcher.lookupAll(artistIds, accessToken).forEach((artistId, artist) -> {
+	        String imageUrl = artist.imageUrl();
+	        if (imageUrl != null) {
+	            imageUrls.put(artistId, imageUrl);
+	        }
+	    });
+	    return imageUrls;
+	}
+	
 	public List<String> getArtistTopTracks(String artistId, String accessToken, int limit) {
-		 
-		spotifyApiClient.checkRateLimit("artist-top-tracks");
 	     try {
 	         String url = spotifyApiClient.SPOTIFY_API_URL + "/artists/" + artistId + "/top-tracks?market=US";
 	         HttpHeaders headers = new HttpHeaders();
 	         headers.set("Authorization", "Bearer " + accessToken);
 	         HttpEntity<String> entity = new HttpEntity<>(headers);
-	         ResponseEntity<Map> resp = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+	         ResponseEntity<SpotifyJson.Tracks> resp =
+	                 restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.Tracks.class);
 	         if (resp.getStatusCode() == HttpStatus.OK && resp.getBody() != null) {
-	             List<Map<String,Object>> tracks = (List<Map<String,Object>>) resp.getBody().get("tracks");
+	             List<SpotifyJson.TrackObject> tracks = resp.getBody().tracks();
 	             if (tracks != null) {
-	                 return tracks.stream().map(t -> (String) t.get("id")).filter(Objects::nonNull).limit(limit).collect(Collectors.toList());
+	                 return tracks.stream().map(SpotifyJson.TrackObject::id).filter(Objects::nonNull).limit(limit).collect(Collectors.toList());
 	             }
 	         }
 	     } catch (Exception e) {
@@ -194,12 +141,12 @@ public class SpotifyArtistService {
 	            headers.set("Authorization", "Bearer " + accessToken);
 	            HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-	            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-	            List<Map<String, Object>> artists = (List<Map<String, Object>>) response.getBody().get("artists");
+	            ResponseEntity<SpotifyJson.Artists> response =
+	                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.Artists.class);
 
 	            // Collect IDs
-	            for (Map<String, Object> artist : artists) {
-	                relatedIds.add((String) artist.get("id"));
+	            for (SpotifyJson.ArtistObject artist : response.getBody().artists()) {
+	                relatedIds.add(artist.id());
 	            }
 
 	            // sleep 200ms to avoid 429
@@ -220,14 +167,13 @@ public class SpotifyArtistService {
         headers.set("Authorization", "Bearer " + accessToken);
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+        ResponseEntity<SpotifyJson.Artists> response =
+                restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.Artists.class);
 
         List<String> ids = new ArrayList<>();
         if (response.getStatusCode().is2xxSuccessful()) {
-            List<Map<String, Object>> artists = (List<Map<String, Object>>) response.getBody().get("artists");
-            for (Map<String, Object> a : artists) {
-                ids.add((String) a.get("id"));
+            for (SpotifyJson.ArtistObject a : response.getBody().artists()) {
+                ids.add(a.id());
                 if (ids.size() >= limit) break;
             }
         }
@@ -235,73 +181,93 @@ public class SpotifyArtistService {
         return ids;
     }
 	
+	/**
+	 * Categorized top artists, cached per Spotify user in the bounded
+	 * "categorizedArtists" cache (size and TTL from spring.cache.caffeine.spec).
+	 * Concurrent requests for the same user wait for a single load.
+	 */
 	public List<Map<String, Object>> getUserTopArtistsWithWorkoutCategories(String accessToken, int limit) {
-        String cacheKey = accessToken + "_categorized_artists_" + limit;
-        
-        if (artistCache.containsKey(cacheKey)) {
-            return artistCache.get(cacheKey);
+        try {
+            String cacheKey = spotifyUserService.getSpotifyUserId(accessToken) + ":" + limit;
+            Cache cache = cacheManager.getCache(CacheConfig.CATEGORIZED_ARTISTS);
+            List<Map<String, Object>> categorizedArtists =
+                    cache.get(cacheKey, () -> loadUserTopArtistsWithWorkoutCategories(accessToken, limit));
+            printCacheStats(cache);
+            return categorizedArtists;
+        } catch (Exception e) {
+            System.out.println("❌ Error fetching categorized artists: " + e.getMessage());
+            return new ArrayList<>();
         }
-        
+    }
+	
+	private List<Map<String, Object>> loadUserTopArtistsWithWorkoutCategories(String accessToken, int limit) {
         List<Map<String, Object>> categorizedArtists = new ArrayList<>();
         int offset = 0;
         int retrieved = 0;
         
-        try {
-            while (retrieved < limit) {
-                int batchSize = Math.min(50, limit - retrieved);
-                String url = spotifyApiClient.SPOTIFY_API_URL + "/me/top/artists?limit=" + batchSize + "&offset=" + offset + "&time_range=long_term";
+        while (retrieved < limit) {
+            int batchSize = Math.min(50, limit - retrieved);
+            String url = spotifyApiClient.SPOTIFY_API_URL + "/me/top/artists?limit=" + batchSize + "&offset=" + offset + "&time_range=long_term";
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + accessToken);
+            HttpEntity<String> entity = new HttpEntity<>(headers);
+            
+            ResponseEntity<SpotifyJson.TopArtists> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TopArtists.class);
+            
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                List<SpotifyJson.ArtistObject> items = response.getBody().items();
                 
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Authorization", "Bearer " + accessToken);
-                HttpEntity<String> entity = new HttpEntity<>(headers);
+                if (items == null || items.isEmpty()) break;
                 
-                ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+                // Stored per-artist averages; only artists never seen before cost network calls
+                Map<String, Map<String, Double>> audioFeatures = spotifyTrackService.getArtistsAudioFeatures(
+                        accessToken, items.stream().map(SpotifyJson.ArtistObject::id).toList());
                 
-                if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                    Map<String, Object> responseBody = response.getBody();
-                    List<Map<String, Object>> items = (List<Map<String, Object>>) responseBody.get("items");
+                for (SpotifyJson.ArtistObject artist : items) {
+                    String artistId = artist.id();
+                    String artistName = artist.name();
                     
-                    if (items == null || items.isEmpty()) break;
+                    Map<String, Object> artistInfo = new HashMap<>();
+                    artistInfo.put("id", artistId);
+                    artistInfo.put("name", artistName);
+                    artistInfo.put("genres", artist.genres());
+                    artistInfo.put("popularity", artist.popularity());
                     
-                    for (Map<String, Object> artist : items) {
-                        String artistId = (String) artist.get("id");
-                        String artistName = (String) artist.get("name");
-                        
-                        Map<String, Object> artistInfo = new HashMap<>();
-                        artistInfo.put("id", artistId);
-                        artistInfo.put("name", artistName);
-                        artistInfo.put("genres", artist.get("genres"));
-                        artistInfo.put("popularity", artist.get("popularity"));
-                        
-                        // Try audio features first, fallback to genre analysis if 403
-                        List<String> workoutCategories;
-                        
-                        workoutCategories = determineWorkoutCategoriesFromGenres(artistName);
-                        
-                        
-                        artistInfo.put("workoutCategories", workoutCategories);
-                        categorizedArtists.add(artistInfo);
-                        retrieved++;
-                    }
+                    // Try audio features first, fallback to genre analysis if 403
+                    List<String> workoutCategories =
+                            analyzeAudioFeaturesForWorkout(audioFeatures.get(artistId), artistName);
                     
-                    offset += items.size();
-                    if (items.size() < batchSize) break;
-                } else {
-                    break;
+                    
+                    // Mutable copy: ensureCategoryBalance may add categories later
+                    artistInfo.put("workoutCategories", new ArrayList<>(workoutCategories));
+                    categorizedArtists.add(artistInfo);
+                    retrieved++;
                 }
+                
+                offset += items.size();
+                if (items.size() < batchSize) break;
+            } else {
+                break;
             }
-            
-            categorizedArtists = ensureCategoryBalance(categorizedArtists);
-            artistCache.put(cacheKey, categorizedArtists);
-            printCategoryDistribution(categorizedArtists);
-            
-        } catch (Exception e) {
-            System.out.println("❌ Error fetching categorized artists: " + e.getMessage());
         }
         
+        categorizedArtists = ensureCategoryBalance(categorizedArtists);
+        printCategoryDistribution(categorizedArtists);
+        
         return categorizedArtists;
     }
 	
+	private void printCacheStats(Cache cache) {
+	    if (cache instanceof CaffeineCache caffeineCache) {
+	        CacheStats stats = caffeineCache.getNativeCache().stats();
+	        System.out.println("📦 Artist cache: size=" + caffeineCache.getNativeCache().estimatedSize() +
+	                " hits=" + stats.hitCount() + " misses=" + stats.missCount() +
+	                " evictions=" + stats.evictionCount());
+	    }
+	}
+	
 
     private List<String> analyzeAudioFeaturesForWorkout(Map<String, Double> features, String artistName) {
         if (features == null || features.isEmpty()) {
@@ -388,79 +354,22 @@ public class SpotifyArtistService {
         return Arrays.asList(getFallbackCategoryBasedOnPopularity(artistName));
     }
     
-    private List<String> categorizeGenres(List<String> genres) {
+    // Package-private so the JMH benchmarks (src/jmh/java) can call it directly
+    List<String> categorizeGenres(List<String> genres) {
         if (genres == null || genres.isEmpty()) {
             return Collections.emptyList();
         }
         
-        List<String> categories = new ArrayList<>();
-        Set<String> genreSet = new HashSet<>(genres);
-        
-        // Enhanced genre mapping with scoring
-        Map<String, Double> categoryScores = new HashMap<>();
-        
-        // Calculate scores for each category based on genre matches
-        for (String genre : genreSet) {
-            String lowerGenre = genre.toLowerCase();
-            
-            // Cardio: Energetic, danceable genres
-            if (lowerGenre.contains("pop") || lowerGenre.contains("dance") || lowerGenre.contains("edm") ||
-                lowerGenre.contains("house") || lowerGenre.contains("techno") || lowerGenre.contains("electronic") ||
-                lowerGenre.contains("disco") || lowerGenre.contains("electropop") || lowerGenre.contains("synthpop") ||
-                lowerGenre.contains("eurodance") || lowerGenre.contains("dancepop") || lowerGenre.contains("electro") ||
-                lowerGenre.contains("trance") || lowerGenre.contains("club") || lowerGenre.contains("party")) {
-                categoryScores.put("Cardio", categoryScores.getOrDefault("Cardio", 0.0) + 1.0);
-            }
-            
-            // Strength Training: Powerful, intense genres
-            if (lowerGenre.contains("rock") || lowerGenre.contains("metal") || lowerGenre.contains("punk") ||
-                lowerGenre.contains("alternative") || lowerGenre.contains("grunge") || lowerGenre.contains("hard rock") ||
-                lowerGenre.contains("heavy metal") || lowerGenre.contains("classic rock") || lowerGenre.contains("hardcore") ||
-                lowerGenre.contains("post-rock") || lowerGenre.contains("progressive rock") || lowerGenre.contains("metalcore") ||
-                lowerGenre.contains("thrash") || lowerGenre.contains("hard rock")) {
-                categoryScores.put("Strength Training", categoryScores.getOrDefault("Strength Training", 0.0) + 1.0);
-            }
-            
-            // HIIT: Intense, high-energy genres
-            if (lowerGenre.contains("hip") || lowerGenre.contains("rap") || lowerGenre.contains("trap") ||
-                lowerGenre.contains("drill") || lowerGenre.contains("r&b") || lowerGenre.contains("urban") ||
-                lowerGenre.contains("gangsta") || lowerGenre.contains("east coast") || lowerGenre.contains("west coast") ||
-                lowerGenre.contains("southern hip hop") || lowerGenre.contains("hardcore rap") || lowerGenre.contains("trap") ||
-                lowerGenre.contains("drill") || lowerGenre.contains("grime")) {
-                categoryScores.put("HIIT", categoryScores.getOrDefault("HIIT", 0.0) + 1.0);
-            }
-            
-            // Yoga: Calm, relaxing genres
-            if (lowerGenre.contains("indie") || lowerGenre.contains("folk") || lowerGenre.contains("acoustic") ||
-                lowerGenre.contains("ambient") || lowerGenre.contains("chill") || lowerGenre.contains("lo-fi") ||
-                lowerGenre.contains("jazz") || lowerGenre.contains("classical") || lowerGenre.contains("singer-songwriter") ||
-                lowerGenre.contains("indie folk") || lowerGenre.contains("ambient pop") || lowerGenre.contains("dream pop") ||
-                lowerGenre.contains("chillout") || lowerGenre.contains("new age") || lowerGenre.contains("meditation")) {
-                categoryScores.put("Yoga", categoryScores.getOrDefault("Yoga", 0.0) + 1.0);
-            }
-        }
-        
-        // Get categories with score above threshold
-        double threshold = 0.5;
-        for (Map.Entry<String, Double> entry : categoryScores.entrySet()) {
-            if (entry.getValue() >= threshold) {
-                categories.add(entry.getKey());
-            }
-        }
-        
-        // If no strong matches, use the highest scoring category
-        if (categories.isEmpty() && !categoryScores.isEmpty()) {
-            String topCategory = categoryScores.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .get()
-                .getKey();
-            categories.add(topCategory);
+        // Every category matched by at least one genre (see GenreTaxonomy)
+        int matched = 0;
+        for (String genre : genres) {
+            matched |= GenreTaxonomy.categories(GenreTaxonomy.mask(genre), GenreTaxonomy.SCORING);
         }
-        
-        return categories;
+        return GenreTaxonomy.names(matched);
     }
     
-    private List<String> determineWorkoutCategories(List<String> genres, String artistName) {
+    // Package-private so the JMH benchmarks (src/jmh/java) can call it directly
+    List<String> determineWorkoutCategories(List<String> genres, String artistName) {
         if (genres == null || genres.isEmpty()) {
             // Try to get genres from Last.fm as fallback
             List<String> lastFmGenres = lastFmService.getArtistGenres(artistName);
@@ -476,75 +385,45 @@ public class SpotifyArtistService {
             return Arrays.asList(getFallbackCategoryBasedOnPopularity(artistName));
         }
         
-        List<String> categories = new ArrayList<>();
-        Set<String> genreSet = new HashSet<>(genres);
-        
-        // Enhanced genre mapping with more specific categories
-        Map<String, Double> categoryScores = new HashMap<>();
-        
-        // Calculate scores for each category based on genre matches
-        if (containsAny(genreSet, "pop", "dance", "edm", "house", "techno", "electronic", "disco", 
-                       "electropop", "synthpop", "eurodance", "dancepop", "electro", "trance")) {
-            categoryScores.put("Cardio", 2.0);
-        }
-        
-        if (containsAny(genreSet, "rock", "metal", "hard rock", "punk", "alternative", "grunge",
-                       "heavy metal", "hardcore", "post-rock", "progressive rock", "classic rock")) {
-            categoryScores.put("Strength Training", 2.0);
-        }
-        
-        if (containsAny(genreSet, "hip hop", "rap", "trap", "drill", "r&b", "urban",
-                       "gangsta rap", "east coast hip hop", "west coast hip hop", "southern hip hop")) {
-            categoryScores.put("HIIT", 2.0);
-        }
-        
-        if (containsAny(genreSet, "indie", "folk", "acoustic", "ambient", "chill", "lo-fi", "jazz", "classical",
-                       "singer-songwriter", "indie folk", "ambient pop", "dream pop", "chillout")) {
-            categoryScores.put("Yoga", 2.0);
-        }
-        
-        // Additional scoring based on specific genre keywords
-        for (String genre : genreSet) {
-            String lowerGenre = genre.toLowerCase();
-            
-            if (lowerGenre.contains("pop") || lowerGenre.contains("dance")) {
-                categoryScores.put("Cardio", categoryScores.getOrDefault("Cardio", 0.0) + 1.0);
-            }
-            if (lowerGenre.contains("rock") || lowerGenre.contains("metal")) {
-                categoryScores.put("Strength Training", categoryScores.getOrDefault("Strength Training", 0.0) + 1.0);
-            }
-            if (lowerGenre.contains("hip") || lowerGenre.contains("rap") || lowerGenre.contains("trap")) {
-                categoryScores.put("HIIT", categoryScores.getOrDefault("HIIT", 0.0) + 1.0);
-            }
-            if (lowerGenre.contains("indie") || lowerGenre.contains("folk") || lowerGenre.contains("jazz") || 
-                lowerGenre.contains("ambient") || lowerGenre.contains("chill")) {
-                categoryScores.put("Yoga", categoryScores.getOrDefault("Yoga", 0.0) + 1.0);
+        // A category scores 2 when any genre mentions one of its terms,
+        // plus 1 for every distinct genre containing one of its keywords
+        int anyMatch = 0;
+        int[] keywordHits = new int[4];
+        for (String genre : new HashSet<>(genres)) {
+            int mask = GenreTaxonomy.mask(genre);
+            anyMatch |= GenreTaxonomy.categories(mask, GenreTaxonomy.ANY);
+            int keywords = GenreTaxonomy.categories(mask, GenreTaxonomy.KEYWORD);
+            for (int i = 0; keywords != 0; i++, keywords >>>= 1) {
+                keywordHits[i] += keywords & 1;
             }
         }
         
-        // Get top scoring categories (above threshold)
-        double threshold = 1.5;
-        for (Map.Entry<String, Double> entry : categoryScores.entrySet()) {
-            if (entry.getValue() >= threshold) {
-                categories.add(entry.getKey());
+        // Get top scoring categories (above threshold 1.5)
+        int selected = 0;
+        int topCategory = 0;
+        int topScore = 0;
+        for (int category : GenreTaxonomy.CATEGORY_ORDER) {
+            int score = ((anyMatch & category) != 0 ? 2 : 0) + keywordHits[Integer.numberOfTrailingZeros(category)];
+            if (score >= 2) {
+                selected |= category;
+            }
+            if (score > topScore) {
+                topScore = score;
+                topCategory = category;
             }
         }
         
         // If no strong matches, use the highest scoring category
-        if (categories.isEmpty() && !categoryScores.isEmpty()) {
-            String topCategory = categoryScores.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .get()
-                .getKey();
-            categories.add(topCategory);
+        if (selected == 0) {
+            selected = topCategory;
         }
         
         // Final fallback if everything fails
-        if (categories.isEmpty()) {
-            categories.add(getFallbackCategoryBasedOnPopularity(artistName));
+        if (selected == 0) {
+            return new ArrayList<>(List.of(getFallbackCategoryBasedOnPopularity(artistName)));
         }
         
-        return categories;
+        return GenreTaxonomy.names(selected);
     }
     
     private String getFallbackCategoryBasedOnPopularity(String artistName) {
@@ -574,17 +453,6 @@ public class SpotifyArtistService {
         }
     }
     
-    private boolean containsAny(Set<String> genreSet, String... searchTerms) {
-        for (String term : searchTerms) {
-            for (String genre : genreSet) {
-                if (genre.toLowerCase().contains(term.toLowerCase())) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-    
     private List<Map<String, Object>> ensureCategoryBalance(List<Map<String, Object>> artists) {
         // Count artists in each category
         Map<String, Integer> categoryCounts = new HashMap<>();
@@ -80,7 +80,6 @@ public class SpotifyAuthService {
             // ----------------------------
             // Step 3: Make POST request to Spotify's token endpoint
             // ----------------------------
-            RestTemplate restTemplate = new RestTemplate();
             ResponseEntity<Map> response = restTemplate.exchange(
                     "https://accounts.spotify.com/api/token", // Spotify OAuth token endpoint
                     HttpMethod.POST,
@@ -0,0 +1,92 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/*
+ * Typed views of the Spotify Web API objects Jamsy reads. RestTemplate's
+ * Jackson converter binds them straight from the response stream, so only
+ * the declared fields are materialized; available_markets, href, uri and
+ * every other unused field are skipped instead of being built into maps.
+ */
+public final class SpotifyJson {
+
+    private SpotifyJson() {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Image(String url) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ArtistRef(String id, String name) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Album(List<Image> images) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ExternalIds(String isrc) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TrackObject(String id, String name, Integer popularity, Boolean explicit,
+                              @JsonProperty("preview_url") String previewUrl,
+                              @JsonProperty("duration_ms") Integer durationMs,
+                              List<ArtistRef> artists, Album album,
+                              @JsonProperty("external_ids") ExternalIds externalIds) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ArtistObject(String id, String name, List<String> genres, Integer popularity, List<Image> images) {
+
+        /** First (largest) image URL, or null. */
+        public String imageUrl() {
+            return images != null && !images.isEmpty() ? images.get(0).url() : null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Paging<T>(List<T> items) {}
+
+    /** /search?type=track */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TrackSearch(Paging<TrackObject> tracks) {}
+
+    /** /artists?ids= and /artists/{id}/related-artists */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Artists(List<ArtistObject> artists) {}
+
+    /** /artists/{id}/top-tracks */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Tracks(List<TrackObject> tracks) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record AudioFeatures(String id, Double danceability, Double energy, Double valence, Double tempo,
+                                Double acousticness, Double loudness) {}
+
+    /** /audio-features?ids= (entries are null for unknown IDs) */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record AudioFeaturesList(@JsonProperty("audio_features") List<AudioFeatures> audioFeatures) {}
+
+    /** /me/top/tracks */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TopTracks(List<TrackObject> items) {}
+
+    /** /me/top/artists */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record TopArtists(List<ArtistObject> items) {}
+
+    /** /me/player/recently-played */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RecentlyPlayed(List<PlayHistory> items) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PlayHistory(TrackObject track) {}
+
+    /** /me/player/currently-playing */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CurrentlyPlaying(TrackObject item) {}
+
+    /** /me */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record UserProfile(String id) {}
+}
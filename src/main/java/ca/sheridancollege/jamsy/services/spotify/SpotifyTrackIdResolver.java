@@ -0,0 +1,221 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Resolves Spotify IDs for tracks that came from other providers (Last.fm,
+ * Deezer), e.g. before they are added to a playlist.
+ *
+ * Each lookup tries the ISRC first (exact match), then a name + artist
+ * search. Results are kept in an H2 MVStore file keyed by ISRC and by
+ * normalized (name, artist); "not on Spotify" is remembered too, for
+ * spotify.id-resolver.negative-ttl-days. Lookups for the remaining tracks
+ * run in parallel; each call still takes a permit from Spotify's rate
+ * budget in RateLimitInterceptor, so concurrency never exceeds it.
+ */
+@Component
+public class SpotifyTrackIdResolver {
+
+    // Marks a completed search that found nothing (null means the lookup failed)
+    private static final String NOT_FOUND = "";
+
+    private final SpotifyApiClient spotifyApiClient;
+    private final ParallelFetcher parallelFetcher;
+    private final MVStore store;
+    private final MVMap<String, String> ids;
+    private final MVMap<String, Long> misses;
+
+    @Value("${spotify.id-resolver.negative-ttl-days:7}")
+    private long negativeTtlDays;
+
+    @Value("${spotify.id-resolver.deadline-ms:20000}")
+    private long deadlineMs;
+
+    public SpotifyTrackIdResolver(SpotifyApiClient spotifyApiClient, ParallelFetcher parallelFetcher,
+                                  @Value("${spotify.id-resolver.file:./data/spotify-ids.mv.db}") String file)
+            throws IOException {
+        this.spotifyApiClient = spotifyApiClient;
+        this.parallelFetcher = parallelFetcher;
+
+        Path path = Paths.get(file).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder().fileName(path.toString()).open();
+        this.ids = store.openMap("ids");
+        this.misses = store.openMap("misses");
+        System.out.println("💾 Spotify ID cache opened at " + path + " with " + ids.size() + " IDs and "
+                + misses.size() + " known misses");
+    }
+
+    /**
+     * Fill in the Spotify ID of every track that has none. Tracks that cannot
+     * be found (or whose lookup misses the deadline) keep a null ID.
+     *
+     * @return number of tracks that have an ID afterwards
+     */
+    public int resolveIds(List<Track> tracks, String accessToken) {
+        long start = System.currentTimeMillis();
+        Map<String, List<Track>> pending = new LinkedHashMap<>();
+        int missing = 0;
+        int fromCache = 0;
+
+        for (Track track : tracks) {
+            if (track.getId() != null && !track.getId().isBlank()) continue;
+            missing++;
+
+            String isrcKey = isrcKey(track);
+            String nameKey = nameKey(track);
+            String cached = isrcKey != null ? ids.get(isrcKey) : null;
+            if (cached == null && nameKey != null) cached = ids.get(nameKey);
+            if (cached != null) {
+                track.setId(cached);
+                fromCache++;
+                continue;
+            }
+            if ((isrcKey == null || knownMiss(isrcKey)) && (nameKey == null || knownMiss(nameKey))) {
+                continue;
+            }
+            pending.computeIfAbsent(isrcKey != null ? isrcKey : nameKey, key -> new ArrayList<>()).add(track);
+        }
+
+        Map<String, String> found = parallelFetcher.fetchAll(pending.keySet(),
+                key -> lookup(pending.get(key).get(0), accessToken),
+                ParallelFetcher.deadlineAfter(deadlineMs));
+
+        int resolved = fromCache;
+        for (Map.Entry<String, List<Track>> entry : pending.entrySet()) {
+            String id = found.get(entry.getKey());
+            if (id != null && !id.equals(NOT_FOUND)) {
+                entry.getValue().forEach(track -> track.setId(id));
+                resolved += entry.getValue().size();
+            }
+        }
+
+        if (missing > 0) {
+            System.out.println("🔎 Resolved " + resolved + " of " + missing + " missing Spotify IDs (" + fromCache
+                    + " cached, " + pending.size() + " looked up) in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        int withId = 0;
+        for (Track track : tracks) {
+            if (track.getId() != null && !track.getId().isBlank()) withId++;
+        }
+        return withId;
+    }
+
+    /**
+     * @return the Spotify ID, NOT_FOUND, or null if a search failed
+     */
+    private String lookup(Track track, String accessToken) {
+        String isrcKey = isrcKey(track);
+        String nameKey = nameKey(track);
+        boolean failed = false;
+
+        if (isrcKey != null && !knownMiss(isrcKey)) {
+            String id = search("isrc:" + track.getIsrc().trim(), accessToken);
+            if (id == null) {
+                failed = true;
+            } else if (!id.equals(NOT_FOUND)) {
+                remember(id, isrcKey, nameKey);
+                return id;
+            } else {
+                misses.put(isrcKey, System.currentTimeMillis());
+            }
+        }
+
+        if (nameKey != null && !knownMiss(nameKey)) {
+            String id = search("track:" + searchTerm(cleanTrackName(track.getName()))
+                    + " artist:" + searchTerm(firstArtist(track)), accessToken);
+            if (id == null) {
+                return null;
+            }
+            if (!id.equals(NOT_FOUND)) {
+                remember(id, isrcKey, nameKey);
+                return id;
+            }
+            misses.put(nameKey, System.currentTimeMillis());
+            System.out.println("❌ No matching track found on Spotify for: " + track.getName() + " - " + firstArtist(track));
+        }
+        return failed ? null : NOT_FOUND;
+    }
+
+    private String search(String query, String accessToken) {
+        String url = SpotifyApiClient.SPOTIFY_API_URL + "/search?q=" + query + "&type=track&limit=1";
+        try {
+            SpotifyJson.TrackSearch response = spotifyApiClient.get(url, accessToken, SpotifyJson.TrackSearch.class);
+            if (response == null || response.tracks() == null || response.tracks().items() == null
+                    || response.tracks().items().isEmpty() || response.tracks().items().get(0) == null) {
+                return NOT_FOUND;
+            }
+            return response.tracks().items().get(0).id();
+        } catch (Exception e) {
+            System.out.println("❌ Error searching Spotify for " + query + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void remember(String id, String isrcKey, String nameKey) {
+        if (isrcKey != null) ids.put(isrcKey, id);
+        if (nameKey != null) ids.put(nameKey, id);
+    }
+
+    private boolean knownMiss(String key) {
+        Long missedAt = misses.get(key);
+        return missedAt != null
+                && System.currentTimeMillis() - missedAt < TimeUnit.DAYS.toMillis(negativeTtlDays);
+    }
+
+    private static String isrcKey(Track track) {
+        String isrc = track.getIsrc();
+        return isrc != null && !isrc.isBlank() ? "isrc:" + isrc.trim().toUpperCase(Locale.ROOT) : null;
+    }
+
+    private static String nameKey(Track track) {
+        String name = track.getName() != null ? cleanTrackName(track.getName()) : "";
+        String artist = firstArtist(track);
+        if (name.isBlank() || artist.isBlank()) {
+            return null;
+        }
+        return "name:" + name.toLowerCase(Locale.ROOT) + "|" + artist.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String firstArtist(Track track) {
+        if (track.getArtists() != null && !track.getArtists().isEmpty() && track.getArtists().get(0) != null) {
+            return track.getArtists().get(0);
+        }
+        return track.getArtistName() != null ? track.getArtistName() : "";
+    }
+
+    // Drop "(feat. SZA)", "[Remastered]" and " - Radio Edit" style suffixes
+    private static String cleanTrackName(String raw) {
+        return raw.replaceAll("\\(.*?\\)|\\[.*?\\]", "")
+                  .replaceAll("\\s+-\\s+.*", "")
+                  .trim();
+    }
+
+    // Characters that would end the q parameter or read as a URI template variable
+    private static String searchTerm(String value) {
+        return value.replaceAll("[&#+%?={}]", " ").trim();
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+}
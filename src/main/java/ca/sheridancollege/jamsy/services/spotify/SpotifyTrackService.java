@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpEntity;
@@ -18,16 +19,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.beans.TrackKey;
 
 @Service
 public class SpotifyTrackService {
 	
 	private final SpotifyApiClient spotifyApiClient;
 	private final RestTemplate restTemplate;
+	private final AudioFeatureStore audioFeatureStore;
 	
-	public SpotifyTrackService(SpotifyApiClient spotifyApiClient, RestTemplate restTemplate) {
+	public SpotifyTrackService(SpotifyApiClient spotifyApiClient, RestTemplate restTemplate,
+			AudioFeatureStore audioFeatureStore) {
 		this.spotifyApiClient = spotifyApiClient;
 		this.restTemplate = restTemplate;
+		this.audioFeatureStore = audioFeatureStore;
 	}
 	
 	public Track getTrackById(String trackId, String accessToken) {
@@ -36,9 +41,10 @@ public class SpotifyTrackService {
 	         HttpHeaders headers = new HttpHeaders();
 	         headers.set("Authorization", "Bearer " + accessToken);
 	         HttpEntity<String> entity = new HttpEntity<>(headers);
-	         ResponseEntity<Map> resp = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+	         ResponseEntity<SpotifyJson.TrackObject> resp =
+	                 restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TrackObject.class);
 	         if (resp.getStatusCode() == HttpStatus.OK && resp.getBody() != null) {
-	             return mapSpotifyTrack(resp.getBody());
+	             return toTrack(resp.getBody());
 	         }
 	     } catch (Exception e) {
 	         System.out.println("❌ Error getTrackById: " + e.getMessage());
@@ -54,11 +60,11 @@ public class SpotifyTrackService {
             headers.set("Authorization", "Bearer " + accessToken);
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            ResponseEntity<SpotifyJson.TrackObject> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TrackObject.class);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> trackData = response.getBody();
-                return (String) trackData.get("preview_url");
+                return response.getBody().previewUrl();
             }
         } catch (Exception e) {
             System.out.println("Error getting track preview: " + e.getMessage());
@@ -92,16 +98,14 @@ public class SpotifyTrackService {
             headers.set("Authorization", "Bearer " + accessToken);
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            ResponseEntity<SpotifyJson.TrackSearch> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TrackSearch.class);
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                Map<String, Object> tracks = (Map<String, Object>) responseBody.get("tracks");
-                List<Map<String, Object>> items = (List<Map<String, Object>>) tracks.get("items");
+                List<SpotifyJson.TrackObject> items = searchItems(response.getBody());
 
-                if (items != null && !items.isEmpty()) {
-                    Map<String, Object> trackData = items.get(0);
-                    String spotifyId = (String) trackData.get("id");
+                if (!items.isEmpty()) {
+                    String spotifyId = items.get(0).id();
 
                     System.out.println("✅ Found Spotify ID for " + cleanTrackName(trackName) + " - " + artistName + ": " + spotifyId);
                     return spotifyId;
@@ -124,15 +128,10 @@ public class SpotifyTrackService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
         String url = spotifyApiClient.SPOTIFY_API_URL + "/search?q=" + query + "&type=track&limit=50";
 
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-        List<Map<String, Object>> rawTracks = extractSearchTracks(response.getBody());
+        ResponseEntity<SpotifyJson.TrackSearch> response =
+                restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TrackSearch.class);
 
-        // Convert raw tracks to Track objects (optional but ideal)
-        List<Track> tracks = rawTracks.stream()
-                .map(this::mapToTrack)
-                .toList();
-
-        return tracks;
+        return toTracks(searchItems(response.getBody()));
     }
     
     // Convenience overload
@@ -149,15 +148,12 @@ public class SpotifyTrackService {
             headers.set("Authorization", "Bearer " + accessToken);
             HttpEntity<String> entity = new HttpEntity<>(headers);
             
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            ResponseEntity<SpotifyJson.TrackSearch> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TrackSearch.class);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                Map<String, Object> tracks = (Map<String, Object>) responseBody.get("tracks");
-                List<Map<String, Object>> items = (List<Map<String, Object>>) tracks.get("items");
-                
-                return items.stream()
-                    .map(track -> (String) track.get("id"))
+                return searchItems(response.getBody()).stream()
+                    .map(SpotifyJson.TrackObject::id)
                     .collect(Collectors.toList());
             }
         } catch (Exception e) {
@@ -166,267 +162,75 @@ public class SpotifyTrackService {
         return Collections.emptyList();
     }
 
-    
- // --- helper: map raw Spotify track map -> your Track bean (used earlier) ---
-    private Track mapSpotifyTrack(Map<String, Object> t) {
-    	Track track = new Track();
+    /**
+     * Map a decoded Spotify track object onto the Track bean.
+     */
+    public Track toTrack(SpotifyJson.TrackObject t) {
         if (t == null) return null;
-        track.setId((String) t.get("id"));
-        track.setName((String) t.get("name"));
-        track.setPopularity(t.get("popularity") == null ? null : ((Number) t.get("popularity")).intValue());
-        track.setPreviewUrl((String) t.get("preview_url"));
-
-        // artists
-        List<Map<String,Object>> artistsList = (List<Map<String,Object>>) t.get("artists");
-        if (artistsList != null) {
-            List<String> names = artistsList.stream()
-                    .map(a -> (String) a.get("name"))
-                    .collect(Collectors.toList());
-            track.setArtists(names);
-        }
-
-        // album images
-        Map<String,Object> album = (Map<String,Object>) t.get("album");
-        if (album != null) {
-            List<Map<String,Object>> images = (List<Map<String,Object>>) album.get("images");
-            if (images != null && !images.isEmpty()) {
-                // choose the first image (largest)
-                track.setAlbumCover((String) images.get(0).get("url"));
-            }
-        }
-        return track;
-    }
-    
-    public Track mapToTrack(Map<String, Object> trackData) {
         Track track = new Track();
-        track.setName((String) trackData.get("name"));
-        track.setIsrc((String) ((Map<String, Object>) trackData.getOrDefault("external_ids", Map.of()))
-                .getOrDefault("isrc", ""));
-
-        // Get preview URL
-        track.setPreviewUrl((String) trackData.get("preview_url"));
-
-        // Get album cover
-        Map<String, Object> album = (Map<String, Object>) trackData.get("album");
-        if (album != null && album.get("images") instanceof List<?> images && !images.isEmpty()) {
-            Map<String, Object> firstImage = (Map<String, Object>) images.get(0);
-            track.setAlbumCover((String) firstImage.get("url"));
+        track.setId(t.id());
+        track.setName(t.name());
+        track.setPopularity(t.popularity() != null ? t.popularity() : 0);
+        track.setExplicit(Boolean.TRUE.equals(t.explicit()));
+        track.setPreviewUrl(t.previewUrl());
+        if (t.durationMs() != null) {
+            track.setDurationMs(t.durationMs());
         }
+        track.setIsrc(t.externalIds() != null ? t.externalIds().isrc() : null);
 
-        // Get artist names
-        List<Map<String, Object>> artistList = (List<Map<String, Object>>) trackData.get("artists");
-        if (artistList != null) {
-            List<String> artistNames = artistList.stream()
-                    .map(artist -> (String) artist.get("name"))
-                    .toList();
-            track.setArtists(artistNames);
+        // artists
+        if (t.artists() != null) {
+            track.setArtists(t.artists().stream().map(SpotifyJson.ArtistRef::name).toList());
         }
 
-        // Set genres (optional; if your API includes them or from fallback)
-        track.setGenres((List<String>) trackData.getOrDefault("genres", List.of()));
+        // album images: the first one is the largest
+        if (t.album() != null && t.album().images() != null && !t.album().images().isEmpty()) {
+            track.setAlbumCover(t.album().images().get(0).url());
+        }
 
+        // Track objects carry no genres; filled in later from artist data if needed
+        track.setGenres(List.of());
+        track.setTrackKey(TrackKey.of(track));
         return track;
     }
-    
-    // Helper method 
-    private String extractISRC(Map<String, Object> item) {
-        try {
-            Map<String, Object> externalIds = (Map<String, Object>) item.get("external_ids");
-            return externalIds != null ? (String) externalIds.get("isrc") : null;
-        } catch (Exception e) {
-            return null;
-        }
-    }
-    
-    public List<Track> extractTrackItems(Map<String, Object> response) {
-        List<Track> tracks = new ArrayList<>();
-        if (response == null || !response.containsKey("items"))
-            return tracks;
 
-        List<Map<String, Object>> items = (List<Map<String, Object>>) response.get("items");
-        for (Map<String, Object> item : items) {
-            Track track = new Track();
-            track.setName((String) item.get("name"));
-            track.setExplicit((Boolean) item.get("explicit"));
-            track.setIsrc(extractISRC(item));
-            track.setPreviewUrl((String) item.get("preview_url"));
-
-            // Artists
-            List<Map<String, Object>> artistObjs = (List<Map<String, Object>>) item.get("artists");
-            List<String> artistNames = new ArrayList<>();
-            for (Map<String, Object> artist : artistObjs) {
-                artistNames.add((String) artist.get("name"));
-            }
-            track.setArtists(artistNames);
-
-            // Album cover
-            Map<String, Object> album = (Map<String, Object>) item.get("album");
-            if (album != null && album.containsKey("images")) {
-                List<Map<String, Object>> images = (List<Map<String, Object>>) album.get("images");
-                if (!images.isEmpty()) {
-                    track.setAlbumCover((String) images.get(0).get("url"));
-                }
-            }
-
-            tracks.add(track);
-        }
-
-        return tracks;
+    public List<Track> toTracks(List<SpotifyJson.TrackObject> items) {
+        if (items == null) return new ArrayList<>();
+        return items.stream()
+                .filter(Objects::nonNull)
+                .map(this::toTrack)
+                .collect(Collectors.toList());
     }
-    
-    @SuppressWarnings("unchecked")
-    private List<Map<String, Object>> extractSearchTracks(Map<String, Object> response) {
-        List<Map<String, Object>> tracks = new ArrayList<>();
-
-        if (response == null || !response.containsKey("tracks"))
-            return tracks;
 
-        Map<String, Object> tracksWrapper = (Map<String, Object>) response.get("tracks");
-        if (tracksWrapper == null || !tracksWrapper.containsKey("items"))
-            return tracks;
-
-        tracks.addAll((List<Map<String, Object>>) tracksWrapper.get("items"));
-        return tracks;
+    private List<SpotifyJson.TrackObject> searchItems(SpotifyJson.TrackSearch search) {
+        if (search == null || search.tracks() == null || search.tracks().items() == null) {
+            return Collections.emptyList();
+        }
+        return search.tracks().items();
     }
     
     
 	/* Audio Features */
-    /*
+
+    /**
+     * Average audio features over the artist's top tracks, from the
+     * {@link AudioFeatureStore}; empty when Spotify has none for the artist.
+     */
     public Map<String, Double> getArtistAudioFeatures(String accessToken, String artistId) {
-        try {
-            // Get artist's top tracks
-            String topTracksUrl = spotifyApiClient.SPOTIFY_API_URL + "/artists/" + artistId + "/top-tracks?market=US";
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(topTracksUrl, HttpMethod.GET, entity, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                List<Map<String, Object>> tracks = (List<Map<String, Object>>) responseBody.get("tracks");
-                
-                if (tracks != null && !tracks.isEmpty()) {
-                    // Get track IDs for audio features
-                    List<String> trackIds = tracks.stream()
-                        .map(track -> (String) track.get("id"))
-                        .limit(3) // Analyze top 3 tracks
-                        .collect(Collectors.toList());
-                    
-                    // Get audio features for these tracks
-                    return getAverageAudioFeatures(accessToken, trackIds);
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("❌ Error getting audio features for artist " + artistId + ": " + e.getMessage());
-            throw e; // Re-throw to trigger fallback
-        }
-        
-        throw new RuntimeException("No audio features available");
+        return audioFeatureStore.getArtistFeatures(List.of(artistId), accessToken)
+                .getOrDefault(artistId, Collections.emptyMap());
     }
-    /*
-    private Map<String, Double> getAverageAudioFeatures(String accessToken, List<String> trackIds) {
-        if (trackIds.isEmpty()) {
-            throw new RuntimeException("No track IDs provided");
-        }
-        
-        try {
-            String trackIdsParam = String.join(",", trackIds);
-            String audioFeaturesUrl = spotifyApiClient.SPOTIFY_API_URL + "/audio-features?ids=" + trackIdsParam;
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<Map> response = restTemplate.exchange(audioFeaturesUrl, HttpMethod.GET, entity, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                List<Map<String, Object>> audioFeaturesList = (List<Map<String, Object>>) responseBody.get("audio_features");
-                
-                if (audioFeaturesList != null && !audioFeaturesList.isEmpty()) {
-                    return calculateAverageFeatures(audioFeaturesList);
-                }
-            } else if (response.getStatusCode() == HttpStatus.FORBIDDEN) {
-                System.out.println("⚠️ Audio features access forbidden - using genre fallback");
-                throw new RuntimeException("403 Forbidden - Audio features not accessible");
-            }
-            
-        } catch (Exception e) {
-            System.out.println("❌ Error in getAverageAudioFeatures: " + e.getMessage());
-            throw new RuntimeException("Audio features unavailable", e);
-        }
-        
-        throw new RuntimeException("No audio features data received");
-    }*/
 
-    /*
-    private Map<String, Map<String, Double>> getArtistsAudioFeatures(String accessToken, List<String> artistIds) {
-        Map<String, Map<String, Double>> artistFeatures = new HashMap<>();
-        
+    /**
+     * Average audio features for several artists at once. Stored averages are
+     * reused; the rest share batched /audio-features calls.
+     */
+    public Map<String, Map<String, Double>> getArtistsAudioFeatures(String accessToken, List<String> artistIds) {
         try {
-            for (String artistId : artistIds) {
-                // Get artist's top tracks
-                String topTracksUrl = spotifyApiClient.SPOTIFY_API_URL + "/artists/" + artistId + "/top-tracks?market=US";
-                
-                HttpHeaders headers = new HttpHeaders();
-                headers.set("Authorization", "Bearer " + accessToken);
-                HttpEntity<String> entity = new HttpEntity<>(headers);
-                
-                ResponseEntity<Map> response = restTemplate.exchange(topTracksUrl, HttpMethod.GET, entity, Map.class);
-                
-                if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                    Map<String, Object> responseBody = response.getBody();
-                    List<Map<String, Object>> tracks = (List<Map<String, Object>>) responseBody.get("tracks");
-                    
-                    if (tracks != null && !tracks.isEmpty()) {
-                        // Get track IDs for audio features
-                        List<String> trackIds = tracks.stream()
-                            .map(track -> (String) track.get("id"))
-                            .limit(5) // Analyze top 5 tracks
-                            .collect(Collectors.toList());
-                        
-                        // Get audio features for these tracks
-                        Map<String, Double> avgFeatures = getAverageAudioFeatures(accessToken, trackIds);
-                        artistFeatures.put(artistId, avgFeatures);
-                    }
-                }
-            }
+            return audioFeatureStore.getArtistFeatures(artistIds, accessToken);
         } catch (Exception e) {
             System.out.println("❌ Error getting audio features: " + e.getMessage());
+            return new HashMap<>();
         }
-        
-        return artistFeatures;
     }
-
-    
-
-    private Map<String, Double> calculateAverageFeatures(List<Map<String, Object>> audioFeaturesList) {
-        Map<String, Double> sums = new HashMap<>();
-        Map<String, Integer> counts = new HashMap<>();
-        
-        String[] featureKeys = {"danceability", "energy", "valence", "tempo", "acousticness", "loudness"};
-        
-        for (Map<String, Object> features : audioFeaturesList) {
-            if (features != null) {
-                for (String key : featureKeys) {
-                    Object value = features.get(key);
-                    if (value instanceof Number) {
-                        sums.put(key, sums.getOrDefault(key, 0.0) + ((Number) value).doubleValue());
-                        counts.put(key, counts.getOrDefault(key, 0) + 1);
-                    }
-                }
-            }
-        }
-        
-        Map<String, Double> averages = new HashMap<>();
-        for (String key : featureKeys) {
-            if (counts.containsKey(key) && counts.get(key) > 0) {
-                averages.put(key, sums.get(key) / counts.get(key));
-            }
-        }
-        
-        return averages;
-    }*/
 }
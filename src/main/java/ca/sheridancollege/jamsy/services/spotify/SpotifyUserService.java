@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -16,6 +17,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.config.CacheConfig;
+import ca.sheridancollege.jamsy.models.SongAction;
+import jakarta.servlet.http.HttpSession;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
@@ -30,18 +34,49 @@ public class SpotifyUserService {
         this.spotifyTrackService = spotifyTrackService;
     }
 
+	 /**
+	  * Spotify user ID for an access token. Cached for the lifetime of the token
+	  * so per-user caches can be keyed by user instead of by token.
+	  */
+	 @Cacheable(CacheConfig.SPOTIFY_USER_IDS)
 	 public String getSpotifyUserId(String accessToken) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
 
         HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
-        ResponseEntity<Map> response = restTemplate.exchange(
+        ResponseEntity<SpotifyJson.UserProfile> response = restTemplate.exchange(
                 "https://api.spotify.com/v1/me",
                 HttpMethod.GET,
                 entity,
-                Map.class);
+                SpotifyJson.UserProfile.class);
 
-        return (String) response.getBody().get("id");
+        return response.getBody().id();
+    }
+
+	 /**
+	  * Owner of the web session's swipe history: the Spotify user ID, resolved
+	  * once and kept in the session, or SongAction.ANONYMOUS without a usable token.
+	  */
+	 public String getSessionUserId(HttpSession session) {
+        String userId = (String) session.getAttribute("spotifyUserId");
+        if (userId != null) {
+            return userId;
+        }
+        String accessToken = (String) session.getAttribute("accessToken");
+        if (accessToken == null) {
+            return SongAction.ANONYMOUS;
+        }
+        try {
+            userId = getSpotifyUserId(accessToken);
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not resolve Spotify user for session: " + e.getMessage());
+            return SongAction.ANONYMOUS;
+        }
+        if (userId == null) {
+            return SongAction.ANONYMOUS;
+        }
+        session.setAttribute("spotifyUserId", userId);
+        return userId;
     }
 
 	 public List<Track> getTopTracks(String accessToken) {
@@ -50,9 +85,12 @@ public class SpotifyUserService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         String url = "https://api.spotify.com/v1/me/top/tracks?limit=50";
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+        ResponseEntity<SpotifyJson.TopTracks> response =
+                restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.TopTracks.class);
 
-        List<Track> tracks = spotifyTrackService.extractTrackItems(response.getBody());
+        List<Track> tracks = response.getBody() != null
+                ? spotifyTrackService.toTracks(response.getBody().items())
+                : new ArrayList<>();
         System.out.println("Getting top tracks");
         return tracks;
     }
@@ -64,14 +102,13 @@ public class SpotifyUserService {
             HttpEntity<String> entity = new HttpEntity<>(headers);
 
             String url = "https://api.spotify.com/v1/me/player/recently-played?limit=20";
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-            List<Map<String, Object>> items = (List<Map<String, Object>>) response.getBody().get("items");
+            ResponseEntity<SpotifyJson.RecentlyPlayed> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.RecentlyPlayed.class);
 
             List<Track> tracks = new ArrayList<>();
-            for (Map<String, Object> item : items) {
-                Map<String, Object> trackData = (Map<String, Object>) item.get("track");
-                if (trackData != null) {
-                    tracks.add(spotifyTrackService.mapToTrack(trackData));
+            for (SpotifyJson.PlayHistory item : response.getBody().items()) {
+                if (item.track() != null) {
+                    tracks.add(spotifyTrackService.toTrack(item.track()));
                 }
             }
 
@@ -89,11 +126,12 @@ public class SpotifyUserService {
 
         String url = "https://api.spotify.com/v1/me/player/currently-playing";
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            ResponseEntity<SpotifyJson.CurrentlyPlaying> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.CurrentlyPlaying.class);
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> item = (Map<String, Object>) response.getBody().get("item");
+                SpotifyJson.TrackObject item = response.getBody().item();
                 if (item != null) {
-                    return Optional.of(spotifyTrackService.mapToTrack(item));
+                    return Optional.of(spotifyTrackService.toTrack(item));
                 }
             }
         } catch (Exception e) {
@@ -103,11 +141,11 @@ public class SpotifyUserService {
 
         // Fallback: recently played
         url = "https://api.spotify.com/v1/me/player/recently-played?limit=1";
-        ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
-        List<Map<String, Object>> items = (List<Map<String, Object>>) response.getBody().get("items");
+        ResponseEntity<SpotifyJson.RecentlyPlayed> response =
+                restTemplate.exchange(url, HttpMethod.GET, entity, SpotifyJson.RecentlyPlayed.class);
+        List<SpotifyJson.PlayHistory> items = response.getBody().items();
         if (items != null && !items.isEmpty()) {
-            Map<String, Object> track = (Map<String, Object>) items.get(0).get("track");
-            return Optional.of(spotifyTrackService.mapToTrack(track));
+            return Optional.ofNullable(spotifyTrackService.toTrack(items.get(0).track()));
         }
 
         return Optional.empty();
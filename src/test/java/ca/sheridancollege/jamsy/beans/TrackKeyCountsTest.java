@@ -0,0 +1,49 @@
+package ca.sheridancollege.jamsy.beans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TrackKeyCountsTest {
+
+    @Test
+    void countsPerKey() {
+        TrackKeyCounts counts = new TrackKeyCounts();
+
+        assertEquals(0, counts.get(5));
+        assertEquals(1, counts.increment(5));
+        assertEquals(2, counts.increment(5));
+        assertEquals(1, counts.increment(6));
+        assertEquals(2, counts.get(5));
+        assertEquals(2, counts.size());
+    }
+
+    @Test
+    void collidingKeysKeepSeparateCounts() {
+        TrackKeyCounts counts = new TrackKeyCounts(4);
+        long first = 3 + (1L << 40);
+        long second = 3 + (2L << 40);
+
+        counts.increment(first);
+        counts.increment(second);
+        counts.increment(second);
+
+        assertEquals(1, counts.get(first));
+        assertEquals(2, counts.get(second));
+        assertEquals(0, counts.get(3 + (3L << 40)));
+    }
+
+    @Test
+    void countsSurviveGrowing() {
+        TrackKeyCounts counts = new TrackKeyCounts();
+        for (int round = 1; round <= 3; round++) {
+            for (long key = 1; key <= 10_000; key++) {
+                counts.increment(key * 0x9e3779b97f4a7c15L);
+            }
+        }
+        assertEquals(10_000, counts.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(3, counts.get(key * 0x9e3779b97f4a7c15L));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ca.sheridancollege.jamsy.beans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TrackKeySetTest {
+
+    private static int capacity(TrackKeySet set) {
+        return ((long[]) ReflectionTestUtils.getField(set, "slots")).length;
+    }
+
+    @Test
+    void addsEachKeyOnce() {
+        TrackKeySet set = new TrackKeySet();
+
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(-7));
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(-7));
+        assertFalse(set.contains(43));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void capacityIsAPowerOfTwoWithRoomForTheExpectedSize() {
+        assertEquals(16, TrackKeySet.capacityFor(0));
+        assertEquals(16, TrackKeySet.capacityFor(8));
+        assertEquals(32, TrackKeySet.capacityFor(9));
+        assertEquals(2048, TrackKeySet.capacityFor(1000));
+        assertEquals(2048, capacity(new TrackKeySet(1000)));
+        // The default is sized for 16 keys
+        assertEquals(32, capacity(new TrackKeySet()));
+    }
+
+    @Test
+    void growsAtHalfFullAndKeepsEveryKey() {
+        TrackKeySet set = new TrackKeySet(8);
+        assertEquals(16, capacity(set));
+        for (long key = 1; key <= 8; key++) {
+            set.add(key);
+        }
+        assertEquals(16, capacity(set));
+        set.add(9);
+        assertEquals(32, capacity(set));
+
+        Random random = new Random(1);
+        Set<Long> expected = new HashSet<>();
+        for (long key = 1; key <= 9; key++) {
+            expected.add(key);
+        }
+        while (expected.size() < 50_000) {
+            long key = random.nextLong();
+            if (key != 0) {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertTrue(capacity(set) >= 2 * set.size());
+        for (long key : expected) {
+            assertTrue(set.contains(key));
+        }
+    }
+
+    @Test
+    void collidingKeysProbeOnAndWrapAround() {
+        TrackKeySet set = new TrackKeySet(4);
+        // Same low bits: every key starts at the last slot and probes past the end of the table
+        long[] keys = new long[6];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 15 + ((long) (i + 1) << 32);
+            assertTrue(set.add(keys[i]));
+        }
+        assertEquals(16, capacity(set));
+        for (long key : keys) {
+            assertTrue(set.contains(key));
+            assertFalse(set.add(key));
+        }
+        assertFalse(set.contains(15 + (99L << 32)));
+
+        // Growing re-spreads the cluster; all keys are still found
+        for (int i = 0; i < 10; i++) {
+            set.add(15 + ((long) (i + 100) << 20));
+        }
+        assertEquals(32, capacity(set));
+        for (long key : keys) {
+            assertTrue(set.contains(key));
+        }
+        assertEquals(16, set.size());
+    }
+}
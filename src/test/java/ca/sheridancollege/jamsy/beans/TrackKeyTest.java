@@ -0,0 +1,71 @@
+package ca.sheridancollege.jamsy.beans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TrackKeyTest {
+
+    @Test
+    void ignoresCaseAndSurroundingOrRepeatedWhitespace() {
+        long key = TrackKey.of("Blinding Lights", "The Weeknd");
+
+        assertEquals(key, TrackKey.of("blinding lights", "THE WEEKND"));
+        assertEquals(key, TrackKey.of("  Blinding \t Lights ", "The  Weeknd "));
+        assertNotEquals(key, TrackKey.of("BlindingLights", "The Weeknd"));
+        assertNotEquals(key, TrackKey.of("Blinding Lights", "Someone Else"));
+    }
+
+    @Test
+    void keepsNameAndArtistApart() {
+        assertNotEquals(TrackKey.of("ab", "c"), TrackKey.of("a", "bc"));
+        assertNotEquals(TrackKey.of("Song", null), TrackKey.of(null, "Song"));
+        assertEquals(TrackKey.of("Song", null), TrackKey.of("Song", ""));
+    }
+
+    @Test
+    void trackKeyUsesThePrimaryArtistAndFollowsRenames() {
+        Track track = new Track();
+        track.setName("Song");
+        track.setArtists(List.of("First", "Second"));
+        assertEquals(TrackKey.of("Song", "First"), track.getTrackKey());
+
+        track.setArtistName("Main");
+        assertEquals(TrackKey.of("Song", "Main"), track.getTrackKey());
+        track.setName("Other");
+        assertEquals(TrackKey.of("Other", "Main"), track.getTrackKey());
+    }
+
+    @Test
+    void isrcKeysIgnoreHyphensAndCase() {
+        assertEquals(TrackKey.ofIsrc("USUM71703861"), TrackKey.ofIsrc("us-um7-17-03861"));
+        assertEquals(0, TrackKey.ofIsrc(null));
+        assertEquals(0, TrackKey.ofIsrc("  "));
+        assertNotEquals(TrackKey.ofIsrc("USUM71703861"), TrackKey.ofIsrc("USUM71703862"));
+    }
+
+    @Test
+    void kindsAreSeededApart() {
+        assertNotEquals(TrackKey.ofArtist("Adele"), TrackKey.of("", "Adele"));
+        assertNotEquals(TrackKey.ofArtist("Adele"), TrackKey.ofIsrc("Adele"));
+        assertEquals(TrackKey.ofArtist("Adele"), TrackKey.ofArtist(" adele "));
+    }
+
+    @Test
+    void distinctTracksGetDistinctNonZeroKeys() {
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = TrackKey.of("Song " + i, "Artist " + (i % 1_000));
+            assertNotEquals(0, key);
+            keys.add(key);
+        }
+        assertEquals(200_000, keys.size());
+        assertTrue(TrackKey.ofArtist(null) != 0 && TrackKey.of(null, null) != 0);
+    }
+}
@@ -0,0 +1,124 @@
+package ca.sheridancollege.jamsy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+import ca.sheridancollege.jamsy.services.outbound.ProviderCircuitBreakers;
+import ca.sheridancollege.jamsy.services.outbound.ProviderRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DiscoveryPrefetcherTest {
+
+    private static final int BATCH_SIZE = 5;
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Track> catalogue = IntStream.range(0, 200).mapToObj(DiscoveryPrefetcherTest::track).toList();
+    private SwipeHistory swipeHistory;
+    private DiscoveryPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Slow enough that a fill and a synchronous compute overlap
+        DiscoveryService discoveryService = mock(DiscoveryService.class);
+        when(discoveryService.getDiscoveryTracks(anyList(), anyString(), anyInt(), any())).thenAnswer(invocation -> {
+            Predicate<Track> excluded = invocation.getArgument(3);
+            Thread.sleep(50);
+            return catalogue.stream().filter(excluded.negate()).limit(BATCH_SIZE).toList();
+        });
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("ratelimit.lastfm.permits-per-second", "1000")
+                .withProperty("ratelimit.lastfm.burst", "1000");
+        swipeHistory = new SwipeHistory(dir.resolve("filters.mv.db").toString(), 10, 16, 0.01, 60_000);
+        prefetcher = new DiscoveryPrefetcher(discoveryService, new ParallelFetcher(executor),
+                new ProviderRateLimiter(environment), new ProviderCircuitBreakers(environment, new SimpleMeterRegistry()),
+                swipeHistory, 10, 30, 4);
+        ReflectionTestUtils.setField(prefetcher, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(prefetcher, "queueSize", 2);
+        ReflectionTestUtils.setField(prefetcher, "minPermits", 1);
+        ReflectionTestUtils.setField(prefetcher, "retryMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        swipeHistory.close();
+        executor.shutdownNow();
+    }
+
+    private static Track track(int i) {
+        Track track = new Track();
+        track.setName("Song " + i);
+        track.setArtistName("Artist " + i);
+        return track;
+    }
+
+    @Test
+    void batchesNeverRepeatTracksWhileFillsRunAlongside() {
+        List<Track> first = catalogue.subList(0, BATCH_SIZE);
+        prefetcher.start("session", "user", List.of("Seed"), "cardio", first);
+
+        List<Track> served = new ArrayList<>(first);
+        // Ask right away, while the first fill is still running
+        for (int i = 0; i < 10; i++) {
+            served.addAll(prefetcher.next("session").orElseThrow());
+        }
+
+        Set<Long> keys = new HashSet<>();
+        for (Track track : served) {
+            assertTrue(keys.add(track.getTrackKey()), "repeated " + track.getName());
+        }
+        assertEquals(11 * BATCH_SIZE, keys.size());
+    }
+
+    @Test
+    void swipesAfterStartAreExcludedFromLaterBatches() {
+        // A user without any stored history yet, swiping while the prefetch is running
+        prefetcher.start("session", "new-user", List.of("Seed"), "cardio", catalogue.subList(0, BATCH_SIZE));
+        for (Track track : catalogue.subList(40, 50)) {
+            SongAction action = new SongAction();
+            action.setUserId("new-user");
+            action.setSongName(track.getName());
+            action.setArtist(track.getArtistName());
+            action.setAction("skip");
+            swipeHistory.record(action);
+        }
+
+        List<Track> served = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            served.addAll(prefetcher.next("session").orElseThrow());
+        }
+
+        assertTrue(served.stream().noneMatch(track -> catalogue.subList(40, 50).contains(track)));
+    }
+}
@@ -0,0 +1,195 @@
+package ca.sheridancollege.jamsy.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ca.sheridancollege.jamsy.models.SongAction;
+import ca.sheridancollege.jamsy.repositories.SongActionRepository;
+import ca.sheridancollege.jamsy.services.history.SwipeHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SongActionWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private SongActionRepository repo;
+    private SimpleMeterRegistry meters;
+    private final List<SongActionWriter> writers = new ArrayList<>();
+    // Everything the mocked repository accepted, in order
+    private final List<String> saved = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(SongActionRepository.class);
+        meters = new SimpleMeterRegistry();
+        when(repo.saveAll(anyList())).thenAnswer(invocation -> {
+            List<SongAction> actions = invocation.getArgument(0);
+            actions.forEach(action -> saved.add(action.getSongName()));
+            return actions;
+        });
+        when(repo.save(any(SongAction.class))).thenAnswer(invocation -> {
+            SongAction action = invocation.getArgument(0);
+            saved.add(action.getSongName());
+            return action;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        writers.forEach(SongActionWriter::stop);
+    }
+
+    private SongActionWriter writer() throws Exception {
+        SongActionWriter writer = new SongActionWriter(repo, mock(SwipeHistory.class),
+                new ObjectMapper().findAndRegisterModules(), meters, 100, dir.resolve("journal.mv.db").toString());
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(writer, "retryMs", 20L);
+        writers.add(writer);
+        return writer;
+    }
+
+    private static SongAction swipe(String songName) {
+        SongAction action = new SongAction();
+        action.setSongName(songName);
+        action.setArtist("Artist");
+        action.setAction("like");
+        return action;
+    }
+
+    private void awaitSaved(int count) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (saved.size() < count && System.currentTimeMillis() < until) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitDeadLettered(int count) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (meters.get("jamsy.swipes.dead-lettered").counter().count() < count && System.currentTimeMillis() < until) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void burstIsWrittenInOneBatch() throws Exception {
+        SongActionWriter writer = writer();
+        for (int i = 0; i < 5; i++) {
+            writer.record(swipe("song " + i));
+        }
+        writer.start();
+
+        verify(repo, timeout(5000)).saveAll(argThat(actions -> ((List<?>) actions).size() == 5));
+        awaitSaved(5);
+        assertEquals(List.of("song 0", "song 1", "song 2", "song 3", "song 4"), saved);
+    }
+
+    @Test
+    void rejectedRowIsDeadLetteredAndDoesNotBlockLaterSwipes() throws Exception {
+        SongActionWriter writer = writer();
+        when(repo.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("value too long"))
+                .thenAnswer(invocation -> {
+                    List<SongAction> actions = invocation.getArgument(0);
+                    actions.forEach(action -> saved.add(action.getSongName()));
+                    return actions;
+                });
+        when(repo.save(argThat(action -> action != null && "bad".equals(action.getSongName()))))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        writer.record(swipe("good 1"));
+        writer.record(swipe("bad"));
+        writer.record(swipe("good 2"));
+        writer.start();
+        awaitSaved(2);
+        writer.record(swipe("after"));
+        awaitSaved(3);
+
+        assertEquals(List.of("good 1", "good 2", "after"), saved);
+        assertEquals(1.0, meters.get("jamsy.swipes.dead-lettered").counter().count());
+    }
+
+    @Test
+    void deadLettersSurviveARestartWithAnEmptyJournal() throws Exception {
+        when(repo.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(repo.save(any(SongAction.class))).thenThrow(new DataIntegrityViolationException("value too long"));
+
+        SongActionWriter first = writer();
+        first.start();
+        first.record(swipe("bad 1"));
+        awaitDeadLettered(1);
+        first.stop();
+        writers.remove(first);
+
+        SongActionWriter restarted = writer();
+        restarted.start();
+        restarted.record(swipe("bad 2"));
+        awaitDeadLettered(2);
+
+        Map<?, ?> deadLetters = (Map<?, ?>) ReflectionTestUtils.getField(restarted, "deadLetters");
+        assertEquals(2, deadLetters.size());
+    }
+
+    @Test
+    void unavailableDatabaseIsRetried() throws Exception {
+        SongActionWriter writer = writer();
+        when(repo.saveAll(anyList()))
+                .thenThrow(new TransientDataAccessResourceException("connection lost"))
+                .thenAnswer(invocation -> {
+                    List<SongAction> actions = invocation.getArgument(0);
+                    actions.forEach(action -> saved.add(action.getSongName()));
+                    return actions;
+                });
+
+        writer.record(swipe("song"));
+        writer.start();
+        awaitSaved(1);
+
+        verify(repo, times(2)).saveAll(anyList());
+        assertEquals(List.of("song"), saved);
+        assertEquals(0.0, meters.get("jamsy.swipes.dead-lettered").counter().count());
+    }
+
+    @Test
+    void replayOnlyCoversEventsFromBeforeStartup() throws Exception {
+        // Journaled but never flushed, as after a crash
+        SongActionWriter crashed = writer();
+        crashed.record(swipe("old 1"));
+        crashed.record(swipe("old 2"));
+        crashed.stop();
+        writers.remove(crashed);
+
+        // Accepted before ApplicationReadyEvent: queued and journaled, must not be replayed too
+        SongActionWriter restarted = writer();
+        restarted.record(swipe("new"));
+        restarted.start();
+        awaitSaved(3);
+        Thread.sleep(200);
+
+        assertEquals(List.of("old 1", "old 2", "new"), saved);
+    }
+}
@@ -0,0 +1,100 @@
+package ca.sheridancollege.jamsy.services.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LastFmResponseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private LastFmResponseCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private LastFmResponseCache cache(MockEnvironment environment, long maxDiskEntries) throws Exception {
+        cache = new LastFmResponseCache(environment, new SimpleMeterRegistry(), new ObjectMapper(), executor,
+                dir.resolve("cache.mv.db").toString(), 100, maxDiskEntries, 60);
+        ReflectionTestUtils.setField(cache, "staleWindowHours", 0L);
+        return cache;
+    }
+
+    @Test
+    void errorBodiesAreNotCached() throws Exception {
+        LastFmResponseCache cache = cache(new MockEnvironment(), 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("artist.getInfo", "artist=x", () -> {
+                calls.incrementAndGet();
+                return "{\"error\":6,\"message\":\"The artist you supplied could not be found\"}";
+            });
+        }
+        assertEquals(2, calls.get());
+
+        for (int i = 0; i < 2; i++) {
+            cache.get("artist.getInfo", "artist=y", () -> {
+                calls.incrementAndGet();
+                return "{\"artist\":{\"name\":\"y\"}}";
+            });
+        }
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void sweepDropsExpiredEntries() throws Exception {
+        // TTL 0 hours and no stale window: everything is expired as soon as it is stored
+        MockEnvironment environment = new MockEnvironment().withProperty("lastfm.cache.ttl-hours.track.getInfo", "0");
+        LastFmResponseCache cache = cache(environment, 100);
+        cache.get("track.getInfo", "track=a", () -> "{\"track\":{}}");
+        cache.get("artist.getInfo", "artist=b", () -> "{\"artist\":{}}");
+
+        assertEquals(1, cache.sweep());
+        assertEquals(0, cache.sweep());
+    }
+
+    @Test
+    void sweepCapsTheDiskMapOldestFirst() throws Exception {
+        LastFmResponseCache cache = cache(new MockEnvironment(), 2);
+        for (String name : new String[] {"a", "b", "c"}) {
+            cache.get("artist.getInfo", "artist=" + name, () -> "{\"artist\":{}}");
+            Thread.sleep(2);
+        }
+
+        assertEquals(1, cache.sweep());
+
+        // "a" was the oldest and is fetched again; "c" is still cached
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("artist.getInfo", "artist=c", () -> {
+            calls.incrementAndGet();
+            return "{\"artist\":{}}";
+        });
+        assertEquals(0, calls.get());
+        cache.get("artist.getInfo", "artist=a", () -> {
+            calls.incrementAndGet();
+            return "{\"artist\":{}}";
+        });
+        assertEquals(1, calls.get());
+    }
+}
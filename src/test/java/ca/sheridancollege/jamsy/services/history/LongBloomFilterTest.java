@@ -0,0 +1,59 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ca.sheridancollege.jamsy.beans.TrackKey;
+
+class LongBloomFilterTest {
+
+    private static long key(int i) {
+        return TrackKey.of("Song " + i, "Artist " + (i % 97));
+    }
+
+    @Test
+    void hasNoFalseNegatives() {
+        LongBloomFilter filter = new LongBloomFilter(5_000, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            filter.put(key(i));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filter.mightContain(key(i)), "key " + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTargetAtCapacity() {
+        LongBloomFilter filter = new LongBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(key(i));
+        }
+
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(key(1_000_000 + i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.015, "false-positive rate " + rate);
+    }
+
+    @Test
+    void survivesAStorageRoundTrip() {
+        LongBloomFilter filter = new LongBloomFilter(100, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put(key(i));
+        }
+
+        LongBloomFilter restored = LongBloomFilter.fromArray(filter.toArray());
+
+        assertArrayEquals(filter.toArray(), restored.toArray());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(restored.mightContain(key(i)));
+        }
+    }
+}
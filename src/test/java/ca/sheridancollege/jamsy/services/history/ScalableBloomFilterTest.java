@@ -0,0 +1,113 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ca.sheridancollege.jamsy.beans.TrackKey;
+
+class ScalableBloomFilterTest {
+
+    private static long key(int i) {
+        return TrackKey.of("Song " + i, "Artist " + (i % 97));
+    }
+
+    @Test
+    void emptyFilterAllocatesNothing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(256, 0.01);
+
+        assertEquals(0, filter.stageCount());
+        assertEquals(0, filter.sizeInBytes());
+        assertFalse(filter.mightContain(key(1)));
+    }
+
+    @Test
+    void growsWithItsContent() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(256, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put(key(i));
+        }
+        assertEquals(1, filter.stageCount());
+        assertTrue(filter.sizeInBytes() < 512, "small history, " + filter.sizeInBytes() + " bytes");
+
+        // 256 + 1024 + 4096 keys fit in three stages
+        for (int i = 100; i < 5_000; i++) {
+            filter.put(key(i));
+        }
+        assertEquals(3, filter.stageCount());
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filter.mightContain(key(i)), "key " + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysBelowTargetAcrossStages() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(64, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put(key(i));
+        }
+        assertTrue(filter.stageCount() > 3);
+
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(key(1_000_000 + i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.01, "false-positive rate " + rate);
+    }
+
+    @Test
+    void repeatedKeysDoNotUseCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(4, 0.01);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 4; i++) {
+                filter.put(key(i));
+            }
+        }
+        assertEquals(1, filter.stageCount());
+    }
+
+    @Test
+    void onlyChangedStagesAreReportedDirty() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(4, 0.01);
+        for (int i = 0; i < 6; i++) {
+            filter.put(key(i));
+        }
+        assertEquals(0, filter.takeDirtyStages());
+        assertEquals(2, filter.takeDirtyStages());
+
+        filter.put(key(100));
+        assertEquals(1, filter.takeDirtyStages());
+    }
+
+    @Test
+    void survivesAStorageRoundTrip() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(16, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put(key(i));
+        }
+        List<long[]> stages = new ArrayList<>();
+        for (int i = 0; i < filter.stageCount(); i++) {
+            stages.add(filter.stageArray(i));
+        }
+
+        ScalableBloomFilter restored = ScalableBloomFilter.fromStages(16, 0.01, stages);
+
+        assertEquals(filter.stageCount(), restored.stageCount());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(restored.mightContain(key(i)));
+        }
+        // The restored counts keep the last stage's remaining capacity
+        int before = restored.stageCount();
+        restored.put(key(100));
+        assertEquals(before, restored.stageCount());
+    }
+}
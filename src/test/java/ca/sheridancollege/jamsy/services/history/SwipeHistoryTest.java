@@ -0,0 +1,95 @@
+package ca.sheridancollege.jamsy.services.history;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ca.sheridancollege.jamsy.beans.Track;
+import ca.sheridancollege.jamsy.models.SongAction;
+
+class SwipeHistoryTest {
+
+    @TempDir
+    Path dir;
+
+    private SwipeHistory history(long maxUsers) throws Exception {
+        return new SwipeHistory(dir.resolve("filters.mv.db").toString(), maxUsers, 16, 0.01, 60_000);
+    }
+
+    private static SongAction swipe(String userId, String action, String songName, String isrc) {
+        SongAction swipe = new SongAction();
+        swipe.setUserId(userId);
+        swipe.setAction(action);
+        swipe.setSongName(songName);
+        swipe.setArtist("Artist");
+        swipe.setIsrc(isrc);
+        return swipe;
+    }
+
+    private static Track track(String name, String isrc) {
+        Track track = new Track();
+        track.setName(name);
+        track.setArtistName("Artist");
+        track.setIsrc(isrc);
+        return track;
+    }
+
+    @Test
+    void usersWhoNeverSwipedShareTheEmptyFilters() throws Exception {
+        SwipeHistory history = history(10);
+        try {
+            SwipeHistory.Filters first = history.forUser("nobody");
+            assertSame(first, history.forUser("someone else"));
+            assertFalse(first.seen(track("Song", null)));
+        } finally {
+            history.close();
+        }
+    }
+
+    @Test
+    void recordsEachActionInItsFilters() throws Exception {
+        SwipeHistory history = history(10);
+        try {
+            history.record(swipe("u1", "like", "Liked", null));
+            history.record(swipe("u1", "skip", "Skipped", "US-ABC-24-00001"));
+
+            SwipeHistory.Filters filters = history.forUser("u1");
+            assertTrue(filters.liked(track("Liked", null)));
+            assertTrue(filters.seen(track("liked ", null)));
+            assertFalse(filters.skipped(track("Liked", null)));
+            // Matched by ISRC even under another title
+            assertTrue(filters.skipped(track("Skipped (Remastered)", "usabc2400001")));
+            assertFalse(history.forUser("u2").seen(track("Liked", null)));
+        } finally {
+            history.close();
+        }
+    }
+
+    @Test
+    void filtersSurviveARestartAndEviction() throws Exception {
+        SwipeHistory history = history(1);
+        for (int i = 0; i < 50; i++) {
+            history.record(swipe("u" + (i % 3), "like", "Song " + i, null));
+        }
+        // Evicted users with unwritten stages are stored before they are read back
+        for (int i = 0; i < 50; i++) {
+            assertTrue(history.forUser("u" + (i % 3)).liked(track("Song " + i, null)), "song " + i);
+        }
+        history.close();
+
+        SwipeHistory reopened = history(1);
+        try {
+            for (int i = 0; i < 50; i++) {
+                assertTrue(reopened.forUser("u" + (i % 3)).liked(track("Song " + i, null)), "song " + i);
+            }
+            assertFalse(reopened.forUser("u0").skipped(track("Song 0", null)));
+        } finally {
+            reopened.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final List<String> transitions = new ArrayList<>();
+
+    // Window of 10, opens at 50% failures after 4 calls, 2 half-open probes
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker(10, 4, 0.5, OPEN_NANOS, 2, SLOW_NANOS,
+                (from, to) -> transitions.add(from + "->" + to));
+    }
+
+    private static void call(CircuitBreaker breaker, boolean fails) {
+        assertTrue(breaker.tryAcquire());
+        if (fails) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess(0);
+        }
+    }
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfCalls() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            call(breaker, true);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(1.0, breaker.failureRate());
+
+        call(breaker, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(List.of("CLOSED->OPEN"), transitions);
+    }
+
+    @Test
+    void opensAtTheFailureRateThreshold() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 6; i++) {
+            call(breaker, false);
+        }
+        for (int i = 0; i < 5; i++) {
+            call(breaker, true);
+        }
+        // 11 calls in a window of 10: the oldest success dropped out, 5 of 10 failed
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void oldFailuresLeaveTheWindow() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false);
+        }
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, true);
+        assertEquals(3.0 / 7, breaker.failureRate(), 1e-9);
+
+        for (int i = 0; i < 10; i++) {
+            call(breaker, false);
+        }
+        assertEquals(0.0, breaker.failureRate());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void slowCallsCountAsFailures() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(2 * SLOW_NANOS);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void halfOpenProbesCloseTheCircuitWithAFreshWindow() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(OPEN_NANOS) + 20);
+
+        // Exactly halfOpenProbes calls are let through
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0.0, breaker.failureRate());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    void failedProbeOpensTheCircuitAgain() throws InterruptedException {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true);
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(OPEN_NANOS) + 20);
+
+        call(breaker, true);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"), transitions);
+    }
+}
@@ -0,0 +1,60 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ProviderRateLimiterTest {
+
+    // Two permits back-to-back, then one every 200ms
+    private static ProviderRateLimiter limiter() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("ratelimit.deezer.permits-per-second", "5")
+                .withProperty("ratelimit.deezer.burst", "2");
+        ProviderRateLimiter limiter = new ProviderRateLimiter(environment);
+        ReflectionTestUtils.setField(limiter, "maxWaitMs", 5000L);
+        return limiter;
+    }
+
+    @Test
+    void tryAcquireFailsFastOnAnEmptyBucket() {
+        ProviderRateLimiter limiter = limiter();
+        assertTrue(limiter.tryAcquire(Provider.DEEZER));
+        assertTrue(limiter.tryAcquire(Provider.DEEZER));
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire(Provider.DEEZER));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+        // Other providers have their own bucket
+        assertTrue(limiter.tryAcquire(Provider.SPOTIFY));
+    }
+
+    @Test
+    void cappedAcquireGivesUpInsteadOfWaitingLonger() {
+        ProviderRateLimiter limiter = limiter();
+        limiter.tryAcquire(Provider.DEEZER);
+        limiter.tryAcquire(Provider.DEEZER);
+
+        assertFalse(limiter.acquire(Provider.DEEZER, 50));
+        assertTrue(limiter.acquire(Provider.DEEZER, 1000));
+    }
+
+    @Test
+    void acquireAsyncCompletesOnceThePermitIsDue() throws Exception {
+        ProviderRateLimiter limiter = limiter();
+        assertTrue(limiter.acquireAsync(Provider.DEEZER).isDone());
+        assertTrue(limiter.acquireAsync(Provider.DEEZER).isDone());
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> third = limiter.acquireAsync(Provider.DEEZER);
+        assertFalse(third.isDone());
+        third.get(1, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
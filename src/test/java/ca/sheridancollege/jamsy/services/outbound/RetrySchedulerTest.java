@@ -0,0 +1,138 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import ca.sheridancollege.jamsy.exceptions.RateLimitExceededException;
+
+class RetrySchedulerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private RetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new RetryScheduler(executor, mock(OutboundMetrics.class));
+        ReflectionTestUtils.setField(scheduler, "maxRetries", 2);
+        ReflectionTestUtils.setField(scheduler, "maxTotalMs", 2_000L);
+        ReflectionTestUtils.setField(scheduler, "requestThreadMaxTotalMs", 2_000L);
+        ReflectionTestUtils.setField(scheduler, "baseDelayMs", 10L);
+        ReflectionTestUtils.setField(scheduler, "maxDelayMs", 40L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retriesServerErrorsUntilTheCallSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = scheduler.call(Provider.LASTFM, "test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void givesUpWithTheLastFailureOnceRetriesAreSpent() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> scheduler.call(Provider.LASTFM, "test", () -> {
+            attempts.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.BAD_GATEWAY);
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> scheduler.call(Provider.LASTFM, "test", () -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void errorsCompleteTheCallInsteadOfLeavingItWaiting() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(StackOverflowError.class, () -> scheduler.call(Provider.LASTFM, "test", () -> {
+                    throw new StackOverflowError();
+                })));
+    }
+
+    @Test
+    void backoffStaysWithinItsJitteredStep() {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            long step = Math.min(40, 10L << attempt);
+            for (int i = 0; i < 200; i++) {
+                long delay = scheduler.backoff(attempt);
+                assertTrue(delay >= step / 2 && delay <= step, "attempt " + attempt + ": " + delay + "ms");
+            }
+        }
+    }
+
+    @Test
+    void budgetRefusesRetriesPastItsCountOrDeadline() {
+        RetryBudget budget = new RetryBudget(2, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+        assertTrue(budget.tryTake(0));
+        assertTrue(budget.tryTake(100));
+        assertFalse(budget.tryTake(0));
+        assertEquals(2, budget.used());
+
+        RetryBudget closing = new RetryBudget(5, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(closing.tryTake(1_000));
+        assertEquals(0, closing.used());
+    }
+
+    @Test
+    void permitWaitEndsAtTheBudgetDeadline() {
+        ProviderRateLimiter limiter = new ProviderRateLimiter(new MockEnvironment()
+                .withProperty("ratelimit.lastfm.permits-per-second", "0.5")
+                .withProperty("ratelimit.lastfm.burst", "1"));
+        ReflectionTestUtils.setField(limiter, "maxWaitMs", 5_000L);
+        assertTrue(limiter.acquire(Provider.LASTFM));
+
+        // The next permit is 2s away, within ratelimit.max-wait-ms but not within a 100ms budget
+        long start = System.nanoTime();
+        RetryBudget budget = new RetryBudget(0, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> scheduler.submit(Provider.LASTFM, "test", budget, () -> {
+                    if (!limiter.acquire(Provider.LASTFM)) {
+                        throw new RateLimitExceededException("budget exhausted");
+                    }
+                    return "ok";
+                }).join());
+        assertTrue(failure.getCause() instanceof RateLimitExceededException);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,118 @@
+package ca.sheridancollege.jamsy.services.outbound;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void fullBucketHandsOutItsBurstAtOnce() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+
+        assertEquals(5, bucket.availablePermits());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.reserve(0), "permit " + i);
+        }
+        assertEquals(0, bucket.availablePermits());
+        assertEquals(-1, bucket.reserve(0));
+    }
+
+    @Test
+    void tryAcquireNeverWaits() {
+        TokenBucket bucket = new TokenBucket(1, 2);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        // A refused try reserves nothing: the next permit is still a second away, not two
+        long wait = bucket.reserve(2 * SECOND);
+        assertTrue(wait > 900_000_000 && wait <= SECOND, "wait " + wait);
+    }
+
+    @Test
+    void emptyBucketReservesTheNextPermitAtTheRefillRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertEquals(0, bucket.reserve(0));
+
+        // One permit every 100ms: the next one is about 100ms away, the one after about 200ms
+        long first = bucket.reserve(SECOND);
+        long second = bucket.reserve(SECOND);
+        assertTrue(first > 50_000_000 && first <= 100_000_000, "first wait " + first);
+        assertTrue(second > first + 50_000_000 && second <= 200_000_000, "second wait " + second);
+        // A caller not willing to wait that long reserves nothing
+        assertEquals(-1, bucket.reserve(100_000_000));
+    }
+
+    @Test
+    void refillsWhileIdle() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50, 2);
+        bucket.reserve(0);
+        bucket.reserve(0);
+        assertEquals(-1, bucket.reserve(0));
+
+        Thread.sleep(60);
+
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    void pauseHoldsPermitsBackAndIsNeverShortened() {
+        TokenBucket bucket = new TokenBucket(1000, 10);
+        long pausedUntil = System.nanoTime() + SECOND;
+        bucket.pauseUntil(pausedUntil);
+        bucket.pauseUntil(System.nanoTime() + 10_000_000);
+
+        assertEquals(0, bucket.availablePermits());
+        assertEquals(-1, bucket.reserve(500_000_000));
+        long wait = bucket.reserve(2 * SECOND);
+        assertTrue(wait > 900_000_000, "wait " + wait);
+    }
+
+    @Test
+    void concurrentCallersNeverShareAPermit() throws Exception {
+        TokenBucket bucket = new TokenBucket(0.01, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (bucket.reserve(0) == 0) granted++;
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> worker : workers) {
+                granted += worker.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(20, granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(5, 0));
+    }
+}
@@ -0,0 +1,159 @@
+package ca.sheridancollege.jamsy.services.playlist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ca.sheridancollege.jamsy.beans.Track;
+
+class PlaylistAssemblerTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long SECOND = 1_000;
+
+    private static Track track(String name, String artist, long durationMs, float score) {
+        Track track = new Track();
+        track.setName(name);
+        track.setArtistName(artist);
+        track.setDurationMs((int) durationMs);
+        track.setMatchScore(score);
+        return track;
+    }
+
+    private static long count(List<Track> tracks, String artist) {
+        return tracks.stream().filter(t -> t.getArtistName().equals(artist)).count();
+    }
+
+    @Test
+    void picksTheBestScoringPlaylistInsideTheWindow() {
+        List<Track> candidates = List.of(
+                track("Long filler", "A", 9 * MINUTE, 1),
+                track("Hit 1", "B", 4 * MINUTE, 5),
+                track("Hit 2", "C", 3 * MINUTE, 5),
+                track("Hit 3", "D", 3 * MINUTE, 4),
+                track("Too long", "E", 12 * MINUTE, 50));
+
+        PlaylistAssembler.Result result = PlaylistAssembler.assemble(List.of(), candidates,
+                10 * MINUTE, 30 * SECOND, 2, 5 * SECOND);
+
+        assertTrue(result.withinTolerance());
+        assertEquals(10 * MINUTE, result.durationMs());
+        assertEquals(14, result.score(), 1e-6);
+        assertEquals(List.of("Hit 1", "Hit 2", "Hit 3"),
+                result.tracks().stream().map(Track::getName).sorted().toList());
+    }
+
+    @Test
+    void artistCapCountsTheRequiredTracks() {
+        List<Track> required = List.of(track("Familiar", "A", 4 * MINUTE, 0));
+        List<Track> candidates = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            candidates.add(track("A " + i, "A", 4 * MINUTE, 10));
+            candidates.add(track("B " + i, "B", 4 * MINUTE, 1));
+        }
+
+        PlaylistAssembler.Result result = PlaylistAssembler.assemble(required, candidates,
+                16 * MINUTE, 30 * SECOND, 2, 5 * SECOND);
+
+        assertEquals("Familiar", result.tracks().get(0).getName());
+        assertEquals(2, count(result.tracks(), "A"));
+        assertEquals(2, count(result.tracks(), "B"));
+        assertEquals(16 * MINUTE, result.durationMs());
+    }
+
+    @Test
+    void fallsBackToTheLongestPlaylistWhenTheTargetIsOutOfReach() {
+        List<Track> candidates = List.of(
+                track("One", "A", 3 * MINUTE, 1),
+                track("Two", "B", 4 * MINUTE, 1),
+                track("Three", "C", 5 * MINUTE, 1),
+                track("No duration", "D", 0, 100));
+
+        PlaylistAssembler.Result result = PlaylistAssembler.assemble(List.of(), candidates,
+                60 * MINUTE, 2 * MINUTE, 2, 5 * SECOND);
+
+        assertFalse(result.withinTolerance());
+        assertEquals(12 * MINUTE, result.durationMs());
+        assertEquals(3, result.tracks().size());
+    }
+
+    @Test
+    void skipsCandidatesThatRepeatARequiredTrack() {
+        List<Track> required = List.of(track("Song", "A", 5 * MINUTE, 0));
+        List<Track> candidates = List.of(track("song ", "a", 5 * MINUTE, 9), track("Other", "B", 5 * MINUTE, 1));
+
+        PlaylistAssembler.Result result = PlaylistAssembler.assemble(required, candidates,
+                10 * MINUTE, 0, 2, 5 * SECOND);
+
+        assertEquals(List.of("Song", "Other"), result.tracks().stream().map(Track::getName).toList());
+    }
+
+    @Test
+    void matchesABruteForceSearchOnSmallInputs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<Track> candidates = new ArrayList<>();
+            int size = 4 + random.nextInt(9);
+            for (int i = 0; i < size; i++) {
+                // Whole steps and whole scores keep both sides exact
+                candidates.add(track("Song " + i, "Artist " + random.nextInt(4),
+                        (60 + random.nextInt(240)) * SECOND, random.nextInt(10)));
+            }
+            long targetMs = (5 + random.nextInt(20)) * MINUTE;
+            long toleranceMs = random.nextInt(90) * SECOND;
+            int artistCap = 1 + random.nextInt(3);
+
+            PlaylistAssembler.Result result = PlaylistAssembler.assemble(List.of(), candidates,
+                    targetMs, toleranceMs, artistCap, SECOND);
+            long[] expected = bruteForce(candidates, targetMs, toleranceMs, artistCap);
+            String context = "round " + round;
+
+            if (expected[0] >= 0) {
+                assertTrue(result.withinTolerance(), context);
+                assertEquals(expected[0], (long) result.score(), context);
+            } else {
+                assertFalse(result.withinTolerance(), context);
+                assertEquals(expected[1], result.durationMs(), context);
+            }
+            Map<String, Integer> perArtist = new HashMap<>();
+            for (Track track : result.tracks()) {
+                perArtist.merge(track.getArtistName(), 1, Integer::sum);
+            }
+            assertTrue(perArtist.values().stream().allMatch(n -> n <= artistCap), context);
+            assertTrue(result.durationMs() <= targetMs + toleranceMs, context);
+        }
+    }
+
+    // {best score inside the window or -1, longest length not over it}
+    private static long[] bruteForce(List<Track> candidates, long targetMs, long toleranceMs, int artistCap) {
+        long bestScore = -1;
+        long longest = 0;
+        for (int mask = 0; mask < 1 << candidates.size(); mask++) {
+            long durationMs = 0;
+            long score = 0;
+            Map<String, Integer> perArtist = new HashMap<>();
+            boolean allowed = true;
+            for (int i = 0; i < candidates.size() && allowed; i++) {
+                if ((mask & 1 << i) == 0) continue;
+                Track track = candidates.get(i);
+                durationMs += track.getDurationMs();
+                score += (long) track.getMatchScore();
+                allowed = perArtist.merge(track.getArtistName(), 1, Integer::sum) <= artistCap;
+            }
+            if (!allowed || durationMs > targetMs + toleranceMs) continue;
+            longest = Math.max(longest, durationMs);
+            if (durationMs >= targetMs - toleranceMs) {
+                bestScore = Math.max(bestScore, score);
+            }
+        }
+        return new long[] {bestScore, longest};
+    }
+}
@@ -0,0 +1,118 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import ca.sheridancollege.jamsy.services.outbound.ParallelFetcher;
+
+class AudioFeatureStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private SpotifyApiClient spotifyApiClient;
+    private AudioFeatureStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spotifyApiClient = mock(SpotifyApiClient.class);
+        when(spotifyApiClient.get(contains("/top-tracks"), anyString(), eq(SpotifyJson.Tracks.class)))
+                .thenAnswer(invocation -> {
+                    String url = invocation.getArgument(0);
+                    String artistId = url.substring(url.indexOf("/artists/") + 9, url.indexOf("/top-tracks"));
+                    return new SpotifyJson.Tracks(List.of(track(artistId + "-t1"), track(artistId + "-t2")));
+                });
+        store = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+        executor.shutdownNow();
+    }
+
+    private AudioFeatureStore open() throws Exception {
+        AudioFeatureStore store = new AudioFeatureStore(spotifyApiClient, new ParallelFetcher(executor),
+                dir.resolve("features.mv.db").toString());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "tracksPerArtist", 5);
+        ReflectionTestUtils.setField(store, "artistTtlDays", 30L);
+        ReflectionTestUtils.setField(store, "unavailableMinutes", 60L);
+        ReflectionTestUtils.setField(store, "deadlineMs", 5000L);
+        return store;
+    }
+
+    private static SpotifyJson.TrackObject track(String id) {
+        return new SpotifyJson.TrackObject(id, id, 50, false, null, 200_000, List.of(), null, null);
+    }
+
+    private static List<String> artists(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "artist" + i).toList();
+    }
+
+    private void refuseAudioFeatures() {
+        when(spotifyApiClient.get(contains("/audio-features"), anyString(), eq(SpotifyJson.AudioFeaturesList.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", HttpHeaders.EMPTY,
+                        new byte[0], StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void refusedAccessCostsOneProbeInsteadOfAFanOut() throws Exception {
+        refuseAudioFeatures();
+
+        assertTrue(store.getArtistFeatures(artists(50), "token").isEmpty());
+        verify(spotifyApiClient, times(1)).get(contains("/top-tracks"), anyString(), any());
+        verify(spotifyApiClient, times(1)).get(contains("/audio-features"), anyString(), any());
+
+        // Still refused after a restart: no calls at all
+        store.close();
+        store = open();
+        assertTrue(store.getArtistFeatures(artists(50), "token").isEmpty());
+        verify(spotifyApiClient, times(1)).get(contains("/top-tracks"), anyString(), any());
+    }
+
+    @Test
+    void confirmedAccessFansOutOverAllArtists() {
+        when(spotifyApiClient.get(contains("/audio-features"), anyString(), eq(SpotifyJson.AudioFeaturesList.class)))
+                .thenAnswer(invocation -> {
+                    String url = invocation.getArgument(0);
+                    String[] ids = url.substring(url.indexOf("ids=") + 4).split(",");
+                    return new SpotifyJson.AudioFeaturesList(Arrays.stream(ids)
+                            .map(id -> new SpotifyJson.AudioFeatures(id, 0.5, 0.6, 0.7, 120.0, 0.1, -6.0))
+                            .toList());
+                });
+
+        assertEquals(10, store.getArtistFeatures(artists(10), "token").size());
+        verify(spotifyApiClient, times(10)).get(contains("/top-tracks"), anyString(), any());
+        // Probe batch for the first artist, then one shared batch for the other nine
+        verify(spotifyApiClient, times(2)).get(contains("/audio-features"), anyString(), any());
+        verify(spotifyApiClient, never()).get(contains("/artists?ids="), anyString(), any());
+    }
+}
@@ -0,0 +1,88 @@
+package ca.sheridancollege.jamsy.services.spotify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class GenreTaxonomyTest {
+
+    @SuppressWarnings("unchecked")
+    private static final Map<String, Integer> TERMS =
+            (Map<String, Integer>) ReflectionTestUtils.getField(GenreTaxonomy.class, "TERMS");
+
+    // What the automaton replaces: every term checked with String.contains
+    private static int naiveMask(String genre) {
+        String lower = genre.toLowerCase(Locale.ROOT);
+        int mask = 0;
+        for (Map.Entry<String, Integer> term : TERMS.entrySet()) {
+            if (lower.contains(term.getKey())) {
+                mask |= term.getValue();
+            }
+        }
+        return mask;
+    }
+
+    @Test
+    void matchesContainsOnRealGenres() {
+        List<String> genres = List.of("pop", "dance pop", "Canadian Hip Hop", "southern hip hop", "hard rock",
+                "post-rock", "metalcore", "indie folk", "lo-fi beats", "Ambient Pop", "classical", "new age",
+                "east coast hip hop", "uk drill", "r&b", "Música Electrónica", "k-pop", "polka", "", "zydeco");
+        for (String genre : genres) {
+            assertEquals(naiveMask(genre), GenreTaxonomy.mask(genre), genre);
+        }
+    }
+
+    @Test
+    void matchesContainsOnRandomText() {
+        // Built from term fragments so overlapping and partial matches are common
+        List<String> pieces = new ArrayList<>(TERMS.keySet());
+        pieces.addAll(List.of(" ", "-", "x", "é", "HIP", "Ro", "ck", "tr", "ap"));
+        Random random = new Random(7);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder genre = new StringBuilder();
+            int parts = 1 + random.nextInt(4);
+            for (int p = 0; p < parts; p++) {
+                String piece = pieces.get(random.nextInt(pieces.size()));
+                genre.append(random.nextBoolean() ? piece : piece.substring(0, 1 + random.nextInt(piece.length())));
+            }
+            String text = genre.toString();
+            assertEquals(naiveMask(text), GenreTaxonomy.mask(text), text);
+        }
+    }
+
+    @Test
+    void splitsTheMaskByTermList() {
+        int mask = GenreTaxonomy.mask("Southern Hip Hop");
+
+        assertEquals(GenreTaxonomy.HIIT, GenreTaxonomy.categories(mask, GenreTaxonomy.SCORING));
+        assertEquals(GenreTaxonomy.HIIT, GenreTaxonomy.categories(mask, GenreTaxonomy.ANY));
+        assertEquals(GenreTaxonomy.HIIT, GenreTaxonomy.categories(mask, GenreTaxonomy.KEYWORD));
+
+        // "club" is a scoring term only
+        int club = GenreTaxonomy.mask("club");
+        assertEquals(GenreTaxonomy.CARDIO, GenreTaxonomy.categories(club, GenreTaxonomy.SCORING));
+        assertEquals(0, GenreTaxonomy.categories(club, GenreTaxonomy.ANY));
+        assertEquals(0, GenreTaxonomy.categories(club, GenreTaxonomy.KEYWORD));
+    }
+
+    @Test
+    void emptyGenresMatchNothing() {
+        assertEquals(0, GenreTaxonomy.mask(null));
+        assertEquals(0, GenreTaxonomy.mask(""));
+    }
+
+    @Test
+    void namesFollowTheCategoryOrder() {
+        assertEquals(List.of("Cardio", "Yoga", "Strength Training"),
+                GenreTaxonomy.names(GenreTaxonomy.STRENGTH | GenreTaxonomy.YOGA | GenreTaxonomy.CARDIO));
+        assertEquals("HIIT", GenreTaxonomy.name(GenreTaxonomy.HIIT));
+        assertEquals(List.of(), GenreTaxonomy.names(0));
+    }
+}